@@ -0,0 +1,57 @@
+package ar.edu.um.backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Soporte de handlers MVC asíncronos.
+ *
+ * - Bloqueo y venta (los que esperan a la cátedra) devuelven un CompletableFuture armado con las
+ *   llamadas no bloqueantes del ProxyService: no usan este ejecutor ni retienen ningún hilo
+ *   mientras esperan. app.handlers.timeout-ms es el tiempo máximo de esos requests.
+ * - El ejecutor acotado queda para los handlers que sí escriben desde un hilo propio
+ *   (StreamingResponseBody de la grilla de asientos).
+ */
+@Configuration
+public class AsyncHandlersConfiguration implements WebMvcConfigurer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncHandlersConfiguration.class);
+
+    private final int poolSize;
+    private final int queueCapacity;
+    private final long timeoutMs;
+
+    public AsyncHandlersConfiguration(
+        @Value("${app.handlers.pool-size:64}") int poolSize,
+        @Value("${app.handlers.queue-capacity:500}") int queueCapacity,
+        @Value("${app.handlers.timeout-ms:60000}") long timeoutMs
+    ) {
+        this.poolSize = poolSize;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Bean(name = "handlerTaskExecutor")
+    public AsyncTaskExecutor handlerTaskExecutor() {
+        LOG.info("[Handlers] Ejecutor de handlers asíncronos: poolSize={} queueCapacity={}", poolSize, queueCapacity);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("backend-handler-");
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(handlerTaskExecutor());
+        configurer.setDefaultTimeout(timeoutMs);
+    }
+}
@@ -14,7 +14,10 @@ import org.hibernate.annotations.CacheConcurrencyStrategy;
  * A Asiento.
  */
 @Entity
-@Table(name = "asiento")
+@Table(
+    name = "asiento",
+    uniqueConstraints = @UniqueConstraint(name = "ux_asiento__evento_fila_columna", columnNames = { "evento_id", "fila", "columna" })
+)
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @SuppressWarnings("common-java:DuplicatedBlocks")
 public class Asiento implements Serializable {
@@ -44,6 +44,13 @@ public class Evento implements Serializable {
     @Column(name = "external_id", unique = true)
     private Long externalId;
 
+    /**
+     * Huella (SHA-256) del último payload recibido de la cátedra para este evento.
+     * Si el próximo sync trae la misma huella, el evento y sus asientos no se vuelven a sincronizar.
+     */
+    @Column(name = "huella_contenido", length = 64)
+    private String huellaContenido;
+
     @NotNull
     @Column(name = "activo", nullable = false)
     private Boolean activo = true; // todos los eventos nuevos están activos
@@ -193,6 +200,9 @@ public class Evento implements Serializable {
     public Long getExternalId() { return externalId; }
     public void setExternalId(Long externalId) { this.externalId = externalId; }
 
+    public String getHuellaContenido() { return huellaContenido; }
+    public void setHuellaContenido(String huellaContenido) { this.huellaContenido = huellaContenido; }
+
     public BigDecimal getPrecioEntrada() {
         return this.precioEntrada;
     }
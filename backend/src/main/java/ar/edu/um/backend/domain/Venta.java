@@ -1,11 +1,13 @@
 package ar.edu.um.backend.domain;
 
 import ar.edu.um.backend.domain.enumeration.VentaEstado;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.Set;
@@ -55,6 +57,29 @@ public class Venta implements Serializable {
     @Column(name = "cantidad_asientos", nullable = false)
     private Integer cantidadAsientos;
 
+    /**
+     * Request original (JSON) de una venta asíncrona mientras está PENDIENTE:
+     * el worker lo usa para confirmarla con la cátedra. Se limpia al resolverse.
+     */
+    @JsonIgnore
+    @Column(name = "solicitud", columnDefinition = "text")
+    private String solicitud;
+
+    /**
+     * Momento en que el worker envió la venta asíncrona a la cátedra. Una venta PENDIENTE con esta marca
+     * pudo haber quedado registrada en la cátedra: se concilia en lugar de reenviarla o rechazarla.
+     */
+    @JsonIgnore
+    @Column(name = "enviada_catedra_en")
+    private Instant enviadaCatedraEn;
+
+    /**
+     * Login del usuario que hizo la venta: solo él (o un admin) puede consultar su ticket.
+     */
+    @JsonIgnore
+    @Column(name = "comprador", length = 50)
+    private String comprador;
+
     @ManyToOne(optional = false)
     @NotNull
     @JsonIgnoreProperties(value = { "asientos", "ventas" }, allowSetters = true)
@@ -98,6 +123,15 @@ public class Venta implements Serializable {
         return this;
     }
 
+    public String getSolicitud() { return solicitud; }
+    public void setSolicitud(String solicitud) { this.solicitud = solicitud; }
+
+    public Instant getEnviadaCatedraEn() { return enviadaCatedraEn; }
+    public void setEnviadaCatedraEn(Instant enviadaCatedraEn) { this.enviadaCatedraEn = enviadaCatedraEn; }
+
+    public String getComprador() { return comprador; }
+    public void setComprador(String comprador) { this.comprador = comprador; }
+
     public LocalDate getFechaVenta() {
         return this.fechaVenta;
     }
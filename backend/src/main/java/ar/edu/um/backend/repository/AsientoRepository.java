@@ -1,5 +1,6 @@
 package ar.edu.um.backend.repository;
 import ar.edu.um.backend.domain.Asiento;
+import jakarta.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
@@ -80,6 +81,48 @@ public interface AsientoRepository extends JpaRepository<Asiento, Long> {
      */
     Optional<Asiento> findByEventoIdAndFilaAndColumna(Long eventoId, Integer fila, Integer columna);
 
+    /**
+     * Busca varios asientos de un evento en UNA sola consulta.
+     *
+     * filas[i] y columnas[i] forman el par (fila, columna) i-ésimo: se hace un join contra
+     * unnest(filas, columnas), que PostgreSQL resuelve con el índice único (evento_id, fila, columna).
+     * Los pares que no existen simplemente no aparecen en el resultado (no hay orden garantizado).
+     *
+     * Se usa en VentaSyncService para que el costo de la venta no crezca con la cantidad de entradas.
+     */
+    @Query(
+        value = "select a.* from asiento a " +
+            "join unnest(cast(:filas as integer[]), cast(:columnas as integer[])) as u(fila, columna) " +
+            "on a.fila = u.fila and a.columna = u.columna " +
+            "where a.evento_id = :eventoId",
+        nativeQuery = true
+    )
+    List<Asiento> findByEventoIdAndUbicaciones(
+        @Param("eventoId") Long eventoId,
+        @Param("filas") Integer[] filas,
+        @Param("columnas") Integer[] columnas
+    );
+
+    /**
+     * Crea el asiento (evento, fila, columna) si todavía no existe, de forma atómica.
+     *
+     * Se usa en el modo de materialización "bajo-demanda": la fila del asiento recién se crea
+     * al venderlo. Si dos ventas concurrentes lo intentan, la restricción única
+     * (ux_asiento__evento_fila_columna) hace que solo una inserte y la otra no haga nada.
+     * El id sale de sequence_generator: nextval reserva un bloque completo, así que no choca con JPA.
+     *
+     * @return 1 si se insertó, 0 si ya existía.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "asiento")) // no invalida otras regiones de caché
+    @Query(
+        value = "insert into asiento (id, fila, columna, estado, persona_actual, evento_id) " +
+            "values (nextval('sequence_generator'), :fila, :columna, 'LIBRE', null, :eventoId) " +
+            "on conflict (evento_id, fila, columna) do nothing",
+        nativeQuery = true
+    )
+    int insertarSiNoExiste(@Param("eventoId") Long eventoId, @Param("fila") Integer fila, @Param("columna") Integer columna);
+
     List<Asiento> findByEventoId(Long eventoId);
 
 }
@@ -2,8 +2,10 @@ package ar.edu.um.backend.repository;
 
 import ar.edu.um.backend.domain.Evento;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -43,4 +45,10 @@ public interface EventoRepository extends JpaRepository<Evento, Long> {
     // Útil para procesos de sincronización y validación.
     List<Evento> findByExternalIdIsNotNull();
 
+    // Borra la huella de contenido de los eventos indicados (p. ej. si falló el sync de sus asientos),
+    // para que el próximo sync los vuelva a procesar aunque la cátedra mande lo mismo.
+    @Modifying
+    @Query("update Evento e set e.huellaContenido = null where e.id in :ids")
+    int limpiarHuellaContenido(@Param("ids") Collection<Long> ids);
+
 }
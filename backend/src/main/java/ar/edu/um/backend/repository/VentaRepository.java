@@ -1,6 +1,9 @@
 package ar.edu.um.backend.repository;
 
 import ar.edu.um.backend.domain.Venta;
+import ar.edu.um.backend.domain.enumeration.VentaEstado;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
@@ -35,6 +38,27 @@ public interface VentaRepository extends VentaRepositoryWithBagRelationships, Jp
      */
     Optional<Venta> findByExternalId(Long externalId);
 
+    /**
+     * IDs de las ventas en un estado dado (p. ej. PENDIENTE, para reencolarlas al arrancar).
+     */
+    @Query("select venta.id from Venta venta where venta.estado = :estado order by venta.id")
+    List<Long> findIdsByEstado(@Param("estado") VentaEstado estado);
+
+    /**
+     * IDs de las ventas en un estado dado que se enviaron a la cátedra antes de {@code antesDe}
+     * (ventas asíncronas PENDIENTE cuya respuesta no llegó: hay que conciliarlas).
+     */
+    @Query(
+        "select venta.id from Venta venta where venta.estado = :estado and venta.enviadaCatedraEn < :antesDe order by venta.id"
+    )
+    List<Long> findIdsByEstadoAndEnviadaCatedraAntesDe(@Param("estado") VentaEstado estado, @Param("antesDe") Instant antesDe);
+
+    /**
+     * true si alguna venta en ese estado incluye alguno de los asientos (p. ej. una venta
+     * asíncrona PENDIENTE que todavía no confirmó la cátedra).
+     */
+    boolean existsByEstadoAndAsientos_IdIn(VentaEstado estado, Collection<Long> asientoIds);
+
     @Query(value = "select venta from Venta venta left join fetch venta.evento", countQuery = "select count(venta) from Venta venta")
     Page<Venta> findAllWithToOneRelationships(Pageable pageable);
 
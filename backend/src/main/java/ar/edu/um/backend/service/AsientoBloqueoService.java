@@ -9,10 +9,13 @@ import ar.edu.um.backend.service.dto.AsientoUbicacionDTO;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
 
 /**
  * Servicio de negocio del backend encargado de gestionar el bloqueo de asientos.
@@ -29,9 +32,11 @@ import org.springframework.transaction.annotation.Transactional;
  * - El proxy/cátedra es la fuente de verdad del bloqueo.
  * - El TTL del bloqueo NO se maneja aquí (viene dado por la cátedra/Redis).
  * - La operación es atómica ("todo o nada").
+ * - Es no bloqueante: las validaciones locales corren en el hilo del llamador y devuelve un Mono
+ *   con el pre-chequeo y el bloqueo real (dos llamadas al proxy) encadenados, sin retener un hilo
+ *   mientras la cátedra responde. Sin transacción: la única lectura de la DB es el evento.
  */
 @Service
-@Transactional
 public class AsientoBloqueoService {
 
     private static final Logger log = LoggerFactory.getLogger(AsientoBloqueoService.class);
@@ -50,7 +55,11 @@ public class AsientoBloqueoService {
         this.proxyService = proxyService;
     }
 
-    public AsientoBloqueoResponseDTO bloquearAsientos(Long eventoIdLocal, AsientoBloqueoRequestDTO request) {
+    /**
+     * Valida el pedido (errores de validación → IllegalStateException, lanzada al invocar) y devuelve
+     * el bloqueo encadenado: pre-chequeo de estados en Redis y, si todos son bloqueables, el bloqueo real.
+     */
+    public Mono<AsientoBloqueoResponseDTO> bloquearAsientosAsync(Long eventoIdLocal, AsientoBloqueoRequestDTO request) {
 
         if (eventoIdLocal == null) {
             throw new IllegalStateException("eventoIdLocal requerido.");
@@ -100,13 +109,29 @@ public class AsientoBloqueoService {
         }
 
         // 4) Pre-chequeo de estados (tu "mapa final" backend)
+        //    Una sola lectura de Redis para todos los asientos pedidos.
+        return asientoEstadoService
+            .obtenerEstadosAsientosAsync(evento, request.getAsientos())
+            .flatMap(estados -> {
+                AsientoBloqueoResponseDTO rechazo = preChequeo(evento, request, estados);
+                return rechazo != null ? Mono.just(rechazo) : bloquearEnProxy(evento, request);
+            });
+    }
+
+    /**
+     * Respuesta negativa si algún asiento no es bloqueable; null si todos lo son.
+     */
+    private AsientoBloqueoResponseDTO preChequeo(
+        Evento evento,
+        AsientoBloqueoRequestDTO request,
+        Map<AsientoUbicacionDTO, AsientoEstadoDTO> estados
+    ) {
         List<AsientoEstadoDTO> detalle = new ArrayList<>();
         boolean todosBloqueables = true;
 
         for (AsientoUbicacionDTO a : request.getAsientos()) {
 
-            AsientoEstadoDTO estadoActual =
-                asientoEstadoService.obtenerEstadoAsiento(eventoIdLocal, a.getFila(), a.getColumna());
+            AsientoEstadoDTO estadoActual = estados.get(a);
 
             String est = (estadoActual != null && estadoActual.getEstado() != null)
                 ? estadoActual.getEstado()
@@ -134,42 +159,45 @@ public class AsientoBloqueoService {
             // si está expirado, el intento de bloqueo debería poder avanzar y que la cátedra decida.
         }
 
-        // 5) Si alguno no es bloqueable → respuesta negativa (todo o nada)
-        if (!todosBloqueables) {
-            AsientoBloqueoResponseDTO resp = new AsientoBloqueoResponseDTO();
-            resp.setResultado(false);
-            resp.setDescripcion("No todos los asientos pueden ser bloqueados");
-            resp.setEventoId(evento.getExternalId());
-            resp.setAsientos(detalle);
-
-            log.warn("⛔ [Bloqueo] Rechazado por pre-chequeo (eventoLocal={}, externalId={})", eventoIdLocal, evento.getExternalId());
-            return resp;
+        if (todosBloqueables) {
+            return null;
         }
 
-        // 6) Delegar bloqueo real al proxy (fuente de verdad)
+        // 5) Si alguno no es bloqueable → respuesta negativa (todo o nada)
+        AsientoBloqueoResponseDTO resp = new AsientoBloqueoResponseDTO();
+        resp.setResultado(false);
+        resp.setDescripcion("No todos los asientos pueden ser bloqueados");
+        resp.setEventoId(evento.getExternalId());
+        resp.setAsientos(detalle);
+
+        log.warn("⛔ [Bloqueo] Rechazado por pre-chequeo (eventoLocal={}, externalId={})", evento.getId(), evento.getExternalId());
+        return resp;
+    }
+
+    /**
+     * 6) Bloqueo real en el proxy (fuente de verdad).
+     */
+    private Mono<AsientoBloqueoResponseDTO> bloquearEnProxy(Evento evento, AsientoBloqueoRequestDTO request) {
         AsientoBloqueoRequestDTO requestCat = new AsientoBloqueoRequestDTO();
         requestCat.setEventoId(evento.getExternalId());
         requestCat.setAsientos(request.getAsientos());
 
-        AsientoBloqueoResponseDTO resp = proxyService.crearBloqueoEnProxy(requestCat);
-
-        // FIX: si el proxy falló y devolvió null, evitamos NPE y devolvemos un resultado controlado
-        if (resp == null) {
-            log.error("❌ [Bloqueo] El proxy devolvió null al bloquear (eventoLocal={}, externalId={})", eventoIdLocal, evento.getExternalId());
-            AsientoBloqueoResponseDTO fallback = new AsientoBloqueoResponseDTO();
-            fallback.setResultado(false);
-            fallback.setDescripcion("Error comunicándose con el proxy para bloquear asientos");
-            fallback.setEventoId(evento.getExternalId());
-            fallback.setAsientos(new ArrayList<>());
-            return fallback;
-        }
-
-        log.info(
-            "✅ [Bloqueo] Respuesta proxy: resultado={}, eventoId={}",
-            resp.isResultado(),
-            resp.getEventoId()
-        );
-
-        return resp;
+        return proxyService
+            .crearBloqueoEnProxyAsync(requestCat)
+            .doOnNext(resp ->
+                log.info(
+                    "✅ [Bloqueo] Respuesta proxy: resultado={}, eventoId={}",
+                    resp.isResultado(),
+                    resp.getEventoId()
+                )
+            )
+            // Proxy caído (vacío): error y no un resultado=false, para que la idempotencia no lo
+            // recuerde como respuesta definitiva y el reintento vuelva a intentar el bloqueo
+            .switchIfEmpty(Mono.defer(() -> {
+                log.error("❌ [Bloqueo] El proxy no respondió al bloquear (eventoLocal={}, externalId={})", evento.getId(), evento.getExternalId());
+                return Mono.error(
+                    new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Error comunicándose con el proxy para bloquear asientos")
+                );
+            }));
     }
 }
@@ -3,20 +3,27 @@ import ar.edu.um.backend.domain.Evento;
 import ar.edu.um.backend.repository.EventoRepository;
 import ar.edu.um.backend.service.dto.AsientoEstadoDTO;
 import ar.edu.um.backend.service.dto.AsientoRequestDTO;
+import ar.edu.um.backend.service.dto.AsientoUbicacionDTO;
 import ar.edu.um.backend.service.dto.ProxyEstadoAsientosResponse;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
 
 /**
  * Servicio que construye el MAPA FINAL DE ASIENTOS para el frontend usando SOLO Redis (vía proxy).
@@ -30,6 +37,10 @@ import org.springframework.web.server.ResponseStatusException;
  * - VENDIDO
  * - BLOQUEADO_VIGENTE
  * - BLOQUEADO_EXPIRADO (si expira <= now)
+ *
+ * La grilla cacheada no guarda VIGENTE/EXPIRADO (se calcula al leer), así que no hace falta
+ * invalidarla al vencer un bloqueo: sus expiras se registran en {@link RuedaVencimientosBloqueo},
+ * que avisa en el momento exacto a quienes sí guardan un estado evaluado (stream SSE).
  */
 @Service
 public class AsientoEstadoService {
@@ -38,17 +49,54 @@ public class AsientoEstadoService {
 
     private final EventoRepository eventoRepository;
     private final ProxyService proxyService;
+    private final RuedaVencimientosBloqueo ruedaVencimientos;
+
+    /** Última grilla construida por evento (idLocal), junto con el snapshot de Redis que la originó. */
+    private final Map<Long, SnapshotGrilla> grillas = new ConcurrentHashMap<>();
 
-    public AsientoEstadoService(EventoRepository eventoRepository, ProxyService proxyService) {
+    public AsientoEstadoService(
+        EventoRepository eventoRepository,
+        ProxyService proxyService,
+        RuedaVencimientosBloqueo ruedaVencimientos
+    ) {
         this.eventoRepository = eventoRepository;
         this.proxyService = proxyService;
+        this.ruedaVencimientos = ruedaVencimientos;
     }
 
     /**
      * Devuelve el mapa completo de asientos del evento (grilla completa),
      * usando Redis como fuente de verdad y completando LIBRES por diferencia.
+     *
+     * Materializa un DTO por asiento: preferir {@link #obtenerGrillaAsientos(Long)}
+     * cuando se pueda serializar directo desde la grilla compacta.
      */
     public List<AsientoEstadoDTO> obtenerEstadoActualDeAsientos(Long eventoIdLocal) {
+        return obtenerGrillaAsientos(eventoIdLocal).materializar(Instant.now());
+    }
+
+    /**
+     * Devuelve la grilla compacta del evento.
+     *
+     * - Redis se consulta siempre (es la fuente de verdad).
+     * - Si el snapshot de Redis no cambió desde la última vez, se reutiliza la misma grilla
+     *   (no se vuelve a indexar ni a reservar memoria por asiento).
+     * - {@link GrillaAsientos#version(Instant)} identifica el contenido (se usa como ETag).
+     */
+    public GrillaAsientos obtenerGrillaAsientos(Long eventoIdLocal) {
+        return obtenerGrillaAsientos(eventoIdLocal, proxyService::listarEstadoAsientosRedis);
+    }
+
+    /**
+     * Igual que {@link #obtenerGrillaAsientos(Long)}, con un tiempo máximo para la lectura de Redis.
+     * Si el proxy no responde a tiempo (o falla) lanza excepción en lugar de armar una grilla vacía.
+     * La usa el stream SSE para que un evento con el proxy lento no retenga su hilo de refresco.
+     */
+    public GrillaAsientos obtenerGrillaAsientos(Long eventoIdLocal, Duration timeout) {
+        return obtenerGrillaAsientos(eventoIdLocal, externalId -> proxyService.listarEstadoAsientosRedis(externalId, timeout));
+    }
+
+    private GrillaAsientos obtenerGrillaAsientos(Long eventoIdLocal, Function<Long, ProxyEstadoAsientosResponse> lectorRedis) {
 
         Evento evento = eventoRepository
             .findById(eventoIdLocal)
@@ -65,26 +113,53 @@ public class AsientoEstadoService {
         int maxFilas = evento.getFilaAsientos();
         int maxCols = evento.getColumnaAsientos();
         Long externalId = evento.getExternalId();
-        int totalEsperado = maxFilas * maxCols;
 
         // 1) Leer Redis (solo no-libres)
-        ProxyEstadoAsientosResponse redisResponse = proxyService.listarEstadoAsientosRedis(externalId);
+        ProxyEstadoAsientosResponse redisResponse = lectorRedis.apply(externalId);
         List<AsientoRequestDTO> redisAsientos =
             (redisResponse != null && redisResponse.getAsientos() != null)
                 ? redisResponse.getAsientos()
                 : Collections.emptyList();
 
+        // 2) Reutilizar la grilla si el snapshot es el mismo
+        SnapshotGrilla previo = grillas.get(eventoIdLocal);
+        if (previo != null && previo.coincide(maxFilas, maxCols, redisAsientos)) {
+            log.debug(
+                "♻️ [Mapa-Asientos] Snapshot sin cambios, reutilizando grilla eventoIdLocal={} externalId={} (noLibres={})",
+                eventoIdLocal, externalId, previo.grilla().getNoLibres()
+            );
+            return previo.grilla();
+        }
+
+        GrillaAsientos grilla = construirGrilla(eventoIdLocal, externalId, maxFilas, maxCols, redisAsientos);
+        grillas.put(eventoIdLocal, new SnapshotGrilla(maxFilas, maxCols, new ArrayList<>(redisAsientos), grilla));
+
+        // 3) Avisar a tiempo cuando venza cada bloqueo (las ya programadas se ignoran)
+        ruedaVencimientos.programar(eventoIdLocal, grilla.vencimientosPendientes(Instant.now()));
+        return grilla;
+    }
+
+    /**
+     * Construye la grilla compacta a partir de los asientos NO libres devueltos por Redis
+     * (filtrando fuera de rango y LIBRES, que son el default).
+     */
+    private GrillaAsientos construirGrilla(
+        Long eventoIdLocal,
+        Long externalId,
+        int maxFilas,
+        int maxCols,
+        List<AsientoRequestDTO> redisAsientos
+    ) {
         log.info(
             "🧭 [Mapa-Asientos] Construyendo mapa eventoIdLocal={} externalId={} grilla={}x{} (total={}) | redisItems={}",
-            eventoIdLocal, externalId, maxFilas, maxCols, totalEsperado, redisAsientos.size()
+            eventoIdLocal, externalId, maxFilas, maxCols, maxFilas * maxCols, redisAsientos.size()
         );
 
-        // 2) Indexar Redis (filtrando fuera de rango y opcionalmente ignorando LIBRE)
-        Map<String, AsientoRequestDTO> redisMap = new HashMap<>();
+        GrillaAsientos.Builder builder = GrillaAsientos.builder(maxFilas, maxCols);
+        int usados = 0;
         int ignoradosFueraDeRango = 0;
         int ignoradosLibres = 0;
         int ignoradosInvalidos = 0;
-        int duplicados = 0;
 
         for (AsientoRequestDTO a : redisAsientos) {
             if (a == null || a.getFila() == null || a.getColumna() == null) {
@@ -108,64 +183,31 @@ public class AsientoEstadoService {
                 continue;
             }
 
-            String k = key(fila, col);
-            if (redisMap.containsKey(k)) {
-                duplicados++;
+            switch (estadoNorm) {
+                case "VENDIDO", "OCUPADO" -> builder.marcar(fila, col, GrillaAsientos.VENDIDO, null, null);
+                case "BLOQUEADO" -> builder.marcar(fila, col, GrillaAsientos.BLOQUEADO, a.getExpira(), null);
+                // Cualquier otro estado raro: lo devolvemos tal cual normalizado
+                default -> builder.marcar(fila, col, GrillaAsientos.OTRO, a.getExpira(), estadoNorm);
             }
-            redisMap.put(k, a);
+            usados++;
         }
 
+        GrillaAsientos grilla = builder.build();
+        int duplicados = usados - grilla.getNoLibres();
+
         if (ignoradosFueraDeRango > 0 || ignoradosLibres > 0 || ignoradosInvalidos > 0 || duplicados > 0) {
             log.warn(
                 "⚠️ [Mapa-Asientos] Redis filtrado eventoIdLocal={} externalId={} -> usados={} | invalidos={} | fueraDeRango={} | libresIgnorados={} | duplicados={}",
-                eventoIdLocal, externalId, redisMap.size(), ignoradosInvalidos, ignoradosFueraDeRango, ignoradosLibres, duplicados
+                eventoIdLocal, externalId, grilla.getNoLibres(), ignoradosInvalidos, ignoradosFueraDeRango, ignoradosLibres, duplicados
             );
         } else {
             log.info(
                 "✅ [Mapa-Asientos] Redis indexado eventoIdLocal={} externalId={} -> usados={} (no-libres)",
-                eventoIdLocal, externalId, redisMap.size()
+                eventoIdLocal, externalId, grilla.getNoLibres()
             );
         }
 
-        // 3) Construir grilla completa
-        List<AsientoEstadoDTO> resultado = new ArrayList<>(totalEsperado);
-        Instant ahora = Instant.now();
-
-        for (int fila = 1; fila <= maxFilas; fila++) {
-            for (int col = 1; col <= maxCols; col++) {
-
-                AsientoRequestDTO redis = redisMap.get(key(fila, col));
-                if (redis == null) {
-                    resultado.add(new AsientoEstadoDTO(fila, col, "LIBRE", null));
-                    continue;
-                }
-
-                String estadoRedis = normalizarEstadoRedis(redis.getEstado());
-                Instant expira = redis.getExpira();
-
-                if ("VENDIDO".equals(estadoRedis) || "OCUPADO".equals(estadoRedis)) {
-                    resultado.add(new AsientoEstadoDTO(fila, col, "VENDIDO", null));
-                    continue;
-                }
-
-                if ("BLOQUEADO".equals(estadoRedis)) {
-                    if (expira != null && expira.isAfter(ahora)) {
-                        resultado.add(new AsientoEstadoDTO(fila, col, "BLOQUEADO_VIGENTE", expira));
-                    } else if (expira != null) {
-                        resultado.add(new AsientoEstadoDTO(fila, col, "BLOQUEADO_EXPIRADO", expira));
-                    } else {
-                        // Bloqueado sin expira explícita
-                        resultado.add(new AsientoEstadoDTO(fila, col, "BLOQUEADO_VIGENTE", null));
-                    }
-                    continue;
-                }
-
-                // Cualquier otro estado raro: lo devolvemos tal cual normalizado
-                resultado.add(new AsientoEstadoDTO(fila, col, estadoRedis, expira));
-            }
-        }
-
-        return resultado;
+        return grilla;
     }
 
     /**
@@ -176,67 +218,194 @@ public class AsientoEstadoService {
      * - Si no aparece en Redis => LIBRE.
      */
     public AsientoEstadoDTO obtenerEstadoAsiento(Long eventoIdLocal, int fila, int columna) {
+        AsientoUbicacionDTO ubicacion = new AsientoUbicacionDTO(fila, columna);
+        return obtenerEstadosAsientos(eventoIdLocal, List.of(ubicacion)).get(ubicacion);
+    }
 
+    /**
+     * Estado de VARIOS asientos puntuales de un evento (bloqueo / venta).
+     *
+     * Costo: 1 lectura del evento + 1 lectura de Redis (vía proxy, solo los asientos pedidos)
+     * + lookup indexado; no depende del tamaño de la sala.
+     */
+    public Map<AsientoUbicacionDTO, AsientoEstadoDTO> obtenerEstadosAsientos(
+        Long eventoIdLocal,
+        Collection<AsientoUbicacionDTO> ubicaciones
+    ) {
         Evento evento = eventoRepository
             .findById(eventoIdLocal)
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Evento no encontrado"));
 
+        return obtenerEstadosAsientos(evento, ubicaciones);
+    }
+
+    /**
+     * Igual que {@link #obtenerEstadosAsientos(Long, Collection)} pero reutilizando
+     * el evento ya cargado por el llamador (evita releerlo de la DB).
+     */
+    public Map<AsientoUbicacionDTO, AsientoEstadoDTO> obtenerEstadosAsientos(
+        Evento evento,
+        Collection<AsientoUbicacionDTO> ubicaciones
+    ) {
+        return obtenerEstadosAsientosAsync(evento, ubicaciones).block();
+    }
+
+    /**
+     * Variante no bloqueante de {@link #obtenerEstadosAsientos(Evento, Collection)} (bloqueo / venta):
+     * la lectura de Redis vía proxy no retiene el hilo que la pide.
+     *
+     * Reglas:
+     * - Si no aparece en Redis => LIBRE (también si el proxy no respondió).
+     * - Asientos fuera de rango (o sin fila/columna) NO se incluyen en el resultado.
+     * - El mapa respeta el orden de las ubicaciones pedidas.
+     */
+    public Mono<Map<AsientoUbicacionDTO, AsientoEstadoDTO>> obtenerEstadosAsientosAsync(
+        Evento evento,
+        Collection<AsientoUbicacionDTO> ubicaciones
+    ) {
+        return leerEstadosAsientos(evento, ubicaciones, true).map(AsientoEstadoService::soloEstados);
+    }
+
+    /**
+     * Como {@link #obtenerEstadosAsientosAsync(Evento, Collection)}, pero vacío si el proxy no respondió
+     * en lugar de asumir LIBRE: para decidir algo a partir del estado (p. ej. conciliar una venta
+     * con la cátedra) un "no sé" no puede confundirse con "libre". Incluye quién tiene cada asiento.
+     */
+    public Mono<Map<AsientoUbicacionDTO, EstadoEnCatedra>> obtenerEstadosAsientosSiResponde(
+        Evento evento,
+        Collection<AsientoUbicacionDTO> ubicaciones
+    ) {
+        return leerEstadosAsientos(evento, ubicaciones, false);
+    }
+
+    private static Map<AsientoUbicacionDTO, AsientoEstadoDTO> soloEstados(Map<AsientoUbicacionDTO, EstadoEnCatedra> estados) {
+        Map<AsientoUbicacionDTO, AsientoEstadoDTO> resultado = new LinkedHashMap<>(Math.max(estados.size() * 2, 16));
+        estados.forEach((u, e) -> resultado.put(u, e.estado()));
+        return resultado;
+    }
+
+    private Mono<Map<AsientoUbicacionDTO, EstadoEnCatedra>> leerEstadosAsientos(
+        Evento evento,
+        Collection<AsientoUbicacionDTO> ubicaciones,
+        boolean libreSiNoResponde
+    ) {
         if (evento.getExternalId() == null) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El evento no tiene externalId (id cátedra)");
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "El evento no tiene externalId (id cátedra)"));
+        }
+        if (ubicaciones == null || ubicaciones.isEmpty()) {
+            return Mono.just(new LinkedHashMap<>());
         }
 
         int maxFilas = Optional.ofNullable(evento.getFilaAsientos()).orElse(0);
         int maxCols = Optional.ofNullable(evento.getColumnaAsientos()).orElse(0);
 
-        if (fila < 1 || columna < 1 || fila > maxFilas || columna > maxCols) {
-            // OJO: normalmente esto NO debería pasar porque Bloqueo/Venta validan rango antes.
-            log.warn(
-                "⚠️ [Mapa-Asientos] obtenerEstadoAsiento fuera de rango eventoIdLocal={} externalId={} seat=({},{}) rango=1-{}x1-{}",
-                eventoIdLocal, evento.getExternalId(), fila, columna, maxFilas, maxCols
-            );
-            return null;
+        // 1) Indexar SOLO los asientos pedidos (y en rango)
+        Map<String, AsientoUbicacionDTO> pedidos = new LinkedHashMap<>(Math.max(ubicaciones.size() * 2, 16));
+        for (AsientoUbicacionDTO u : ubicaciones) {
+            if (u == null || u.getFila() == null || u.getColumna() == null) continue;
+
+            int fila = u.getFila();
+            int columna = u.getColumna();
+            if (fila < 1 || columna < 1 || fila > maxFilas || columna > maxCols) {
+                // OJO: normalmente esto NO debería pasar porque Bloqueo/Venta validan rango antes.
+                log.warn(
+                    "⚠️ [Mapa-Asientos] Asiento fuera de rango eventoIdLocal={} externalId={} seat=({},{}) rango=1-{}x1-{}",
+                    evento.getId(), evento.getExternalId(), fila, columna, maxFilas, maxCols
+                );
+                continue;
+            }
+            pedidos.put(key(fila, columna), u);
         }
 
-        ProxyEstadoAsientosResponse redisResponse = proxyService.listarEstadoAsientosRedis(evento.getExternalId());
+        if (pedidos.isEmpty()) {
+            return Mono.just(new LinkedHashMap<>());
+        }
+
+        // 2) Una sola lectura de Redis SOLO de los asientos pedidos (HMGET en el proxy)
+        Mono<ProxyEstadoAsientosResponse> lectura = proxyService.listarEstadoAsientosRedisAsync(evento.getExternalId(), pedidos.values());
+        if (!libreSiNoResponde) {
+            return lectura.map(redisResponse -> resolverPedidos(evento, pedidos, redisResponse));
+        }
+        return lectura
+            .map(Optional::of)
+            .defaultIfEmpty(Optional.empty())
+            .map(redisResponse -> resolverPedidos(evento, pedidos, redisResponse.orElse(null)));
+    }
+
+    /**
+     * Estado final de cada asiento pedido a partir de la respuesta de Redis (null si el proxy no respondió).
+     */
+    private Map<AsientoUbicacionDTO, EstadoEnCatedra> resolverPedidos(
+        Evento evento,
+        Map<String, AsientoUbicacionDTO> pedidos,
+        ProxyEstadoAsientosResponse redisResponse
+    ) {
         List<AsientoRequestDTO> redisAsientos =
             (redisResponse != null && redisResponse.getAsientos() != null)
                 ? redisResponse.getAsientos()
                 : Collections.emptyList();
 
-        Instant ahora = Instant.now();
-
+        Map<String, AsientoRequestDTO> encontrados = new HashMap<>(Math.max(pedidos.size() * 2, 16));
         for (AsientoRequestDTO a : redisAsientos) {
             if (a == null || a.getFila() == null || a.getColumna() == null) continue;
-            if (a.getFila() != fila || a.getColumna() != columna) continue;
 
-            String estadoRedis = normalizarEstadoRedis(a.getEstado());
-            Instant expira = a.getExpira();
-
-            if ("LIBRE".equals(estadoRedis)) {
-                return new AsientoEstadoDTO(fila, columna, "LIBRE", null);
-            }
-            if ("VENDIDO".equals(estadoRedis) || "OCUPADO".equals(estadoRedis)) {
-                return new AsientoEstadoDTO(fila, columna, "VENDIDO", null);
-            }
-            if ("BLOQUEADO".equals(estadoRedis)) {
-                if (expira != null && expira.isAfter(ahora)) {
-                    return new AsientoEstadoDTO(fila, columna, "BLOQUEADO_VIGENTE", expira);
-                } else if (expira != null) {
-                    return new AsientoEstadoDTO(fila, columna, "BLOQUEADO_EXPIRADO", expira);
-                } else {
-                    return new AsientoEstadoDTO(fila, columna, "BLOQUEADO_VIGENTE", null);
-                }
+            String k = key(a.getFila(), a.getColumna());
+            if (pedidos.containsKey(k)) {
+                encontrados.put(k, a);
             }
+        }
 
-            return new AsientoEstadoDTO(fila, columna, estadoRedis, expira);
+        // 3) Resolver estado final de cada asiento pedido
+        Map<AsientoUbicacionDTO, EstadoEnCatedra> resultado = new LinkedHashMap<>();
+        Instant ahora = Instant.now();
+        for (Map.Entry<String, AsientoUbicacionDTO> e : pedidos.entrySet()) {
+            AsientoUbicacionDTO u = e.getValue();
+            AsientoRequestDTO redis = encontrados.get(e.getKey());
+            resultado.put(
+                u,
+                new EstadoEnCatedra(resolverEstado(u.getFila(), u.getColumna(), redis, ahora), redis != null ? redis.getPersonaActual() : null)
+            );
         }
 
-        // Si no está en Redis => es LIBRE por definición del modelo
         log.debug(
-            "ℹ️ [Mapa-Asientos] Asiento no presente en Redis => LIBRE eventoIdLocal={} externalId={} seat=({},{})",
-            eventoIdLocal, evento.getExternalId(), fila, columna
+            "ℹ️ [Mapa-Asientos] Estados puntuales eventoIdLocal={} externalId={} pedidos={} | presentesEnRedis={} (resto => LIBRE)",
+            evento.getId(), evento.getExternalId(), pedidos.size(), encontrados.size()
         );
-        return new AsientoEstadoDTO(fila, columna, "LIBRE", null);
+
+        return resultado;
+    }
+
+    /**
+     * Traduce la entrada de Redis de un asiento (o su ausencia) al estado final para el frontend.
+     */
+    private AsientoEstadoDTO resolverEstado(int fila, int columna, AsientoRequestDTO redis, Instant ahora) {
+        // Si no está en Redis => es LIBRE por definición del modelo
+        if (redis == null) {
+            return new AsientoEstadoDTO(fila, columna, "LIBRE", null);
+        }
+
+        String estadoRedis = normalizarEstadoRedis(redis.getEstado());
+        Instant expira = redis.getExpira();
+
+        if ("LIBRE".equals(estadoRedis)) {
+            return new AsientoEstadoDTO(fila, columna, "LIBRE", null);
+        }
+        if ("VENDIDO".equals(estadoRedis) || "OCUPADO".equals(estadoRedis)) {
+            return new AsientoEstadoDTO(fila, columna, "VENDIDO", null);
+        }
+        if ("BLOQUEADO".equals(estadoRedis)) {
+            if (expira != null && expira.isAfter(ahora)) {
+                return new AsientoEstadoDTO(fila, columna, "BLOQUEADO_VIGENTE", expira);
+            } else if (expira != null) {
+                return new AsientoEstadoDTO(fila, columna, "BLOQUEADO_EXPIRADO", expira);
+            } else {
+                // Bloqueado sin expira explícita
+                return new AsientoEstadoDTO(fila, columna, "BLOQUEADO_VIGENTE", null);
+            }
+        }
+
+        // Cualquier otro estado raro: lo devolvemos tal cual normalizado
+        return new AsientoEstadoDTO(fila, columna, estadoRedis, expira);
     }
 
     private static String key(int fila, int columna) {
@@ -259,5 +428,20 @@ public class AsientoEstadoService {
 
         return e;
     }
-}
 
+    /**
+     * Grilla + snapshot de Redis (solo no-libres) del que se construyó.
+     * Se compara contra la lectura actual para decidir si la grilla se puede reutilizar.
+     */
+    /**
+     * Estado de un asiento en la cátedra y quién lo tiene (personaActual en Redis, null si no figura).
+     * Solo para decisiones internas: la persona no se expone al frontend.
+     */
+    public record EstadoEnCatedra(AsientoEstadoDTO estado, String personaActual) {}
+
+    private record SnapshotGrilla(int filas, int columnas, List<AsientoRequestDTO> fuente, GrillaAsientos grilla) {
+        boolean coincide(int filas, int columnas, List<AsientoRequestDTO> actual) {
+            return this.filas == filas && this.columnas == columnas && fuente.equals(actual);
+        }
+    }
+}
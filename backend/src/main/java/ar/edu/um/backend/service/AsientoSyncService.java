@@ -4,6 +4,7 @@ import ar.edu.um.backend.domain.Evento;
 import ar.edu.um.backend.domain.enumeration.AsientoEstado;
 import ar.edu.um.backend.repository.AsientoRepository;
 import ar.edu.um.backend.service.dto.AsientoRequestDTO;
+import ar.edu.um.backend.service.dto.AsientoUbicacionDTO;
 import ar.edu.um.backend.service.dto.ProxyEstadoAsientosResponse;
 import jakarta.transaction.Transactional;
 import java.util.ArrayList;
@@ -15,6 +16,7 @@ import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 /**
  * Sincroniza los asientos locales de un evento con los datos remotos del proxy/cátedra.
@@ -29,13 +31,18 @@ import org.springframework.stereotype.Service;
  * - Si el proxy/Redis devuelve solo NO-LIBRES, entonces "faltantes" => LIBRE (en tiempo real).
  *
  * Estrategia (optimizada):
- * 1) Asegurar grilla completa en DB (crear los que falten como LIBRE).
+ * 0) Evento sin asientos locales: grilla completa en bloque por JDBC (GrillaAsientosMaterializador).
+ * 1) Asegurar grilla completa en DB (crear los que falten como LIBRE, sin duplicar ante syncs concurrentes).
  * 2) Aplicar estados remotos SOLO para los asientos presentes en la respuesta.
  * 3) NO recorrer la grilla completa para “liberar por diferencia”.
 
  *   El mapa final para el frontend lo calcula AsientoEstadoService contra Redis (y completa LIBRES).
  *   Por performance y coherencia con la fuente de verdad, evitamos “liberar por diferencia” en DB.
  *
+ * Modo app.asientos.materializacion=bajo-demanda (opcional):
+ * - No se crea la grilla: la fila de un asiento recién se crea al venderlo (VentaSyncService).
+ * - El sync solo actualiza los asientos que ya tienen fila local.
+ *
  * Importante:
  * - NO se borran asientos locales (evita romper FKs con ventas).
  * - Se validan coordenadas remotas (fuera de rango se ignoran).
@@ -46,12 +53,24 @@ public class AsientoSyncService {
 
     private static final Logger log = LoggerFactory.getLogger(AsientoSyncService.class);
 
+    /** Valor de app.asientos.materializacion para crear filas de asiento recién al venderlos. */
+    static final String MATERIALIZACION_BAJO_DEMANDA = "bajo-demanda";
+
     private final ProxyService proxyService;
     private final AsientoRepository asientoRepository;
-
-    public AsientoSyncService(ProxyService proxyService, AsientoRepository asientoRepository) {
+    private final GrillaAsientosMaterializador grillaAsientosMaterializador;
+    private final boolean bajoDemanda;
+
+    public AsientoSyncService(
+        ProxyService proxyService,
+        AsientoRepository asientoRepository,
+        GrillaAsientosMaterializador grillaAsientosMaterializador,
+        @Value("${app.asientos.materializacion:grilla}") String materializacion
+    ) {
         this.proxyService = proxyService;
         this.asientoRepository = asientoRepository;
+        this.grillaAsientosMaterializador = grillaAsientosMaterializador;
+        this.bajoDemanda = MATERIALIZACION_BAJO_DEMANDA.equals(materializacion);
     }
 
     public void sincronizarAsientosDeEvento(Evento eventoLocal, Long externalId) {
@@ -101,6 +120,13 @@ public class AsientoSyncService {
 
         // 2) Cargar locales e indexarlos
         List<Asiento> locales = asientoRepository.findByEventoId(eventoLocal.getId());
+
+        // 2.b) Evento nuevo (sin asientos): grilla completa por JDBC, ya con los estados remotos
+        if (locales.isEmpty() && !bajoDemanda) {
+            materializarGrillaNueva(eventoLocal, externalId, maxFilas, maxCols, remotos);
+            return;
+        }
+
         Map<String, Asiento> index = new HashMap<>(Math.max(locales.size() * 2, 16));
 
         int localesInvalidos = 0;
@@ -118,30 +144,29 @@ public class AsientoSyncService {
             );
         }
 
-        // 3) Asegurar grilla completa en DB (crear faltantes como LIBRE)
+        // 3) Asegurar grilla completa en DB (crear faltantes como LIBRE).
+        //    En modo bajo-demanda no se crea nada: solo existen los asientos que participaron de una venta.
+        //    Los faltantes se insertan con "on conflict do nothing": si otro sync del mismo evento
+        //    los creó en paralelo no se duplican (ni falla este sync por la restricción única).
         AtomicInteger creadosGrilla = new AtomicInteger(0);
-        List<Asiento> aCrear = new ArrayList<>();
+        List<AsientoUbicacionDTO> faltantes = new ArrayList<>();
 
-        for (int fila = 1; fila <= maxFilas; fila++) {
+        for (int fila = 1; fila <= maxFilas && !bajoDemanda; fila++) {
             for (int col = 1; col <= maxCols; col++) {
-                String k = key(fila, col);
-                if (!index.containsKey(k)) {
-                    Asiento nuevo = new Asiento()
-                        .fila(fila)
-                        .columna(col)
-                        .estado(AsientoEstado.LIBRE)
-                        .personaActual(null)
-                        .evento(eventoLocal);
-
-                    aCrear.add(nuevo);
-                    index.put(k, nuevo);
-                    creadosGrilla.incrementAndGet();
+                if (!index.containsKey(key(fila, col))) {
+                    faltantes.add(new AsientoUbicacionDTO(fila, col));
                 }
             }
         }
 
-        if (!aCrear.isEmpty()) {
-            asientoRepository.saveAll(aCrear);
+        if (!faltantes.isEmpty()) {
+            creadosGrilla.set(grillaAsientosMaterializador.crearFaltantes(eventoLocal.getId(), faltantes));
+            // Se releen para tener las entidades (propias o creadas por otro sync) en el índice
+            for (Asiento a : asientoRepository.findByEventoId(eventoLocal.getId())) {
+                if (a.getFila() != null && a.getColumna() != null) {
+                    index.putIfAbsent(key(a.getFila(), a.getColumna()), a);
+                }
+            }
         }
 
         if (creadosGrilla.get() > 0) {
@@ -189,6 +214,10 @@ public class AsientoSyncService {
             keysVistasEnRemoto.add(k);
 
             Asiento asiento = index.get(k);
+            if (asiento == null && bajoDemanda) {
+                // Sin fila local: el estado vive solo en Redis (ausente en DB = nunca vendido desde acá)
+                continue;
+            }
             if (asiento == null) {
                 // No debería ocurrir porque completamos grilla, pero por las dudas.
                 ignorados.incrementAndGet();
@@ -231,6 +260,49 @@ public class AsientoSyncService {
         );
     }
 
+    /**
+     * Primera sincronización de un evento: en lugar de persistir filas×columnas entidades,
+     * se insertan en bloque (ver GrillaAsientosMaterializador) con los estados remotos aplicados.
+     */
+    private void materializarGrillaNueva(
+        Evento eventoLocal,
+        Long externalId,
+        int maxFilas,
+        int maxCols,
+        List<AsientoRequestDTO> remotos
+    ) {
+        Map<Integer, GrillaAsientosMaterializador.EstadoInicial> iniciales = new HashMap<>(Math.max(remotos.size() * 2, 16));
+        int ignorados = 0;
+
+        for (AsientoRequestDTO remoto : remotos) {
+            if (
+                remoto == null || remoto.getFila() == null || remoto.getColumna() == null ||
+                remoto.getFila() < 1 || remoto.getColumna() < 1 || remoto.getFila() > maxFilas || remoto.getColumna() > maxCols
+            ) {
+                ignorados++;
+                continue;
+            }
+            AsientoEstado estado = mapearEstado(remoto.getEstado());
+            if (estado != AsientoEstado.LIBRE || remoto.getPersonaActual() != null) {
+                iniciales.put(
+                    GrillaAsientosMaterializador.indice(remoto.getFila(), remoto.getColumna(), maxCols),
+                    new GrillaAsientosMaterializador.EstadoInicial(estado, remoto.getPersonaActual())
+                );
+            }
+        }
+
+        int creados = grillaAsientosMaterializador.crearGrilla(eventoLocal.getId(), maxFilas, maxCols, iniciales);
+
+        log.info(
+            "✅ [Sync-Asientos] Fin sync (grilla nueva) evento idLocal={} externalId={} | creados={} | conEstadoRemoto={} | ignorados={}",
+            eventoLocal.getId(),
+            externalId,
+            creados,
+            iniciales.size(),
+            ignorados
+        );
+    }
+
     private static String key(Integer fila, Integer columna) {
         return fila + "-" + columna;
     }
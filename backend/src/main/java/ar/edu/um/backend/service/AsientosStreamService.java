@@ -0,0 +1,342 @@
+package ar.edu.um.backend.service;
+import ar.edu.um.backend.service.dto.AsientoEstadoDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Difusión en vivo (Server-Sent Events) del mapa de asientos de un evento.
+ *
+ * Funcionamiento:
+ * - Cada suscriptor recibe al conectarse un evento "snapshot" con la grilla completa.
+ * - Por evento (idLocal) hay UN solo vigilante, compartido por todos sus suscriptores:
+ *   en cada tick consulta la grilla (Redis vía proxy) una vez, calcula las diferencias contra
+ *   la anterior y envía un evento "delta" con SOLO los asientos que cambiaron.
+ * - El tick (@Scheduled) solo reparte: cada evento se refresca en paralelo en un pool propio
+ *   (app.asientos-stream.paralelismo, cola acotada), con un tiempo máximo por lectura del proxy
+ *   y a lo sumo un refresco en curso por evento. Un evento con el proxy lento no frena a los
+ *   demás ni ocupa el pool compartido de @Scheduled.
+ * - Si el evento cambia de dimensiones, se reenvía un "snapshot" completo.
+ * - Sin cambios, cada tanto se envía un comentario (heartbeat) para detectar clientes caídos
+ *   y que los proxies intermedios no corten la conexión.
+ * - Cuando vence un bloqueo, {@link RuedaVencimientosBloqueo} avisa y se encola en el mismo pool el "delta"
+ *   BLOQUEADO_VIGENTE → BLOQUEADO_EXPIRADO (sin esperar al próximo tick ni releer Redis); el hilo
+ *   de la rueda nunca hace el envío SSE.
+ *
+ * Cuando un evento se queda sin suscriptores, su vigilante se descarta (no se consulta más Redis).
+ */
+@Service
+public class AsientosStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(AsientosStreamService.class);
+
+    private final AsientoEstadoService asientoEstadoService;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMs;
+    private final long heartbeatMs;
+    private final Duration timeoutLectura;
+    private final ThreadPoolExecutor refrescos;
+
+    private final Map<Long, Vigilante> vigilantes = new ConcurrentHashMap<>();
+
+    public AsientosStreamService(
+        AsientoEstadoService asientoEstadoService,
+        ObjectMapper objectMapper,
+        MeterRegistry meterRegistry,
+        @Value("${app.asientos-stream.timeout-ms:1800000}") long timeoutMs,
+        @Value("${app.asientos-stream.heartbeat-ms:10000}") long heartbeatMs,
+        @Value("${app.asientos-stream.paralelismo:4}") int paralelismo,
+        @Value("${app.asientos-stream.capacidad-cola:256}") int capacidadCola,
+        @Value("${app.asientos-stream.timeout-lectura-ms:1500}") long timeoutLecturaMs
+    ) {
+        this.asientoEstadoService = asientoEstadoService;
+        this.objectMapper = objectMapper;
+        this.timeoutMs = timeoutMs;
+        this.heartbeatMs = heartbeatMs;
+        this.timeoutLectura = Duration.ofMillis(timeoutLecturaMs);
+        int hilos = Math.max(1, paralelismo);
+        this.refrescos = new ThreadPoolExecutor(
+            hilos,
+            hilos,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(Math.max(1, capacidadCola)),
+            new CustomizableThreadFactory("stream-asientos-")
+        );
+        Gauge.builder("asientos.stream.refrescos.cola", refrescos, e -> e.getQueue().size())
+            .description("Refrescos de grilla del stream esperando un hilo")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Registra un nuevo suscriptor para el evento y le envía el snapshot inicial.
+     */
+    public SseEmitter suscribir(Long eventoIdLocal) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        emitter.onCompletion(() -> quitar(eventoIdLocal, emitter));
+        emitter.onTimeout(() -> quitar(eventoIdLocal, emitter));
+        emitter.onError(e -> quitar(eventoIdLocal, emitter));
+
+        while (true) {
+            Vigilante vigilante = vigilantes.get(eventoIdLocal);
+            if (vigilante == null) {
+                // Sin vigilante: se lee la grilla FUERA del mapa (nada de I/O dentro de un compute) y con
+                // el mismo tiempo máximo que los refrescos. Si dos suscriptores llegan juntos ambos leen,
+                // pero gana un único vigilante.
+                GrillaAsientos grilla;
+                try {
+                    grilla = asientoEstadoService.obtenerGrillaAsientos(eventoIdLocal, timeoutLectura);
+                } catch (ResponseStatusException e) {
+                    throw e; // evento inexistente o mal configurado: error HTTP normal
+                } catch (RuntimeException e) {
+                    // Proxy lento o caído: falla solo este suscriptor
+                    log.warn("⚠️ [Stream-Asientos] Sin snapshot inicial eventoIdLocal={}: {}", eventoIdLocal, e.getMessage());
+                    emitter.completeWithError(e);
+                    return emitter;
+                }
+                Vigilante nuevo = new Vigilante(grilla, Instant.now());
+                Vigilante existente = vigilantes.putIfAbsent(eventoIdLocal, nuevo);
+                vigilante = existente != null ? existente : nuevo;
+            }
+
+            // El snapshot sale de la MISMA grilla contra la que se calcularán los próximos deltas
+            synchronized (vigilante) {
+                if (vigilante.descartado) {
+                    continue; // el tick lo acaba de descartar: se crea uno nuevo
+                }
+                try {
+                    List<AsientoEstadoDTO> snapshot = vigilante.grilla.materializar(Instant.now());
+                    emitter.send(SseEmitter.event().name("snapshot").data(snapshot, MediaType.APPLICATION_JSON));
+                } catch (IOException e) {
+                    emitter.completeWithError(e);
+                    return emitter;
+                }
+                vigilante.suscriptores.add(emitter);
+            }
+
+            log.info(
+                "📡 [Stream-Asientos] Nuevo suscriptor eventoIdLocal={} (suscriptores={})",
+                eventoIdLocal, vigilante.suscriptores.size()
+            );
+            return emitter;
+        }
+    }
+
+    /**
+     * Tick de los vigilantes: una lectura de grilla por evento con suscriptores,
+     * sin importar cuántos suscriptores tenga.
+     *
+     * Solo encola los refrescos (no espera al proxy): el hilo de @Scheduled queda libre enseguida.
+     * Si el refresco anterior de un evento sigue en curso, ese evento se saltea en este tick.
+     */
+    @Scheduled(fixedDelayString = "${app.asientos-stream.intervalo-ms:2000}")
+    public void difundirCambios() {
+        for (Map.Entry<Long, Vigilante> entry : vigilantes.entrySet()) {
+            Long eventoIdLocal = entry.getKey();
+            Vigilante vigilante = entry.getValue();
+
+            synchronized (vigilante) {
+                if (vigilante.suscriptores.isEmpty()) {
+                    vigilante.descartado = true;
+                    vigilantes.remove(eventoIdLocal, vigilante);
+                    continue;
+                }
+                if (vigilante.refrescando) {
+                    continue;
+                }
+                vigilante.refrescando = true;
+            }
+
+            try {
+                refrescos.execute(() -> refrescar(eventoIdLocal, vigilante));
+            } catch (RejectedExecutionException e) {
+                synchronized (vigilante) {
+                    vigilante.refrescando = false;
+                }
+                log.warn("⚠️ [Stream-Asientos] Pool de refresco lleno, eventoIdLocal={} se actualiza en el próximo tick", eventoIdLocal);
+            }
+        }
+    }
+
+    /**
+     * Refresco de un evento (en el pool propio). La lectura del proxy, acotada por
+     * app.asientos-stream.timeout-lectura-ms, se hace SIN el monitor del vigilante:
+     * mientras tanto un suscriptor nuevo recibe su snapshot sin esperar al proxy.
+     */
+    private void refrescar(Long eventoIdLocal, Vigilante vigilante) {
+        try {
+            GrillaAsientos nueva = asientoEstadoService.obtenerGrillaAsientos(eventoIdLocal, timeoutLectura);
+            synchronized (vigilante) {
+                if (!vigilante.descartado) {
+                    difundir(eventoIdLocal, vigilante, nueva);
+                }
+            }
+        } catch (Exception e) {
+            // Un evento con problemas (proxy caído o lento, evento borrado) no debe cortar al resto:
+            // se conserva la grilla anterior y se reintenta en el próximo tick
+            log.warn("⚠️ [Stream-Asientos] Error actualizando eventoIdLocal={}: {}", eventoIdLocal, e.getMessage());
+        } finally {
+            synchronized (vigilante) {
+                vigilante.refrescando = false;
+            }
+        }
+    }
+
+    /**
+     * Vencieron bloqueos del evento: encola en el pool de refrescos la difusión de los asientos que
+     * pasaron a EXPIRADO. El hilo de la rueda solo encola: el envío SSE (I/O bloqueante por cada
+     * suscriptor) no lo frena ni atrasa los vencimientos de los demás eventos.
+     */
+    @EventListener
+    public void alVencerBloqueos(RuedaVencimientosBloqueo.BloqueosVencidos vencidos) {
+        Long eventoIdLocal = vencidos.eventoIdLocal();
+        Vigilante vigilante = vigilantes.get(eventoIdLocal);
+        if (vigilante == null) {
+            return;
+        }
+        try {
+            refrescos.execute(() -> difundirVencidos(eventoIdLocal, vigilante));
+        } catch (RejectedExecutionException e) {
+            // El próximo refresco del tick incluye los vencidos (diferencias desde evaluadaEn)
+            log.warn("⚠️ [Stream-Asientos] Pool de refresco lleno, vencidos de eventoIdLocal={} van en el próximo tick", eventoIdLocal);
+        }
+    }
+
+    /**
+     * Reevalúa la MISMA grilla a la fecha actual y difunde solo lo que venció (sin releer Redis).
+     * Corre en el pool de refrescos y bajo el monitor del vigilante, como refrescar(): los deltas
+     * de un evento salen en orden.
+     */
+    private void difundirVencidos(Long eventoIdLocal, Vigilante vigilante) {
+        synchronized (vigilante) {
+            if (vigilante.descartado || vigilante.suscriptores.isEmpty()) {
+                return;
+            }
+            Instant ahora = Instant.now();
+            List<AsientoEstadoDTO> cambios = vigilante.grilla.diferencias(vigilante.grilla, vigilante.evaluadaEn, ahora);
+            vigilante.evaluadaEn = ahora;
+            if (cambios.isEmpty()) {
+                return;
+            }
+            try {
+                String json = objectMapper.writeValueAsString(cambios);
+                log.debug("⏱️ [Stream-Asientos] Bloqueos vencidos eventoIdLocal={} asientos={} suscriptores={}",
+                    eventoIdLocal, cambios.size(), vigilante.suscriptores.size());
+                enviar(eventoIdLocal, vigilante, SseEmitter.event().name("delta").data(json, MediaType.APPLICATION_JSON));
+            } catch (JsonProcessingException e) {
+                log.warn("⚠️ [Stream-Asientos] Error serializando vencidos eventoIdLocal={}: {}", eventoIdLocal, e.getMessage());
+            }
+        }
+    }
+
+    public int cantidadSuscriptores(Long eventoIdLocal) {
+        Vigilante vigilante = vigilantes.get(eventoIdLocal);
+        return vigilante != null ? vigilante.suscriptores.size() : 0;
+    }
+
+    private void difundir(Long eventoIdLocal, Vigilante vigilante, GrillaAsientos nueva) throws JsonProcessingException {
+        Instant ahora = Instant.now();
+        GrillaAsientos anterior = vigilante.grilla;
+
+        String nombre;
+        List<AsientoEstadoDTO> asientos;
+        if (anterior.getFilas() != nueva.getFilas() || anterior.getColumnas() != nueva.getColumnas()) {
+            nombre = "snapshot";
+            asientos = nueva.materializar(ahora);
+        } else {
+            nombre = "delta";
+            asientos = nueva.diferencias(anterior, vigilante.evaluadaEn, ahora);
+        }
+        vigilante.grilla = nueva;
+        vigilante.evaluadaEn = ahora;
+
+        if (asientos.isEmpty()) {
+            if (System.currentTimeMillis() - vigilante.ultimoEnvioMs >= heartbeatMs) {
+                enviar(eventoIdLocal, vigilante, SseEmitter.event().comment("ping"));
+            }
+            return;
+        }
+
+        // Se serializa UNA vez y se reenvía el mismo texto a todos los suscriptores
+        String json = objectMapper.writeValueAsString(asientos);
+        log.debug("📡 [Stream-Asientos] {} eventoIdLocal={} asientos={} suscriptores={}",
+            nombre, eventoIdLocal, asientos.size(), vigilante.suscriptores.size());
+        enviar(eventoIdLocal, vigilante, SseEmitter.event().name(nombre).data(json, MediaType.APPLICATION_JSON));
+    }
+
+    private void enviar(Long eventoIdLocal, Vigilante vigilante, SseEmitter.SseEventBuilder evento) {
+        vigilante.ultimoEnvioMs = System.currentTimeMillis();
+        // build() consume el builder: se arma una sola vez y se reutiliza para todos
+        Set<ResponseBodyEmitter.DataWithMediaType> datos = evento.build();
+        for (SseEmitter emitter : vigilante.suscriptores) {
+            try {
+                emitter.send(datos);
+            } catch (IOException | IllegalStateException e) {
+                // Cliente desconectado: se descarta sin afectar al resto
+                quitar(eventoIdLocal, emitter);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private void quitar(Long eventoIdLocal, SseEmitter emitter) {
+        Vigilante vigilante = vigilantes.get(eventoIdLocal);
+        if (vigilante != null && vigilante.suscriptores.remove(emitter)) {
+            log.info(
+                "📡 [Stream-Asientos] Suscriptor desconectado eventoIdLocal={} (suscriptores={})",
+                eventoIdLocal, vigilante.suscriptores.size()
+            );
+        }
+    }
+
+    @PreDestroy
+    void cerrar() {
+        refrescos.shutdownNow();
+    }
+
+    /**
+     * Estado compartido por todos los suscriptores de un evento.
+     * grilla/evaluadaEn/descartado/refrescando se leen y modifican con el monitor del vigilante tomado,
+     * así un suscriptor nuevo nunca recibe un snapshot distinto al que usa el próximo delta.
+     */
+    private static final class Vigilante {
+
+        private final List<SseEmitter> suscriptores = new CopyOnWriteArrayList<>();
+        private GrillaAsientos grilla;
+        private Instant evaluadaEn;
+        private long ultimoEnvioMs = System.currentTimeMillis();
+        private boolean descartado;
+        /** Hay un refresco encolado o en curso (uno por evento a la vez). */
+        private boolean refrescando;
+
+        private Vigilante(GrillaAsientos grilla, Instant evaluadaEn) {
+            this.grilla = grilla;
+            this.evaluadaEn = evaluadaEn;
+        }
+    }
+}
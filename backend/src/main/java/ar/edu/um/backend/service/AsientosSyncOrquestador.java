@@ -0,0 +1,124 @@
+package ar.edu.um.backend.service;
+import ar.edu.um.backend.domain.Evento;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reparte la sincronización de asientos de varios eventos sobre un pool acotado.
+ *
+ * - Cada evento corre en su propio hilo del pool y en su PROPIA transacción corta
+ *   (la de AsientoSyncService), no dentro de la transacción del sync de eventos.
+ * - El paralelismo es configurable (app.sync-asientos.paralelismo); conviene que sea
+ *   menor al tamaño del pool de conexiones (Hikari) para no dejar sin conexiones a los requests.
+ * - Si un evento falla (proxy caído, datos inválidos) se registra en el reporte y
+ *   el resto sigue normalmente.
+ */
+@Service
+public class AsientosSyncOrquestador {
+
+    private static final Logger log = LoggerFactory.getLogger(AsientosSyncOrquestador.class);
+
+    private final AsientoSyncService asientoSyncService;
+    private final int paralelismo;
+    private final ExecutorService executor;
+
+    public AsientosSyncOrquestador(
+        AsientoSyncService asientoSyncService,
+        @Value("${app.sync-asientos.paralelismo:4}") int paralelismo
+    ) {
+        this.asientoSyncService = asientoSyncService;
+        this.paralelismo = Math.max(1, paralelismo);
+        this.executor = Executors.newFixedThreadPool(this.paralelismo, new CustomizableThreadFactory("sync-asientos-"));
+    }
+
+    /**
+     * Sincroniza los asientos de todos los eventos y espera a que terminen.
+     * Los eventos deben estar persistidos (con id local y externalId).
+     */
+    public Reporte sincronizar(List<Evento> eventos) {
+        long inicio = System.nanoTime();
+
+        List<CompletableFuture<ResultadoEvento>> tareas = new ArrayList<>(eventos.size());
+        for (Evento evento : eventos) {
+            tareas.add(CompletableFuture.supplyAsync(() -> sincronizarUno(evento), executor));
+        }
+
+        List<ResultadoEvento> resultados = new ArrayList<>(tareas.size());
+        for (CompletableFuture<ResultadoEvento> tarea : tareas) {
+            resultados.add(tarea.join());
+        }
+
+        Reporte reporte = new Reporte(resultados, (System.nanoTime() - inicio) / 1_000_000);
+
+        log.info(
+            "🧵 [Sync-Asientos] {} evento(s) sincronizados en {} ms (paralelismo={}) → ok={}, fallidos={}",
+            resultados.size(), reporte.duracionMs(), paralelismo, reporte.exitosos(), reporte.fallidos()
+        );
+        for (ResultadoEvento fallido : reporte.fallidosDetalle()) {
+            log.warn(
+                "⚠️ [Sync-Asientos] Falló evento idLocal={} externalId={} tras {} ms: {}",
+                fallido.eventoIdLocal(), fallido.externalId(), fallido.duracionMs(), fallido.error()
+            );
+        }
+        return reporte;
+    }
+
+    private ResultadoEvento sincronizarUno(Evento evento) {
+        long inicio = System.nanoTime();
+        String error = null;
+        try {
+            asientoSyncService.sincronizarAsientosDeEvento(evento, evento.getExternalId());
+        } catch (Exception e) {
+            // No se propaga: un evento con problemas no debe cortar al resto
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+        long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+        log.debug("[Sync-Asientos] Evento idLocal={} sincronizado en {} ms", evento.getId(), duracionMs);
+        return new ResultadoEvento(evento.getId(), evento.getExternalId(), duracionMs, error);
+    }
+
+    @PreDestroy
+    void cerrar() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Resultado de sincronizar los asientos de un evento. error == null si terminó bien.
+     */
+    public record ResultadoEvento(Long eventoIdLocal, Long externalId, long duracionMs, String error) {
+        public boolean exitoso() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Resumen de una corrida completa: tiempos por evento y fallos.
+     */
+    public record Reporte(List<ResultadoEvento> resultados, long duracionMs) {
+
+        public static Reporte vacio() {
+            return new Reporte(List.of(), 0);
+        }
+
+        public long exitosos() {
+            return resultados.stream().filter(ResultadoEvento::exitoso).count();
+        }
+
+        public long fallidos() {
+            return resultados.size() - exitosos();
+        }
+
+        public List<ResultadoEvento> fallidosDetalle() {
+            return resultados.stream().filter(r -> !r.exitoso()).toList();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ar.edu.um.backend.service;
+import ar.edu.um.backend.service.dto.AsientoUbicacionDTO;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Exclusión mutua LOCAL (del backend) sobre los asientos de una venta.
+ *
+ * Sin esto, dos ventas concurrentes con asientos en común pasan las dos el chequeo contra Redis
+ * y las dos llegan a la cátedra; la perdedora recién falla allá. Con el cerrojo, la segunda
+ * espera (hasta app.ventas.cerrojo.espera-ms) a que termine la primera y, si se vendió, falla
+ * en la validación local sin llamar a la cátedra.
+ *
+ * - Los asientos se toman SIEMPRE en orden canónico (fila, columna) → no hay deadlocks
+ *   entre ventas que se pisan parcialmente.
+ * - Si no se consiguen todos a tiempo se lanza CannotAcquireLockException (409 vía ExceptionTranslator).
+ *
+ * Implementaciones (app.ventas.cerrojo.modo):
+ * - memoria: locks en franjas dentro del proceso (una sola instancia del backend).
+ * - redis:   claves SET NX con TTL (varias instancias del backend).
+ */
+public interface CerrojoAsientos {
+
+    /** Nombre base de las métricas comunes a las implementaciones (tag tipo=memoria|redis). */
+    String METRICA_ESPERA = "venta.cerrojo.espera";
+    String METRICA_CONTENCION = "venta.cerrojo.contencion";
+    String METRICA_RECHAZOS = "venta.cerrojo.rechazos";
+
+    /**
+     * Toma todos los asientos pedidos del evento. Bloquea hasta conseguirlos o agotar la espera.
+     *
+     * @return permiso a liberar (try-with-resources, o al terminar la venta asíncrona); puede liberarse
+     *         desde un hilo distinto al que lo tomó.
+     * @throws org.springframework.dao.CannotAcquireLockException si otra venta los retiene más que la espera.
+     */
+    Permiso adquirir(Long eventoIdLocal, Collection<AsientoUbicacionDTO> ubicaciones);
+
+    /**
+     * Asientos de la venta sin repetidos ni nulos, ordenados por (fila, columna).
+     */
+    static List<AsientoUbicacionDTO> ordenCanonico(Collection<AsientoUbicacionDTO> ubicaciones) {
+        return ubicaciones
+            .stream()
+            .filter(Objects::nonNull)
+            .filter(u -> u.getFila() != null && u.getColumna() != null)
+            .distinct()
+            .sorted(Comparator.comparing(AsientoUbicacionDTO::getFila).thenComparing(AsientoUbicacionDTO::getColumna))
+            .toList();
+    }
+
+    /**
+     * Asientos retenidos por una venta. close() los libera (idempotente).
+     */
+    interface Permiso extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
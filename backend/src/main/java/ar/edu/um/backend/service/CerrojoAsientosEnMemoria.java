@@ -0,0 +1,133 @@
+package ar.edu.um.backend.service;
+import ar.edu.um.backend.service.dto.AsientoUbicacionDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.stereotype.Service;
+
+/**
+ * {@link CerrojoAsientos} dentro del proceso: un arreglo fijo de semáforos de un permiso ("franjas")
+ * indexado por hash de (eventoId, fila, columna).
+ *
+ * - Memoria acotada (app.ventas.cerrojo.franjas semáforos), sin importar cuántos asientos existan.
+ * - Dos asientos pueden caer en la misma franja: se toman las franjas distintas en orden
+ *   ascendente de índice, lo que mantiene el orden canónico y evita deadlocks.
+ * - Los semáforos son justos (fair): las ventas en conflicto se atienden en orden de llegada.
+ * - A diferencia de un ReentrantLock no tienen dueño: la venta los toma en el hilo del request
+ *   y los libera el hilo que recibe la respuesta de la cátedra.
+ */
+@Service
+@ConditionalOnProperty(name = "app.ventas.cerrojo.modo", havingValue = "memoria", matchIfMissing = true)
+public class CerrojoAsientosEnMemoria implements CerrojoAsientos {
+
+    private static final Logger log = LoggerFactory.getLogger(CerrojoAsientosEnMemoria.class);
+
+    private final Semaphore[] franjas;
+    private final long esperaMs;
+    private final Timer timerEspera;
+    private final Counter contencion;
+    private final Counter rechazos;
+
+    public CerrojoAsientosEnMemoria(
+        MeterRegistry meterRegistry,
+        @Value("${app.ventas.cerrojo.franjas:1024}") int cantidadFranjas,
+        @Value("${app.ventas.cerrojo.espera-ms:2000}") long esperaMs
+    ) {
+        this.franjas = new Semaphore[Math.max(1, cantidadFranjas)];
+        for (int i = 0; i < franjas.length; i++) {
+            franjas[i] = new Semaphore(1, true);
+        }
+        this.esperaMs = esperaMs;
+        this.timerEspera = Timer.builder(METRICA_ESPERA)
+            .description("Tiempo esperando los asientos de una venta")
+            .tag("tipo", "memoria")
+            .register(meterRegistry);
+        this.contencion = Counter.builder(METRICA_CONTENCION)
+            .description("Ventas que encontraron algún asiento tomado por otra venta")
+            .tag("tipo", "memoria")
+            .register(meterRegistry);
+        this.rechazos = Counter.builder(METRICA_RECHAZOS)
+            .description("Ventas rechazadas por no conseguir sus asientos a tiempo")
+            .tag("tipo", "memoria")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Permiso adquirir(Long eventoIdLocal, Collection<AsientoUbicacionDTO> ubicaciones) {
+        // Franjas distintas en orden ascendente (equivale al orden canónico, sin repetir locks)
+        TreeSet<Integer> indices = new TreeSet<>();
+        for (AsientoUbicacionDTO ubicacion : CerrojoAsientos.ordenCanonico(ubicaciones)) {
+            indices.add(franja(eventoIdLocal, ubicacion));
+        }
+
+        long inicio = System.nanoTime();
+        long limite = inicio + TimeUnit.MILLISECONDS.toNanos(esperaMs);
+        List<Semaphore> tomados = new ArrayList<>(indices.size());
+        boolean huboContencion = false;
+
+        try {
+            for (int indice : indices) {
+                Semaphore franja = franjas[indice];
+                if (!franja.tryAcquire()) {
+                    huboContencion = true;
+                    if (!franja.tryAcquire(Math.max(0, limite - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                        liberar(tomados);
+                        rechazos.increment();
+                        log.warn(
+                            "⛔ [Sync-Venta] Asientos del evento idLocal={} retenidos por otra venta más de {} ms",
+                            eventoIdLocal, esperaMs
+                        );
+                        throw new CannotAcquireLockException("Los asientos están siendo vendidos en otra operación. Reintentá.");
+                    }
+                }
+                tomados.add(franja);
+            }
+        } catch (InterruptedException e) {
+            liberar(tomados);
+            Thread.currentThread().interrupt();
+            throw new CannotAcquireLockException("Interrumpido esperando los asientos.", e);
+        } finally {
+            timerEspera.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            if (huboContencion) {
+                contencion.increment();
+            }
+        }
+
+        return new Permiso() {
+            // Puede cerrarse desde otro hilo (el que completa la venta)
+            private final AtomicBoolean liberado = new AtomicBoolean();
+
+            @Override
+            public void close() {
+                if (liberado.compareAndSet(false, true)) {
+                    liberar(tomados);
+                }
+            }
+        };
+    }
+
+    int franja(Long eventoIdLocal, AsientoUbicacionDTO ubicacion) {
+        return Math.floorMod(Objects.hash(eventoIdLocal, ubicacion.getFila(), ubicacion.getColumna()), franjas.length);
+    }
+
+    // Orden inverso al de toma
+    private static void liberar(List<Semaphore> tomados) {
+        for (int i = tomados.size() - 1; i >= 0; i--) {
+            tomados.get(i).release();
+        }
+        tomados.clear();
+    }
+}
@@ -0,0 +1,146 @@
+package ar.edu.um.backend.service;
+import ar.edu.um.backend.service.dto.AsientoUbicacionDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+/**
+ * {@link CerrojoAsientos} compartido entre instancias del backend, sobre Redis.
+ *
+ * - Una clave por asiento: venta:cerrojo:{eventoId}:{fila}-{columna} = token de la venta,
+ *   creada con SET NX PX (app.ventas.cerrojo.ttl-ms).
+ * - El TTL cubre el caso de una instancia que muere con asientos tomados; debe ser mayor
+ *   al tiempo máximo de una venta (app.handlers.timeout-ms).
+ * - Se libera solo si la clave sigue siendo nuestra (script compare-and-delete).
+ * - Si un asiento está tomado se reintenta cada REINTENTO_MS hasta agotar la espera.
+ */
+@Service
+@ConditionalOnProperty(name = "app.ventas.cerrojo.modo", havingValue = "redis")
+public class CerrojoAsientosRedis implements CerrojoAsientos {
+
+    private static final Logger log = LoggerFactory.getLogger(CerrojoAsientosRedis.class);
+
+    private static final String PREFIJO = "venta:cerrojo:";
+    private static final long REINTENTO_MS = 25;
+
+    private static final RedisScript<Long> LIBERAR = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+        Long.class
+    );
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+    private final long esperaMs;
+    private final Timer timerEspera;
+    private final Counter contencion;
+    private final Counter rechazos;
+
+    public CerrojoAsientosRedis(
+        StringRedisTemplate redisTemplate,
+        MeterRegistry meterRegistry,
+        @Value("${app.ventas.cerrojo.ttl-ms:90000}") long ttlMs,
+        @Value("${app.ventas.cerrojo.espera-ms:2000}") long esperaMs
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = Duration.ofMillis(ttlMs);
+        this.esperaMs = esperaMs;
+        this.timerEspera = Timer.builder(METRICA_ESPERA)
+            .description("Tiempo esperando los asientos de una venta")
+            .tag("tipo", "redis")
+            .register(meterRegistry);
+        this.contencion = Counter.builder(METRICA_CONTENCION)
+            .description("Ventas que encontraron algún asiento tomado por otra venta")
+            .tag("tipo", "redis")
+            .register(meterRegistry);
+        this.rechazos = Counter.builder(METRICA_RECHAZOS)
+            .description("Ventas rechazadas por no conseguir sus asientos a tiempo")
+            .tag("tipo", "redis")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Permiso adquirir(Long eventoIdLocal, Collection<AsientoUbicacionDTO> ubicaciones) {
+        String token = UUID.randomUUID().toString();
+        long inicio = System.nanoTime();
+        long limite = inicio + TimeUnit.MILLISECONDS.toNanos(esperaMs);
+        List<String> tomadas = new ArrayList<>();
+        boolean huboContencion = false;
+
+        try {
+            for (AsientoUbicacionDTO ubicacion : CerrojoAsientos.ordenCanonico(ubicaciones)) {
+                String clave = clave(eventoIdLocal, ubicacion);
+                while (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(clave, token, ttl))) {
+                    huboContencion = true;
+                    if (System.nanoTime() >= limite) {
+                        liberar(tomadas, token);
+                        rechazos.increment();
+                        log.warn(
+                            "⛔ [Sync-Venta] Asiento {} retenido por otra venta más de {} ms",
+                            clave, esperaMs
+                        );
+                        throw new CannotAcquireLockException("Los asientos están siendo vendidos en otra operación. Reintentá.");
+                    }
+                    Thread.sleep(REINTENTO_MS);
+                }
+                tomadas.add(clave);
+            }
+        } catch (InterruptedException e) {
+            liberar(tomadas, token);
+            Thread.currentThread().interrupt();
+            throw new CannotAcquireLockException("Interrumpido esperando los asientos.", e);
+        } catch (RuntimeException e) {
+            // Redis caído a mitad de camino: no dejar claves tomadas hasta el TTL
+            liberar(tomadas, token);
+            throw e;
+        } finally {
+            timerEspera.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            if (huboContencion) {
+                contencion.increment();
+            }
+        }
+
+        return new Permiso() {
+            // Puede cerrarse desde otro hilo (el que completa la venta)
+            private final AtomicBoolean liberado = new AtomicBoolean();
+
+            @Override
+            public void close() {
+                if (liberado.compareAndSet(false, true)) {
+                    liberar(tomadas, token);
+                }
+            }
+        };
+    }
+
+    private static String clave(Long eventoIdLocal, AsientoUbicacionDTO ubicacion) {
+        return PREFIJO + eventoIdLocal + ":" + ubicacion.getFila() + "-" + ubicacion.getColumna();
+    }
+
+    private void liberar(List<String> claves, String token) {
+        for (int i = claves.size() - 1; i >= 0; i--) {
+            try {
+                redisTemplate.execute(LIBERAR, List.of(claves.get(i)), token);
+            } catch (RuntimeException e) {
+                // Queda hasta el TTL; no debe tapar el resultado de la venta
+                log.warn("⚠️ [Sync-Venta] No se pudo liberar {}: {}", claves.get(i), e.getMessage());
+            }
+        }
+        claves.clear();
+    }
+}
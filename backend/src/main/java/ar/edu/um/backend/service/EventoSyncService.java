@@ -2,44 +2,63 @@ package ar.edu.um.backend.service;
 import ar.edu.um.backend.domain.Evento;
 import ar.edu.um.backend.repository.EventoRepository;
 import ar.edu.um.backend.service.dto.ProxyEventoDetalleDTO;
-import jakarta.transaction.Transactional;
+import ar.edu.um.backend.service.dto.ProxyIntegranteEventoDTO;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.*;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 /**
  * Servicio encargado de sincronizar la base de datos local de eventos
  * con la información real proveniente de la cátedra, accesible a través del proxy.
  *
  * Flujo:
  *  1) Obtiene eventos tipados desde ProxyService (Payload 4 / eventos completos).
- *  2) Crea o actualiza eventos locales según externalId.
- *  3) Sincroniza asientos por evento.
- *  4) Marca como inactivos los eventos que ya no existen en la cátedra.
+ *  2) Carga en UNA consulta los eventos locales de la cátedra (indexados por externalId).
+ *  3) Calcula en memoria altas, modificaciones y bajas (inactivos). Los eventos cuya huella
+ *     de contenido no cambió desde el último sync se saltean (ni el evento ni sus asientos).
+ *  4) Persiste todo en un único flush con batching JDBC (transacción corta, solo eventos).
+ *  5) Sincroniza asientos por evento en paralelo, cada uno en su propia transacción.
+ *
+ * Costo en DB: constante en cantidad de round-trips (1 SELECT + INSERT/UPDATE en batches),
+ * sin importar cuántos eventos tenga el catálogo.
  */
 @Service
-@Transactional
 public class EventoSyncService {
     private static final Logger log = LoggerFactory.getLogger(EventoSyncService.class);
     private final ProxyService proxyService;
     private final EventoRepository eventoRepository;
-    private final AsientoSyncService asientoSyncService;
+    private final AsientosSyncOrquestador asientosSyncOrquestador;
+    private final TransactionTemplate transactionTemplate;
 
     public EventoSyncService(
         ProxyService proxyService,
         EventoRepository eventoRepository,
-        AsientoSyncService asientoSyncService
+        AsientosSyncOrquestador asientosSyncOrquestador,
+        TransactionTemplate transactionTemplate
     ) {
         this.proxyService = proxyService;
         this.eventoRepository = eventoRepository;
-        this.asientoSyncService = asientoSyncService;
+        this.asientosSyncOrquestador = asientosSyncOrquestador;
+        this.transactionTemplate = transactionTemplate;
     }
 
-    public void sincronizarEventosDesdeProxy() {
+    /**
+     * Sincroniza eventos y asientos. Devuelve el reporte del sync de asientos
+     * (tiempos por evento y fallos).
+     */
+    public AsientosSyncOrquestador.Reporte sincronizarEventosDesdeProxy() {
 
         log.info("🔄 [Sync-Eventos] Iniciando sincronización de eventos contra proxy...");
 
@@ -48,17 +67,106 @@ public class EventoSyncService {
 
         if (remotos == null || remotos.isEmpty()) {
             log.warn("⚠️ [Sync-Eventos] No se recibieron eventos desde el proxy.");
-            return;
+            return AsientosSyncOrquestador.Reporte.vacio();
         }
 
         log.info("📥 [Sync-Eventos] Eventos recibidos desde proxy: {} evento(s).", remotos.size());
 
+        // 2) a 5) Upsert de eventos en UNA transacción corta (sin llamadas remotas adentro)
+        List<Evento> guardados = transactionTemplate.execute(status -> guardarEventos(remotos));
+
+        // 6) Asientos: cada evento en paralelo y en su propia transacción (ver AsientosSyncOrquestador)
+        AsientosSyncOrquestador.Reporte reporte = asientosSyncOrquestador.sincronizar(guardados);
+
+        // 7) Si falló el sync de asientos de un evento, se borra su huella para reintentarlo en el próximo sync
+        limpiarHuellasFallidas(reporte);
+
+        log.info(
+            "✅ [Sync-Eventos] Sincronización de eventos finalizada (asientos ok={}, fallidos={}).",
+            reporte.exitosos(), reporte.fallidos()
+        );
+        return reporte;
+    }
+
+    /**
+     * Sincroniza UN evento de la cátedra (notificación dirigida desde Kafka):
+     * una lectura del evento vía proxy + un sync de sus asientos.
+     *
+     * @return false si el proxy no devolvió el evento; quien llama debe caer al sync completo.
+     */
+    public boolean sincronizarEvento(Long externalId) {
+        log.info("🔄 [Sync-Eventos] Sincronización dirigida externalId={}", externalId);
+
+        ProxyEventoDetalleDTO remoto = proxyService.obtenerEventoPorId(externalId);
+        if (remoto == null || remoto.getId() == null) {
+            log.warn("⚠️ [Sync-Eventos] El proxy no devolvió el evento externalId={}.", externalId);
+            return false;
+        }
+        if (!esValido(remoto)) {
+            return true;
+        }
+
+        Evento guardado = transactionTemplate.execute(status -> guardarEvento(remoto));
+        if (guardado == null) {
+            log.info("✅ [Sync-Eventos] Evento externalId={} sin cambios (misma huella).", externalId);
+            return true;
+        }
+
+        limpiarHuellasFallidas(asientosSyncOrquestador.sincronizar(List.of(guardado)));
+        return true;
+    }
+
+    /**
+     * Upsert de un evento puntual. Devuelve null si no cambió desde el último sync.
+     */
+    private Evento guardarEvento(ProxyEventoDetalleDTO remoto) {
+        Evento local = eventoRepository.findByExternalId(remoto.getId()).orElse(null);
+        String huella = calcularHuella(remoto);
+
+        if (local != null && Boolean.TRUE.equals(local.getActivo()) && huella.equals(local.getHuellaContenido())) {
+            return null;
+        }
+        if (local == null) {
+            log.info("🆕 [Sync-Eventos] Creando evento nuevo (externalId={}) → {}", remoto.getId(), remoto.getTitulo());
+            local = new Evento();
+            local.setExternalId(remoto.getId());
+        } else {
+            log.info("♻️ [Sync-Eventos] Actualizando evento (idLocal={}, externalId={}) → {}", local.getId(), remoto.getId(), remoto.getTitulo());
+        }
+
+        mapearRemoto(local, remoto, ZoneOffset.UTC);
+        local.setHuellaContenido(huella);
+        return eventoRepository.save(local);
+    }
+
+    private void limpiarHuellasFallidas(AsientosSyncOrquestador.Reporte reporte) {
+        List<Long> fallidos = reporte.fallidosDetalle().stream().map(AsientosSyncOrquestador.ResultadoEvento::eventoIdLocal).toList();
+        if (!fallidos.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> eventoRepository.limpiarHuellaContenido(fallidos));
+        }
+    }
+
+    private List<Evento> guardarEventos(List<ProxyEventoDetalleDTO> remotos) {
+
+        // 2) UNA sola consulta: todos los eventos locales que vienen de la cátedra, indexados por externalId.
+        //    Sirve tanto para el upsert como para detectar los que hay que desactivar.
+        Map<Long, Evento> localesPorExternalId = new HashMap<>();
+        for (Evento evento : eventoRepository.findByExternalIdIsNotNull()) {
+            localesPorExternalId.put(evento.getExternalId(), evento);
+        }
+
         Set<Long> externalIdsVigentes = new HashSet<>();
+        Set<Long> encolados = new HashSet<>();
+        List<Evento> aGuardar = new ArrayList<>(remotos.size());
+        int creados = 0;
+        int actualizados = 0;
+        int sinCambios = 0;
+        int omitidos = 0;
 
         // UTC porque la cátedra manda timestamps con "Z"
         ZoneId zone = ZoneOffset.UTC;
 
-        // 2) Procesar evento por evento
+        // 3) Calcular altas / modificaciones en memoria (sin ir a la DB por evento)
         for (ProxyEventoDetalleDTO remoto : remotos) {
 
             if (remoto == null || remoto.getId() == null) {
@@ -68,13 +176,32 @@ public class EventoSyncService {
 
             externalIdsVigentes.add(remoto.getId());
 
-            Evento local = eventoRepository
-                .findByExternalId(remoto.getId())
-                .orElseGet(Evento::new);
+            if (!esValido(remoto)) {
+                omitidos++;
+                continue;
+            }
+
+            Evento local = localesPorExternalId.get(remoto.getId());
+            String huella = calcularHuella(remoto);
 
-            if (local.getId() == null) {
+            // Mismo contenido que el último sync (y sigue activo): no se toca el evento ni sus asientos
+            if (local != null && Boolean.TRUE.equals(local.getActivo()) && huella.equals(local.getHuellaContenido())) {
+                sinCambios++;
+                continue;
+            }
+
+            boolean encolado = !encolados.add(remoto.getId());
+
+            if (encolado) {
+                // La cátedra repitió el externalId: el último gana, sin insertarlo dos veces
+                log.warn("⚠️ [Sync-Eventos] externalId={} repetido en la respuesta del proxy.", remoto.getId());
+            } else if (local == null) {
                 log.info("🆕 [Sync-Eventos] Creando evento nuevo (externalId={}) → {}", remoto.getId(), remoto.getTitulo());
+                local = new Evento();
                 local.setExternalId(remoto.getId());
+                localesPorExternalId.put(remoto.getId(), local);
+                aGuardar.add(local);
+                creados++;
             } else {
                 log.info(
                     "♻️ [Sync-Eventos] Actualizando evento (idLocal={}, externalId={}) → {}",
@@ -82,88 +209,153 @@ public class EventoSyncService {
                     remoto.getId(),
                     remoto.getTitulo()
                 );
+                aGuardar.add(local);
+                actualizados++;
             }
 
-            // Siempre activo si viene del proxy
-            local.setActivo(true);
-
-            // ---------------- MAPEOS ----------------
+            mapearRemoto(local, remoto, zone);
+            local.setHuellaContenido(huella);
+        }
 
-            // Fecha/Hora (Instant -> LocalDate + LocalTime)
-            Instant fechaInst = remoto.getFecha();
-            if (fechaInst == null) {
-                LocalDate hoy = LocalDate.now(zone);
-                local.setFecha(hoy);
-                local.setHora(LocalTime.MIDNIGHT);
-                log.warn("⚠️ [Sync-Eventos] Evento externalId={} sin fecha(Instant). Se asigna fecha actual y 00:00 UTC.", remoto.getId());
-            } else {
-                LocalDateTime ldt = LocalDateTime.ofInstant(fechaInst, zone);
-                local.setFecha(ldt.toLocalDate());
-                local.setHora(ldt.toLocalTime());
-            }
+        // 4) Marcar eventos inactivos (ya están cargados: solo se modifican en memoria)
+        int desactivados = 0;
+        for (Evento evento : localesPorExternalId.values()) {
+            if (!externalIdsVigentes.contains(evento.getExternalId())
+                && Boolean.TRUE.equals(evento.getActivo())) {
 
-            // Asientos (grilla)
-            Integer filas = remoto.getFilaAsientos();
-            Integer columnas = remoto.getColumnaAsientos();
+                evento.setActivo(false);
+                desactivados++;
 
-            if (filas == null || columnas == null || filas <= 0 || columnas <= 0) {
-                log.error(
-                    "❌ [Sync-Eventos] Evento externalId={} con configuración inválida de asientos (filas={}, columnas={}). Se omite.",
-                    remoto.getId(), filas, columnas
+                log.info(
+                    "🗑️ [Sync-Eventos] Evento externalId={} marcado como inactivo (idLocal={})",
+                    evento.getExternalId(),
+                    evento.getId()
                 );
-                continue;
             }
+        }
 
-            local.setFilaAsientos(filas);
-            local.setColumnaAsientos(columnas);
-            local.setCantidadAsientosTotales(filas * columnas);
-
-            // Precio
-            BigDecimal precio = remoto.getPrecioEntrada();
-            if (precio == null) {
-                precio = BigDecimal.ZERO;
-                log.warn("⚠️ [Sync-Eventos] Evento externalId={} sin precioEntrada. Se asigna 0.", remoto.getId());
-            } else if (precio.compareTo(BigDecimal.ZERO) < 0) {
-                log.error("❌ [Sync-Eventos] Evento externalId={} con precioEntrada negativo ({}). Se omite.", remoto.getId(), precio);
-                continue;
+        // 5) Un solo flush: Hibernate agrupa INSERT/UPDATE en batches (hibernate.jdbc.batch_size)
+        List<Evento> guardados = eventoRepository.saveAll(aGuardar);
+        eventoRepository.flush();
+
+        log.info(
+            "💾 [DB] Eventos sincronizados → creados={}, actualizados={}, sinCambios={}, desactivados={}, omitidos={}",
+            creados, actualizados, sinCambios, desactivados, omitidos
+        );
+        return guardados;
+    }
+
+    /**
+     * Huella del evento remoto: SHA-256 (hex) de sus campos normalizados, en orden fijo.
+     * Dos payloads con el mismo contenido dan la misma huella aunque cambie el formato del JSON
+     * (orden de claves, espacios, escala del precio).
+     */
+    static String calcularHuella(ProxyEventoDetalleDTO remoto) {
+        StringBuilder sb = new StringBuilder(256);
+        campo(sb, remoto.getId());
+        campo(sb, remoto.getTitulo());
+        campo(sb, remoto.getResumen());
+        campo(sb, remoto.getDescripcion());
+        campo(sb, remoto.getFecha());
+        campo(sb, remoto.getDireccion());
+        campo(sb, remoto.getImagen());
+        campo(sb, remoto.getFilaAsientos());
+        campo(sb, remoto.getColumnaAsientos());
+        campo(sb, remoto.getPrecioEntrada() != null ? remoto.getPrecioEntrada().stripTrailingZeros().toPlainString() : null);
+        if (remoto.getEventoTipo() != null) {
+            campo(sb, remoto.getEventoTipo().getNombre());
+            campo(sb, remoto.getEventoTipo().getDescripcion());
+        } else {
+            campo(sb, null);
+        }
+        if (remoto.getIntegrantes() != null) {
+            campo(sb, remoto.getIntegrantes().size());
+            for (ProxyIntegranteEventoDTO integrante : remoto.getIntegrantes()) {
+                campo(sb, integrante != null ? integrante.getNombre() : null);
+                campo(sb, integrante != null ? integrante.getApellido() : null);
+                campo(sb, integrante != null ? integrante.getIdentificacion() : null);
             }
-            local.setPrecioEntrada(precio);
+        }
+
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
 
-            // Datos generales
-            local.setTitulo(remoto.getTitulo());
-            local.setDescripcion(remoto.getDescripcion());
+    // Cada campo con su largo como prefijo: evita que "ab"+"c" y "a"+"bc" den lo mismo
+    private static void campo(StringBuilder sb, Object valor) {
+        if (valor == null) {
+            sb.append("-1:");
+            return;
+        }
+        String texto = valor.toString();
+        sb.append(texto.length()).append(':').append(texto);
+    }
 
-            Evento guardado = eventoRepository.save(local);
+    /**
+     * Valida los datos mínimos del evento remoto. Los inválidos se omiten (no se crean ni se tocan).
+     */
+    private boolean esValido(ProxyEventoDetalleDTO remoto) {
+        Integer filas = remoto.getFilaAsientos();
+        Integer columnas = remoto.getColumnaAsientos();
 
-            log.info(
-                "💾 [DB] Evento guardado → idLocal={}, externalId={}, titulo={}",
-                guardado.getId(),
-                guardado.getExternalId(),
-                guardado.getTitulo()
+        if (filas == null || columnas == null || filas <= 0 || columnas <= 0) {
+            log.error(
+                "❌ [Sync-Eventos] Evento externalId={} con configuración inválida de asientos (filas={}, columnas={}). Se omite.",
+                remoto.getId(), filas, columnas
             );
+            return false;
+        }
 
-            // 3) Sincronizar asientos del evento
-            asientoSyncService.sincronizarAsientosDeEvento(guardado, remoto.getId());
+        BigDecimal precio = remoto.getPrecioEntrada();
+        if (precio != null && precio.compareTo(BigDecimal.ZERO) < 0) {
+            log.error("❌ [Sync-Eventos] Evento externalId={} con precioEntrada negativo ({}). Se omite.", remoto.getId(), precio);
+            return false;
         }
+        return true;
+    }
 
-        // 4) Marcar eventos inactivos
-        List<Evento> eventosLocales = eventoRepository.findByExternalIdIsNotNull();
+    /**
+     * Copia los datos del evento remoto (ya validado) sobre el evento local.
+     */
+    private void mapearRemoto(Evento local, ProxyEventoDetalleDTO remoto, ZoneId zone) {
 
-        for (Evento evento : eventosLocales) {
-            if (!externalIdsVigentes.contains(evento.getExternalId())
-                && Boolean.TRUE.equals(evento.getActivo())) {
+        // Siempre activo si viene del proxy
+        local.setActivo(true);
 
-                evento.setActivo(false);
-                eventoRepository.save(evento);
+        // Fecha/Hora (Instant -> LocalDate + LocalTime)
+        Instant fechaInst = remoto.getFecha();
+        if (fechaInst == null) {
+            LocalDate hoy = LocalDate.now(zone);
+            local.setFecha(hoy);
+            local.setHora(LocalTime.MIDNIGHT);
+            log.warn("⚠️ [Sync-Eventos] Evento externalId={} sin fecha(Instant). Se asigna fecha actual y 00:00 UTC.", remoto.getId());
+        } else {
+            LocalDateTime ldt = LocalDateTime.ofInstant(fechaInst, zone);
+            local.setFecha(ldt.toLocalDate());
+            local.setHora(ldt.toLocalTime());
+        }
 
-                log.info(
-                    "🗑️ [Sync-Eventos] Evento externalId={} marcado como inactivo (idLocal={})",
-                    evento.getExternalId(),
-                    evento.getId()
-                );
-            }
+        // Asientos (grilla)
+        int filas = remoto.getFilaAsientos();
+        int columnas = remoto.getColumnaAsientos();
+        local.setFilaAsientos(filas);
+        local.setColumnaAsientos(columnas);
+        local.setCantidadAsientosTotales(filas * columnas);
+
+        // Precio
+        BigDecimal precio = remoto.getPrecioEntrada();
+        if (precio == null) {
+            precio = BigDecimal.ZERO;
+            log.warn("⚠️ [Sync-Eventos] Evento externalId={} sin precioEntrada. Se asigna 0.", remoto.getId());
         }
+        local.setPrecioEntrada(precio);
 
-        log.info("✅ [Sync-Eventos] Sincronización de eventos finalizada correctamente.");
+        // Datos generales
+        local.setTitulo(remoto.getTitulo());
+        local.setDescripcion(remoto.getDescripcion());
     }
 }
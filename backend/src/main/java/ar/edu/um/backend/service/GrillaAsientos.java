@@ -0,0 +1,367 @@
+package ar.edu.um.backend.service;
+
+import ar.edu.um.backend.service.dto.AsientoEstadoDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Grilla compacta (inmutable) con el estado de todos los asientos de un evento.
+ *
+ * Representación:
+ * - 2 bits por asiento dentro de un long[] (32 asientos por long).
+ * - Índice del asiento: (fila - 1) * columnas + (columna - 1).
+ * - Tabla dispersa (ordenada) de expiraciones, solo para los asientos que la tienen.
+ * - Tabla dispersa de estados "raros" (ni LIBRE, ni VENDIDO, ni BLOQUEADO).
+ *
+ * Se construye una vez por snapshot de Redis y se reutiliza entre requests.
+ * BLOQUEADO_VIGENTE / BLOQUEADO_EXPIRADO NO se guardan: se calculan al leer,
+ * comparando la expiración contra el "ahora" del llamador.
+ *
+ * Los DTOs solo se crean en el borde de serialización ({@link #materializar(Instant)}),
+ * o directamente no se crean ({@link #escribirJson(JsonGenerator, Instant)}).
+ *
+ * La {@link #version(Instant)} identifica el contenido visible (huella de los asientos no libres
+ * + bloqueos ya vencidos): sirve como ETag sin tener que serializar la grilla.
+ */
+public final class GrillaAsientos {
+
+    public static final int LIBRE = 0;
+    public static final int VENDIDO = 1;
+    public static final int BLOQUEADO = 2;
+    public static final int OTRO = 3;
+
+    private static final int BITS_POR_ASIENTO = 2;
+    private static final int ASIENTOS_POR_LONG = Long.SIZE / BITS_POR_ASIENTO;
+    private static final long MASCARA = (1L << BITS_POR_ASIENTO) - 1;
+
+    private final int filas;
+    private final int columnas;
+    private final long[] celdas;
+    private final int[] indicesConExpira;
+    private final Instant[] expiras;
+    private final Map<Integer, String> estadosOtros;
+    private final int noLibres;
+    /** Expiraciones de los asientos BLOQUEADO, ordenadas por fecha (para contar vencidos con búsqueda binaria). */
+    private final Instant[] vencimientosBloqueo;
+    private final long huella;
+
+    private GrillaAsientos(
+        int filas,
+        int columnas,
+        long[] celdas,
+        int[] indicesConExpira,
+        Instant[] expiras,
+        Map<Integer, String> estadosOtros,
+        int noLibres
+    ) {
+        this.filas = filas;
+        this.columnas = columnas;
+        this.celdas = celdas;
+        this.indicesConExpira = indicesConExpira;
+        this.expiras = expiras;
+        this.estadosOtros = estadosOtros;
+        this.noLibres = noLibres;
+
+        List<Instant> vencimientos = new ArrayList<>();
+        for (int k = 0; k < indicesConExpira.length; k++) {
+            if (codigo(indicesConExpira[k]) == BLOQUEADO) {
+                vencimientos.add(expiras[k]);
+            }
+        }
+        this.vencimientosBloqueo = vencimientos.toArray(new Instant[0]);
+        Arrays.sort(this.vencimientosBloqueo);
+        this.huella = calcularHuella();
+    }
+
+    public static Builder builder(int filas, int columnas) {
+        return new Builder(filas, columnas);
+    }
+
+    public int getFilas() {
+        return filas;
+    }
+
+    public int getColumnas() {
+        return columnas;
+    }
+
+    public int getTotal() {
+        return filas * columnas;
+    }
+
+    /** Cantidad de asientos que NO están libres (vendidos, bloqueados u otros). */
+    public int getNoLibres() {
+        return noLibres;
+    }
+
+    /**
+     * Versión del contenido visible a la fecha {@code ahora}.
+     *
+     * - Misma grilla (mismos asientos no libres, expiras y dimensiones) → misma huella,
+     *   aunque se haya reconstruido o el backend se haya reiniciado.
+     * - Con la misma grilla, la versión igual cambia cuando un bloqueo pasa a EXPIRADO.
+     */
+    public String version(Instant ahora) {
+        return Long.toHexString(huella) + "-" + bloqueosVencidos(ahora);
+    }
+
+    /** Cantidad de asientos BLOQUEADO cuya expiración ya pasó (expira &lt;= ahora). */
+    public int bloqueosVencidos(Instant ahora) {
+        int desde = 0;
+        int hasta = vencimientosBloqueo.length;
+        // Primer vencimiento posterior a "ahora"
+        while (desde < hasta) {
+            int medio = (desde + hasta) >>> 1;
+            if (vencimientosBloqueo[medio].isAfter(ahora)) {
+                hasta = medio;
+            } else {
+                desde = medio + 1;
+            }
+        }
+        return desde;
+    }
+
+    /** Expiraciones de bloqueos todavía vigentes a la fecha {@code ahora}, en orden cronológico. */
+    public List<Instant> vencimientosPendientes(Instant ahora) {
+        int vencidos = bloqueosVencidos(ahora);
+        return Arrays.asList(vencimientosBloqueo).subList(vencidos, vencimientosBloqueo.length);
+    }
+
+    public boolean enRango(int fila, int columna) {
+        return fila >= 1 && columna >= 1 && fila <= filas && columna <= columnas;
+    }
+
+    /** Código compacto del asiento: {@link #LIBRE}, {@link #VENDIDO}, {@link #BLOQUEADO} u {@link #OTRO}. */
+    public int codigo(int fila, int columna) {
+        return codigo(indice(fila, columna));
+    }
+
+    public Instant expira(int fila, int columna) {
+        return expira(indice(fila, columna));
+    }
+
+    /**
+     * Estado final (el mismo String que recibe el frontend) del asiento a la fecha {@code ahora}.
+     */
+    public String estado(int fila, int columna, Instant ahora) {
+        return estado(indice(fila, columna), ahora);
+    }
+
+    public AsientoEstadoDTO asiento(int fila, int columna, Instant ahora) {
+        int i = indice(fila, columna);
+        return new AsientoEstadoDTO(fila, columna, estado(i, ahora), expiraVisible(i));
+    }
+
+    /**
+     * Crea la lista completa de DTOs (filas x columnas) en orden fila/columna.
+     * Solo debe usarse en el borde de serialización.
+     */
+    public List<AsientoEstadoDTO> materializar(Instant ahora) {
+        List<AsientoEstadoDTO> resultado = new ArrayList<>(getTotal());
+        int i = 0;
+        for (int fila = 1; fila <= filas; fila++) {
+            for (int col = 1; col <= columnas; col++, i++) {
+                resultado.add(new AsientoEstadoDTO(fila, col, estado(i, ahora), expiraVisible(i)));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Escribe la grilla completa como array JSON de {fila, columna, estado, expira}
+     * directamente sobre el generador, sin crear un DTO por asiento.
+     */
+    public void escribirJson(JsonGenerator gen, Instant ahora) throws IOException {
+        gen.writeStartArray();
+        int i = 0;
+        for (int fila = 1; fila <= filas; fila++) {
+            for (int col = 1; col <= columnas; col++, i++) {
+                gen.writeStartObject();
+                gen.writeNumberField("fila", fila);
+                gen.writeNumberField("columna", col);
+                gen.writeStringField("estado", estado(i, ahora));
+                Instant expira = expiraVisible(i);
+                if (expira == null) {
+                    gen.writeNullField("expira");
+                } else {
+                    gen.writeObjectField("expira", expira);
+                }
+                gen.writeEndObject();
+            }
+        }
+        gen.writeEndArray();
+    }
+
+    /**
+     * Asientos cuyo estado visible cambió entre {@code anterior} (evaluada en {@code antes})
+     * y esta grilla (evaluada en {@code ahora}). Incluye los bloqueos que pasaron a EXPIRADO
+     * por tiempo aunque Redis no haya cambiado.
+     *
+     * Ambas grillas deben tener las mismas dimensiones.
+     */
+    public List<AsientoEstadoDTO> diferencias(GrillaAsientos anterior, Instant antes, Instant ahora) {
+        if (anterior.filas != filas || anterior.columnas != columnas) {
+            throw new IllegalArgumentException("Las grillas tienen dimensiones distintas");
+        }
+        List<AsientoEstadoDTO> cambios = new ArrayList<>();
+        int i = 0;
+        for (int fila = 1; fila <= filas; fila++) {
+            for (int col = 1; col <= columnas; col++, i++) {
+                // Ambos LIBRE: no hay nada que comparar (caso más común)
+                if (codigo(i) == LIBRE && anterior.codigo(i) == LIBRE) {
+                    continue;
+                }
+                String estado = estado(i, ahora);
+                Instant expira = expiraVisible(i);
+                if (!estado.equals(anterior.estado(i, antes)) || !Objects.equals(expira, anterior.expiraVisible(i))) {
+                    cambios.add(new AsientoEstadoDTO(fila, col, estado, expira));
+                }
+            }
+        }
+        return cambios;
+    }
+
+    // ----------------------------------------------------------------
+    // Acceso por índice
+    // ----------------------------------------------------------------
+
+    private int indice(int fila, int columna) {
+        if (!enRango(fila, columna)) {
+            throw new IndexOutOfBoundsException("Asiento (" + fila + "," + columna + ") fuera de la grilla " + filas + "x" + columnas);
+        }
+        return (fila - 1) * columnas + (columna - 1);
+    }
+
+    /**
+     * Hash de 64 bits (FNV-1a) de dimensiones, celdas, expiraciones y estados "otros".
+     */
+    private long calcularHuella() {
+        long h = 0xcbf29ce484222325L;
+        h = mezclar(h, filas);
+        h = mezclar(h, columnas);
+        for (long celda : celdas) {
+            h = mezclar(h, celda);
+        }
+        for (int k = 0; k < indicesConExpira.length; k++) {
+            h = mezclar(h, indicesConExpira[k]);
+            h = mezclar(h, expiras[k].getEpochSecond());
+            h = mezclar(h, expiras[k].getNano());
+        }
+        for (Map.Entry<Integer, String> e : new TreeMap<>(estadosOtros).entrySet()) {
+            h = mezclar(h, e.getKey());
+            h = mezclar(h, e.getValue().hashCode());
+        }
+        return h;
+    }
+
+    private static long mezclar(long h, long valor) {
+        for (int b = 0; b < Long.BYTES; b++) {
+            h ^= (valor >>> (b * 8)) & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private int codigo(int i) {
+        int desplazamiento = (i % ASIENTOS_POR_LONG) * BITS_POR_ASIENTO;
+        return (int) ((celdas[i / ASIENTOS_POR_LONG] >>> desplazamiento) & MASCARA);
+    }
+
+    private Instant expira(int i) {
+        int pos = Arrays.binarySearch(indicesConExpira, i);
+        return pos >= 0 ? expiras[pos] : null;
+    }
+
+    private String estado(int i, Instant ahora) {
+        return switch (codigo(i)) {
+            case VENDIDO -> "VENDIDO";
+            case BLOQUEADO -> {
+                Instant expira = expira(i);
+                // Bloqueo vigente (o sin expira explícita) salvo que ya haya vencido
+                yield (expira != null && !expira.isAfter(ahora)) ? "BLOQUEADO_EXPIRADO" : "BLOQUEADO_VIGENTE";
+            }
+            case OTRO -> estadosOtros.get(i);
+            default -> "LIBRE";
+        };
+    }
+
+    /** LIBRE y VENDIDO se devuelven siempre sin expira (igual que el mapa original). */
+    private Instant expiraVisible(int i) {
+        int c = codigo(i);
+        return (c == BLOQUEADO || c == OTRO) ? expira(i) : null;
+    }
+
+    /**
+     * Builder mutable de un solo uso. Si un asiento se marca dos veces, gana la última.
+     */
+    public static final class Builder {
+
+        private final int filas;
+        private final int columnas;
+        private final long[] celdas;
+        private final TreeMap<Integer, Instant> expiras = new TreeMap<>();
+        private final Map<Integer, String> estadosOtros = new HashMap<>();
+
+        private Builder(int filas, int columnas) {
+            if (filas <= 0 || columnas <= 0) {
+                throw new IllegalArgumentException("La grilla debe tener filas/columnas > 0");
+            }
+            this.filas = filas;
+            this.columnas = columnas;
+            long total = (long) filas * columnas;
+            this.celdas = new long[(int) ((total + ASIENTOS_POR_LONG - 1) / ASIENTOS_POR_LONG)];
+        }
+
+        /**
+         * Marca el asiento con un código compacto. Para {@link #OTRO}, {@code estadoOtro} es el String a devolver.
+         */
+        public Builder marcar(int fila, int columna, int codigo, Instant expira, String estadoOtro) {
+            int i = (fila - 1) * columnas + (columna - 1);
+
+            int desplazamiento = (i % ASIENTOS_POR_LONG) * BITS_POR_ASIENTO;
+            int pos = i / ASIENTOS_POR_LONG;
+            celdas[pos] = (celdas[pos] & ~(MASCARA << desplazamiento)) | (((long) codigo & MASCARA) << desplazamiento);
+
+            if (expira != null && codigo != LIBRE) {
+                expiras.put(i, expira);
+            } else {
+                expiras.remove(i);
+            }
+
+            if (codigo == OTRO) {
+                estadosOtros.put(i, estadoOtro != null ? estadoOtro : "");
+            } else {
+                estadosOtros.remove(i);
+            }
+            return this;
+        }
+
+        public GrillaAsientos build() {
+            int[] indices = new int[expiras.size()];
+            Instant[] valores = new Instant[expiras.size()];
+            int k = 0;
+            for (Map.Entry<Integer, Instant> e : expiras.entrySet()) {
+                indices[k] = e.getKey();
+                valores[k] = e.getValue();
+                k++;
+            }
+
+            int noLibres = 0;
+            for (long celda : celdas) {
+                // Un asiento es "no libre" si alguno de sus 2 bits está encendido
+                long ocupados = (celda | (celda >>> 1)) & 0x5555555555555555L;
+                noLibres += Long.bitCount(ocupados);
+            }
+
+            return new GrillaAsientos(filas, columnas, celdas.clone(), indices, valores, Map.copyOf(estadosOtros), noLibres);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package ar.edu.um.backend.service;
+import ar.edu.um.backend.domain.enumeration.AsientoEstado;
+import ar.edu.um.backend.service.dto.AsientoUbicacionDTO;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Crea la grilla completa de asientos de un evento NUEVO directamente por JDBC,
+ * sin pasar por el persistence context de Hibernate.
+ *
+ * - IDs: se reservan bloques de la misma secuencia que usa Hibernate (sequence_generator,
+ *   incremento 50, optimizador pooled) con UN solo SELECT. Cada nextval reserva [v-49, v],
+ *   igual que hace Hibernate, así que no hay choques con inserts hechos por JPA.
+ * - Inserts: INSERT multi-fila de hasta FILAS_POR_INSERT asientos por sentencia.
+ *
+ * Para 100x100 son 1 SELECT + 10 INSERT, contra ~200 nextval + ~400 batches vía saveAll.
+ *
+ * - Concurrencia: los INSERT llevan "on conflict (evento_id, fila, columna) do nothing"
+ *   (restricción ux_asiento__evento_fila_columna). Si dos syncs del mismo evento corren a la vez,
+ *   el segundo espera al commit del primero y no duplica filas; solo desperdicia los ids reservados.
+ *
+ * Importante: no hace falta (ni conviene) cargar las entidades después; quien llama
+ * debe pasar ya los estados iniciales (p. ej. los que vienen de Redis).
+ */
+@Service
+public class GrillaAsientosMaterializador {
+
+    private static final Logger log = LoggerFactory.getLogger(GrillaAsientosMaterializador.class);
+
+    /** Debe coincidir con el incrementBy de sequence_generator (y el allocationSize de JPA). */
+    static final int INCREMENTO_SECUENCIA = 50;
+
+    /** 6 parámetros por fila → 6000 por sentencia (PostgreSQL admite hasta 32767). */
+    static final int FILAS_POR_INSERT = 1000;
+
+    private static final String INSERT_PREFIJO =
+        "insert into asiento (id, fila, columna, estado, persona_actual, evento_id) values ";
+
+    private static final String INSERT_SUFIJO = " on conflict (evento_id, fila, columna) do nothing";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public GrillaAsientosMaterializador(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Estado inicial de un asiento distinto de LIBRE.
+     */
+    public record EstadoInicial(AsientoEstado estado, String personaActual) {}
+
+    /**
+     * Índice de un asiento dentro de la grilla (clave de estadosIniciales).
+     */
+    public static int indice(int fila, int columna, int columnas) {
+        return (fila - 1) * columnas + (columna - 1);
+    }
+
+    /**
+     * Inserta filas×columnas asientos para el evento. Los que no estén en estadosIniciales quedan LIBRE.
+     * Debe llamarse dentro de una transacción (la del sync del evento).
+     *
+     * @return cantidad de asientos creados (menos que filas×columnas si otro sync ya creó algunos).
+     */
+    public int crearGrilla(Long eventoIdLocal, int filas, int columnas, Map<Integer, EstadoInicial> estadosIniciales) {
+        int total = filas * columnas;
+        if (total <= 0) {
+            return 0;
+        }
+
+        long inicio = System.nanoTime();
+        List<Long> ids = reservarIds(total);
+
+        int creados = 0;
+        int insertados = 0;
+        int nuevos = 0;
+        List<Object> parametros = new ArrayList<>(Math.min(total, FILAS_POR_INSERT) * 6);
+
+        for (int fila = 1; fila <= filas; fila++) {
+            for (int col = 1; col <= columnas; col++) {
+                EstadoInicial inicial = estadosIniciales.get(indice(fila, col, columnas));
+
+                parametros.add(ids.get(creados));
+                parametros.add(fila);
+                parametros.add(col);
+                parametros.add(inicial != null ? inicial.estado().name() : AsientoEstado.LIBRE.name());
+                parametros.add(inicial != null ? inicial.personaActual() : null);
+                parametros.add(eventoIdLocal);
+                creados++;
+
+                if (creados - insertados == FILAS_POR_INSERT) {
+                    nuevos += insertar(parametros, FILAS_POR_INSERT);
+                    insertados = creados;
+                }
+            }
+        }
+        if (creados > insertados) {
+            nuevos += insertar(parametros, creados - insertados);
+        }
+
+        log.info(
+            "🧩 [Sync-Asientos] Grilla materializada evento idLocal={} {}x{} → {} asiento(s) nuevos de {} en {} ms",
+            eventoIdLocal, filas, columnas, nuevos, total, (System.nanoTime() - inicio) / 1_000_000
+        );
+        return nuevos;
+    }
+
+    /**
+     * Crea como LIBRE los asientos indicados (pares fila/columna) que todavía no existan.
+     * Se usa para completar grillas parciales; mismo esquema de ids e inserts que crearGrilla.
+     *
+     * @return cantidad de asientos efectivamente creados.
+     */
+    public int crearFaltantes(Long eventoIdLocal, List<AsientoUbicacionDTO> faltantes) {
+        if (faltantes.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = reservarIds(faltantes.size());
+        int nuevos = 0;
+        List<Object> parametros = new ArrayList<>(Math.min(faltantes.size(), FILAS_POR_INSERT) * 6);
+
+        for (int i = 0; i < faltantes.size(); i++) {
+            AsientoUbicacionDTO ubicacion = faltantes.get(i);
+            parametros.add(ids.get(i));
+            parametros.add(ubicacion.getFila());
+            parametros.add(ubicacion.getColumna());
+            parametros.add(AsientoEstado.LIBRE.name());
+            parametros.add(null);
+            parametros.add(eventoIdLocal);
+
+            if (parametros.size() == FILAS_POR_INSERT * 6) {
+                nuevos += insertar(parametros, FILAS_POR_INSERT);
+            }
+        }
+        if (!parametros.isEmpty()) {
+            nuevos += insertar(parametros, parametros.size() / 6);
+        }
+        return nuevos;
+    }
+
+    /**
+     * Reserva `cantidad` IDs con un único round-trip: un nextval por bloque de 50.
+     */
+    private List<Long> reservarIds(int cantidad) {
+        int bloques = (cantidad + INCREMENTO_SECUENCIA - 1) / INCREMENTO_SECUENCIA;
+        List<Long> finesDeBloque = jdbcTemplate.queryForList(
+            "select nextval('sequence_generator') from generate_series(1, ?)",
+            Long.class,
+            bloques
+        );
+
+        List<Long> ids = new ArrayList<>(bloques * INCREMENTO_SECUENCIA);
+        for (Long fin : finesDeBloque) {
+            for (long id = fin - INCREMENTO_SECUENCIA + 1; id <= fin; id++) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    // Devuelve las filas realmente insertadas (las que chocan con la restricción única no cuentan)
+    private int insertar(List<Object> parametros, int filasEnSentencia) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIJO.length() + INSERT_SUFIJO.length() + filasEnSentencia * 20)
+            .append(INSERT_PREFIJO);
+        for (int i = 0; i < filasEnSentencia; i++) {
+            sql.append(i == 0 ? "(?,?,?,?,?,?)" : ",(?,?,?,?,?,?)");
+        }
+        sql.append(INSERT_SUFIJO);
+        int insertadas = jdbcTemplate.update(sql.toString(), parametros.toArray());
+        parametros.clear();
+        return insertadas;
+    }
+}
@@ -0,0 +1,209 @@
+package ar.edu.um.backend.service;
+import ar.edu.um.backend.security.SecurityUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Soporte del header Idempotency-Key para los endpoints que llegan a la cátedra (bloqueo y venta).
+ *
+ * Los clientes móviles reintentan ante timeouts; sin esto cada reintento repite el bloqueo
+ * o la venta contra la cátedra. Con la misma clave:
+ * - Si la primera todavía está en curso → 409 (el cliente vuelve a reintentar más tarde).
+ * - Si ya terminó → se devuelve la MISMA respuesta guardada, sin llamar al proxy.
+ * - Si la clave se reusa con otro body → 422.
+ *
+ * Almacenamiento en Redis (idempotencia:{operacion}:{usuario}:{clave}):
+ * - Marca "en curso" con SET NX y TTL corto (app.idempotencia.en-curso-ms): si la instancia
+ *   muere a mitad de camino, la clave se libera sola.
+ * - Respuesta final con TTL largo (app.idempotencia.ttl-horas).
+ * - Si la operación falla con excepción NO se guarda nada: el reintento vuelve a ejecutarla.
+ *
+ * Si Redis no responde se ejecuta igual (sin idempotencia) y se deja un warning.
+ */
+@Service
+public class IdempotenciaService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotenciaService.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String HEADER_REPETIDA = "Idempotent-Replayed";
+
+    private static final String KEY_PREFIX = "idempotencia:";
+    private static final int LARGO_MAXIMO_CLAVE = 255;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttlEnCurso;
+    private final Duration ttlRespuesta;
+
+    public IdempotenciaService(
+        StringRedisTemplate redisTemplate,
+        ObjectMapper objectMapper,
+        @Value("${app.idempotencia.en-curso-ms:120000}") long enCursoMs,
+        @Value("${app.idempotencia.ttl-horas:24}") long ttlHoras
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.ttlEnCurso = Duration.ofMillis(enCursoMs);
+        this.ttlRespuesta = Duration.ofHours(ttlHoras);
+    }
+
+    /**
+     * Resultado de una operación idempotente.
+     *
+     * @param respuesta respuesta de la operación (la original si es un reintento).
+     * @param repetida  true si se respondió desde Redis sin volver a ejecutar.
+     */
+    public record Resultado<T>(T respuesta, boolean repetida) {}
+
+    /**
+     * Registro guardado en Redis para cada clave.
+     */
+    record Registro(String estado, String huella, String respuesta) {
+        static final String EN_CURSO = "EN_CURSO";
+        static final String COMPLETADA = "COMPLETADA";
+    }
+
+    /**
+     * Ejecuta la operación una sola vez por (operacion, usuario, clave).
+     *
+     * La operación es asíncrona (Mono): la marca "en curso" se toma en el hilo del llamador (donde está
+     * el usuario autenticado), y la respuesta se guarda cuando la operación termina, en un hilo
+     * de boundedElastic (nunca en el event loop del WebClient que la completó).
+     *
+     * @param operacion identifica endpoint + recurso (p. ej. "venta:7"), para no mezclar claves entre endpoints.
+     * @param clave     valor del header Idempotency-Key; null o vacío → se ejecuta sin idempotencia.
+     * @param cuerpo    body del request (su huella detecta reuso de la clave con otro contenido).
+     * @param tipo      clase de la respuesta, para leerla de Redis.
+     */
+    public <T> Mono<Resultado<T>> ejecutar(String operacion, String clave, Object cuerpo, Class<T> tipo, Supplier<Mono<T>> accion) {
+        if (clave == null || clave.isBlank()) {
+            return sinIdempotencia(accion);
+        }
+        if (clave.length() > LARGO_MAXIMO_CLAVE) {
+            return Mono.error(
+                new ResponseStatusException(HttpStatus.BAD_REQUEST, HEADER + " demasiado largo (máximo " + LARGO_MAXIMO_CLAVE + ").")
+            );
+        }
+
+        String key = KEY_PREFIX + operacion + ":" + SecurityUtils.getCurrentUserLogin().orElse("anonimo") + ":" + clave;
+        String huella = huella(cuerpo);
+
+        Boolean propia;
+        try {
+            propia = redisTemplate.opsForValue().setIfAbsent(key, escribir(new Registro(Registro.EN_CURSO, huella, null)), ttlEnCurso);
+        } catch (RuntimeException e) {
+            log.warn("⚠️ [Idempotencia] Redis no disponible ({}): se ejecuta {} sin idempotencia", e.getMessage(), operacion);
+            return sinIdempotencia(accion);
+        }
+
+        if (Boolean.TRUE.equals(propia)) {
+            return ejecutarYGuardar(key, huella, accion).map(respuesta -> new Resultado<>(respuesta, false));
+        }
+        return Mono.fromSupplier(() -> new Resultado<>(respuestaGuardada(key, huella, tipo), true));
+    }
+
+    private static <T> Mono<Resultado<T>> sinIdempotencia(Supplier<Mono<T>> accion) {
+        return Mono.defer(accion).map(respuesta -> new Resultado<>(respuesta, false));
+    }
+
+    private <T> Mono<T> ejecutarYGuardar(String key, String huella, Supplier<Mono<T>> accion) {
+        AtomicBoolean guardada = new AtomicBoolean();
+        return Mono.defer(accion)
+            // Guardar / borrar en Redis bloquea: fuera del hilo que completó la operación
+            .publishOn(Schedulers.boundedElastic())
+            .doOnNext(respuesta -> {
+                try {
+                    redisTemplate.opsForValue().set(key, escribir(new Registro(Registro.COMPLETADA, huella, escribir(respuesta))), ttlRespuesta);
+                    guardada.set(true);
+                } catch (RuntimeException e) {
+                    // La operación ya se hizo; a lo sumo un reintento posterior no encuentra la respuesta
+                    log.warn("⚠️ [Idempotencia] No se pudo guardar la respuesta de {}: {}", key, e.getMessage());
+                }
+            })
+            // Error o vacío: sin respuesta que recordar, el próximo reintento vuelve a ejecutar
+            .doOnError(e -> borrar(key))
+            .doOnSuccess(respuesta -> {
+                if (!guardada.get()) {
+                    borrar(key);
+                }
+            })
+            // Cliente desconectado o timeout async: sin esto los reintentos reciben 409 hasta que venza EN_CURSO
+            .doOnCancel(() -> {
+                if (!guardada.get()) {
+                    Schedulers.boundedElastic().schedule(() -> borrar(key));
+                }
+            });
+    }
+
+    private <T> T respuestaGuardada(String key, String huella, Class<T> tipo) {
+        String valor = redisTemplate.opsForValue().get(key);
+        if (valor == null) {
+            // Venció entre el SET NX y el GET: que el cliente reintente
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Solicitud con la misma " + HEADER + " en curso. Reintentá.");
+        }
+
+        Registro registro = leer(valor, Registro.class);
+        if (!huella.equals(registro.huella())) {
+            throw new ResponseStatusException(
+                HttpStatus.UNPROCESSABLE_ENTITY,
+                HEADER + " ya usada con otro contenido. Generá una clave nueva por operación."
+            );
+        }
+        if (Registro.EN_CURSO.equals(registro.estado())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Solicitud con la misma " + HEADER + " en curso. Reintentá.");
+        }
+
+        log.info("♻️ [Idempotencia] Respuesta repetida desde Redis para {}", key);
+        return leer(registro.respuesta(), tipo);
+    }
+
+    private void borrar(String key) {
+        try {
+            redisTemplate.delete(key);
+        } catch (RuntimeException e) {
+            log.warn("⚠️ [Idempotencia] No se pudo borrar {} (se libera por TTL): {}", key, e.getMessage());
+        }
+    }
+
+    String huella(Object cuerpo) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(escribir(cuerpo).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private String escribir(Object valor) {
+        try {
+            return objectMapper.writeValueAsString(valor);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar a JSON", e);
+        }
+    }
+
+    private <T> T leer(String json, Class<T> tipo) {
+        try {
+            return objectMapper.readValue(json, tipo);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Registro de idempotencia ilegible", e);
+        }
+    }
+}
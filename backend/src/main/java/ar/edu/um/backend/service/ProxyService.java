@@ -1,14 +1,31 @@
 package ar.edu.um.backend.service;
 import ar.edu.um.backend.service.dto.*;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.StringJoiner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 /**
  * Servicio de integración encargado de comunicarse con el proxy-service local.
  *
@@ -21,18 +38,31 @@ import org.springframework.web.reactive.function.client.WebClientResponseExcepti
  *   Backend → Proxy-Service → Cátedra
  *
  * Cada metodo representa un endpoint concreto del proxy y devuelve DTOs tipados.
+ *
+ * Los endpoints "calientes" (estado de asientos, bloqueo, venta) son no bloqueantes (sufijo Async,
+ * devuelven Mono): los handlers de bloqueo y venta los encadenan sin retener hilos. Donde hace falta
+ * una variante bloqueante (stream SSE, worker de ventas asíncronas) es simplemente
+ * {@code xxxAsync(...).block()}, así ambas comparten logs y manejo de errores.
  */
 @Service
 public class ProxyService {
 
     private static final Logger log = LoggerFactory.getLogger(ProxyService.class);
 
+    private static final TypeReference<List<AsientoRequestDTO>> LISTA_ASIENTOS = new TypeReference<>() {};
+
     private final WebClient proxyWebClient;
     private final ObjectMapper objectMapper;
+    private final int maxBytesRespuesta;
 
-    public ProxyService(WebClient proxyWebClient, ObjectMapper objectMapper) {
+    public ProxyService(
+        WebClient proxyWebClient,
+        ObjectMapper objectMapper,
+        @Value("${app.proxy.max-bytes-respuesta:4194304}") int maxBytesRespuesta
+    ) {
         this.proxyWebClient = proxyWebClient;
         this.objectMapper = objectMapper;
+        this.maxBytesRespuesta = maxBytesRespuesta;
     }
 
     /** Llama a GET /api/proxy/eventos  (Payload 4 completos) */
@@ -102,158 +132,288 @@ public class ProxyService {
 
     /** Llama a GET /api/proxy/eventos/{id}/estado-asientos  (Redis remoto) */
     public ProxyEstadoAsientosResponse listarEstadoAsientosRedis(Long externalId) {
+        return listarEstadoAsientosRedisAsync(externalId).block();
+    }
+
+    /**
+     * Igual que {@link #listarEstadoAsientosRedis(Long)} pero con un tiempo máximo por llamada.
+     *
+     * - Si el proxy no responde a tiempo se cancela el request (no queda un hilo esperándolo)
+     *   y se lanza 504.
+     * - Si el proxy falla se lanza 502 en lugar de devolver null: para quien refresca una grilla,
+     *   "sin respuesta" no es lo mismo que "todos libres".
+     */
+    public ProxyEstadoAsientosResponse listarEstadoAsientosRedis(Long externalId, Duration timeout) {
+        return listarEstadoAsientosRedisAsync(externalId)
+            .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.BAD_GATEWAY, "El proxy no devolvió el estado de asientos")))
+            .timeout(timeout, Mono.error(() -> new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "El proxy no respondió en " + timeout.toMillis() + " ms")))
+            .block();
+    }
+
+    /** Variante no bloqueante de {@link #listarEstadoAsientosRedis(Long)}: vacío si falla. */
+    public Mono<ProxyEstadoAsientosResponse> listarEstadoAsientosRedisAsync(Long externalId) {
         if (externalId == null) {
             log.warn("⚠️ [Proxy-Backend] estado-asientos llamado con externalId=null");
-            return null;
+            return Mono.empty();
         }
         return getAsientosWrapper("/eventos/" + externalId + "/estado-asientos", externalId, "estado-asientos");
     }
 
+    /**
+     * Llama a GET /api/proxy/eventos/{id}/estado-asientos?seats=r1c2,r3c4 (Redis remoto, solo esos asientos).
+     *
+     * El proxy resuelve con HMGET, así que el costo depende de los asientos pedidos y no del tamaño de la sala.
+     * Los asientos que no vuelven en la respuesta no están en Redis (=> LIBRE).
+     */
+    public Mono<ProxyEstadoAsientosResponse> listarEstadoAsientosRedisAsync(Long externalId, Collection<AsientoUbicacionDTO> asientos) {
+        if (externalId == null) {
+            log.warn("⚠️ [Proxy-Backend] estado-asientos puntual llamado con externalId=null");
+            return Mono.empty();
+        }
+        if (asientos == null || asientos.isEmpty()) {
+            return listarEstadoAsientosRedisAsync(externalId);
+        }
+
+        StringJoiner seats = new StringJoiner(",");
+        for (AsientoUbicacionDTO a : asientos) {
+            if (a != null && a.getFila() != null && a.getColumna() != null) {
+                seats.add("r" + a.getFila() + "c" + a.getColumna());
+            }
+        }
+
+        return getAsientosWrapper(
+            "/eventos/" + externalId + "/estado-asientos?seats=" + seats,
+            externalId,
+            "estado-asientos-puntual"
+        );
+    }
+
     /** Llama a GET /api/proxy/eventos/{id}/asientos (asientos del evento desde cátedra/proxy) */
     public ProxyEstadoAsientosResponse listarAsientosDeEvento(Long externalId) {
         if (externalId == null) {
             log.warn("⚠️ [Proxy-Backend] asientos llamado con externalId=null");
             return null;
         }
-        return getAsientosWrapper("/eventos/" + externalId + "/asientos", externalId, "asientos");
+        return getAsientosWrapper("/eventos/" + externalId + "/asientos", externalId, "asientos").block();
     }
 
-    /** Llama a  POST /api/proxy/eventos/{externalId}/bloqueos (bloqueo real en Redis cátedra) */
-    public AsientoBloqueoResponseDTO crearBloqueoEnProxy(AsientoBloqueoRequestDTO dto) {
+    /**
+     * Llama a  POST /api/proxy/eventos/{externalId}/bloqueos (bloqueo real en Redis cátedra), sin bloquear.
+     * Errores HTTP / de red se loguean y se resuelven como vacío.
+     */
+    public Mono<AsientoBloqueoResponseDTO> crearBloqueoEnProxyAsync(AsientoBloqueoRequestDTO dto) {
         if (dto == null || dto.getEventoId() == null) {
-            log.warn("⚠️ [Proxy-Backend] crearBloqueoEnProxy llamado con dto/eventoId nulo");
-            return null;
+            log.warn("⚠️ [Proxy-Backend] crearBloqueoEnProxyAsync llamado con dto/eventoId nulo");
+            return Mono.empty();
         }
 
-        try {
-            log.info(
-                "🔒 [Proxy-Backend] Enviando bloqueo al proxy: eventoId={}, asientos={}",
-                dto.getEventoId(),
-                dto.getAsientos() != null ? dto.getAsientos().size() : 0
-            );
+        log.info(
+            "🔒 [Proxy-Backend] Enviando bloqueo al proxy: eventoId={}, asientos={}",
+            dto.getEventoId(),
+            dto.getAsientos() != null ? dto.getAsientos().size() : 0
+        );
 
-            return proxyWebClient
-                .post()
-                .uri("/eventos/" + dto.getEventoId() + "/bloqueos")
-                .bodyValue(dto)
-                .retrieve()
-                .bodyToMono(AsientoBloqueoResponseDTO.class)
-                .block();
-
-        } catch (WebClientResponseException e) {
-            log.error("❌ [Proxy-Backend] Error HTTP bloqueando asientos (eventoId={}) -> {}", dto.getEventoId(), e.getResponseBodyAsString(), e);
-            return null;
-        } catch (Exception e) {
-            log.error("💥 [Proxy-Backend] Error inesperado bloqueando asientos (eventoId={})", dto.getEventoId(), e);
-            return null;
-        }
+        return proxyWebClient
+            .post()
+            .uri("/eventos/" + dto.getEventoId() + "/bloqueos")
+            .bodyValue(dto)
+            .retrieve()
+            .bodyToMono(AsientoBloqueoResponseDTO.class)
+            .onErrorResume(WebClientResponseException.class, e -> {
+                log.error("❌ [Proxy-Backend] Error HTTP bloqueando asientos (eventoId={}) -> {}", dto.getEventoId(), e.getResponseBodyAsString(), e);
+                return Mono.empty();
+            })
+            .onErrorResume(e -> {
+                log.error("💥 [Proxy-Backend] Error inesperado bloqueando asientos (eventoId={})", dto.getEventoId(), e);
+                return Mono.empty();
+            });
     }
 
     /** Llama a POST /api/proxy/eventos/{externalId}/venta */
     public ProxyVentaResponseDTO crearVentaEnProxy(Long externalId, ProxyVentaRequestDTO ventaRequest) {
+        return crearVentaEnProxyAsync(externalId, ventaRequest).block();
+    }
+
+    /** Variante no bloqueante de {@link #crearVentaEnProxy(Long, ProxyVentaRequestDTO)}: vacío si falla. */
+    public Mono<ProxyVentaResponseDTO> crearVentaEnProxyAsync(Long externalId, ProxyVentaRequestDTO ventaRequest) {
         if (externalId == null) {
             log.warn("⚠️ [Proxy-Backend] crearVentaEnProxy llamado con externalId=null");
-            return null;
+            return Mono.empty();
         }
 
-        try {
-            log.info(
-                "💸 [Proxy-Backend] Enviando venta al proxy: externalId={}, asientos={}",
-                externalId,
-                ventaRequest != null && ventaRequest.getAsientos() != null ? ventaRequest.getAsientos().size() : 0
-            );
-
-            return proxyWebClient
-                .post()
-                .uri("/eventos/" + externalId + "/venta")
-                .bodyValue(ventaRequest)
-                .retrieve()
-                .bodyToMono(ProxyVentaResponseDTO.class)
-                .block();
+        log.info(
+            "💸 [Proxy-Backend] Enviando venta al proxy: externalId={}, asientos={}",
+            externalId,
+            ventaRequest != null && ventaRequest.getAsientos() != null ? ventaRequest.getAsientos().size() : 0
+        );
 
-        } catch (WebClientResponseException e) {
-            log.error("❌ [Proxy-Backend] Error creando venta en proxy (externalId={}) -> {}", externalId, e.getResponseBodyAsString(), e);
-            return null;
-        } catch (Exception e) {
-            log.error("💥 [Proxy-Backend] Error inesperado creando venta en proxy (externalId={})", externalId, e);
-            return null;
-        }
+        return proxyWebClient
+            .post()
+            .uri("/eventos/" + externalId + "/venta")
+            .bodyValue(ventaRequest)
+            .retrieve()
+            .bodyToMono(ProxyVentaResponseDTO.class)
+            .onErrorResume(WebClientResponseException.class, e -> {
+                log.error("❌ [Proxy-Backend] Error creando venta en proxy (externalId={}) -> {}", externalId, e.getResponseBodyAsString(), e);
+                return Mono.empty();
+            })
+            .onErrorResume(e -> {
+                log.error("💥 [Proxy-Backend] Error inesperado creando venta en proxy (externalId={})", externalId, e);
+                return Mono.empty();
+            });
     }
 
     /**
      * Helper común: llama a endpoint que puede devolver:
      * - wrapper: { "eventoId": X, "asientos": [ ... ] }
      * - lista directa: [ {fila, columna, estado, expira, personaActual, ...}, ... ]
+     *
+     * El body se tokeniza a medida que llegan los buffers (sin pasar por String ni juntarlo entero) y se
+     * decodifica UNA sola vez: se mira el primer token JSON ('{' o '[') y se arma la estructura que corresponde.
+     *
+     * Nunca emite error: ante cualquier falla loguea y completa vacío.
      */
-    private ProxyEstadoAsientosResponse getAsientosWrapper(String uri, Long externalId, String tag) {
-        if (externalId == null) {
-            log.warn("⚠️ [Proxy-Backend] {} llamado con externalId=null (uri={})", tag, uri);
-            return null;
-        }
+    private Mono<ProxyEstadoAsientosResponse> getAsientosWrapper(String uri, Long externalId, String tag) {
+        // LOG 1: llamada al proxy
+        log.info("🌐 [Proxy-Backend] Llamando al proxy: GET {} (externalId={})", uri, externalId);
 
-        try {
-            // LOG 1: llamada al proxy
-            log.info("🌐 [Proxy-Backend] Llamando al proxy: GET {} (externalId={})", uri, externalId);
+        // El body se tokeniza a medida que llega (parser no bloqueante de Jackson): cada DataBuffer se
+        // libera apenas se lee y nunca se arma el body entero en un buffer. Tope app.proxy.max-bytes-respuesta:
+        // si el proxy manda más, falla con DataBufferLimitException y se cancela la lectura.
+        Flux<DataBuffer> body = proxyWebClient.get().uri(uri).retrieve().bodyToFlux(DataBuffer.class);
+        return Mono.usingWhen(
+            Mono.fromCallable(LectorIncremental::new),
+            lector ->
+                body
+                    .doOnNext(buffer -> {
+                        try {
+                            lector.leer(buffer);
+                        } catch (IOException e) {
+                            throw Exceptions.propagate(e);
+                        } finally {
+                            DataBufferUtils.release(buffer);
+                        }
+                    })
+                    .then(Mono.fromCallable(() -> {
+                        // LOG 2: respuesta recibida del proxy
+                        log.info(
+                            "📩 [Proxy-Backend] Respuesta del proxy: GET {} (externalId={}) bytes={}",
+                            uri,
+                            externalId,
+                            lector.bytes
+                        );
+                        if (lector.bytes == 0) {
+                            log.warn("⚠️ [Proxy-Backend] {} devolvió body vacío externalId={}", tag, externalId);
+                            return null;
+                        }
+                        try (JsonParser parser = lector.terminar()) {
+                            return parsearAsientos(parser, externalId, tag);
+                        }
+                    })),
+            lector -> Mono.fromRunnable(lector::cerrar)
+        )
+            .onErrorResume(WebClientResponseException.class, e -> {
+                log.error("❌ [Proxy-Backend] Error HTTP {} externalId={} -> {}", tag, externalId, e.getResponseBodyAsString(), e);
+                return Mono.empty();
+            })
+            .onErrorResume(DataBufferLimitException.class, e -> {
+                log.error("❌ [Proxy-Backend] {} externalId={} superó el máximo de {} bytes", tag, externalId, maxBytesRespuesta);
+                return Mono.empty();
+            })
+            .onErrorResume(e -> {
+                log.error("💥 [Proxy-Backend] Error inesperado {} externalId={}", tag, externalId, e);
+                return Mono.empty();
+            });
+    }
 
-            String json = proxyWebClient
-                .get()
-                .uri(uri)
-                .retrieve()
-                .bodyToMono(String.class)
-                .block();
+    /**
+     * Tokenizador incremental de una respuesta: los bytes de cada DataBuffer pasan por un parser no
+     * bloqueante y sus tokens se copian a un TokenBuffer, que al final se recorre como un JsonParser
+     * común (parsearAsientos). No es thread-safe: lo usa una sola suscripción, en orden.
+     */
+    private final class LectorIncremental {
 
-            // LOG 2: respuesta recibida del proxy
-            int bytes = json != null ? json.length() : 0;
-            log.info(
-                "📩 [Proxy-Backend] Respuesta del proxy: GET {} (externalId={}) bytes={}",
-                uri,
-                externalId,
-                bytes
-            );
+        private final JsonParser parser;
+        private final ByteBufferFeeder feeder;
+        private final TokenBuffer tokens = new TokenBuffer(objectMapper, false);
+        private long bytes;
+
+        LectorIncremental() throws IOException {
+            this.parser = objectMapper.getFactory().createNonBlockingByteBufferParser();
+            this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        }
 
-            if (json == null || json.isBlank()) {
-                log.warn("⚠️ [Proxy-Backend] {} devolvió body vacío externalId={}", tag, externalId);
-                return null;
+        void leer(DataBuffer buffer) throws IOException {
+            bytes += buffer.readableByteCount();
+            if (bytes > maxBytesRespuesta) {
+                throw new DataBufferLimitException("Respuesta del proxy mayor a " + maxBytesRespuesta + " bytes");
+            }
+            try (DataBuffer.ByteBufferIterator it = buffer.readableByteBuffers()) {
+                while (it.hasNext()) {
+                    feeder.feedInput(it.next());
+                    copiarTokens();
+                }
             }
+        }
+
+        JsonParser terminar() throws IOException {
+            feeder.endOfInput();
+            copiarTokens();
+            return tokens.asParser(objectMapper);
+        }
 
-            // 1) Intento wrapper
+        void cerrar() {
             try {
-                ProxyEstadoAsientosResponse wrapper = objectMapper.readValue(json, ProxyEstadoAsientosResponse.class);
-
-                if (wrapper != null) {
-                    if (wrapper.getEventoId() == null) {
-                        wrapper.setEventoId(externalId);
-                    }
-                    if (wrapper.getAsientos() == null) {
-                        wrapper.setAsientos(Collections.emptyList());
-                    }
-                }
+                parser.close();
+                tokens.close();
+            } catch (IOException e) {
+                log.debug("[Proxy-Backend] Error cerrando el parser incremental: {}", e.getMessage());
+            }
+        }
 
-                log.debug("✅ [Proxy-Backend] {} parseado como WRAPPER (externalId={})", tag, externalId);
-                return wrapper;
+        // Tokens completos disponibles con lo recibido hasta ahora; el resto espera al próximo buffer
+        private void copiarTokens() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                tokens.copyCurrentEvent(parser);
+            }
+        }
+    }
 
-            } catch (Exception ignoreWrapper) {
-                // 2) Intento lista directa y la “envuelvo”
-                List<AsientoRequestDTO> lista = objectMapper.readValue(
-                    json,
-                    new TypeReference<List<AsientoRequestDTO>>() {}
-                );
+    /**
+     * Decodifica el estado de asientos según el primer token:
+     * - START_OBJECT → wrapper.
+     * - START_ARRAY  → lista directa, que se “envuelve”.
+     * - Cualquier otra cosa (null, vacío) → null.
+     */
+    private ProxyEstadoAsientosResponse parsearAsientos(JsonParser parser, Long externalId, String tag) throws IOException {
+        JsonToken primero = parser.nextToken();
 
-                ProxyEstadoAsientosResponse wrapper = new ProxyEstadoAsientosResponse();
+        if (primero == JsonToken.START_OBJECT) {
+            ProxyEstadoAsientosResponse wrapper = objectMapper.readValue(parser, ProxyEstadoAsientosResponse.class);
+            if (wrapper.getEventoId() == null) {
                 wrapper.setEventoId(externalId);
-                wrapper.setAsientos(lista != null ? lista : Collections.emptyList());
-
-                log.debug("✅ [Proxy-Backend] {} parseado como LISTA y envuelto (externalId={})", tag, externalId);
-                return wrapper;
             }
+            if (wrapper.getAsientos() == null) {
+                wrapper.setAsientos(Collections.emptyList());
+            }
+            log.debug("✅ [Proxy-Backend] {} parseado como WRAPPER (externalId={})", tag, externalId);
+            return wrapper;
+        }
 
-        } catch (WebClientResponseException e) {
-            log.error("❌ [Proxy-Backend] Error HTTP {} externalId={} -> {}", tag, externalId, e.getResponseBodyAsString(), e);
-            return null;
-        } catch (Exception e) {
-            log.error("💥 [Proxy-Backend] Error inesperado {} externalId={}", tag, externalId, e);
-            return null;
+        if (primero == JsonToken.START_ARRAY) {
+            List<AsientoRequestDTO> lista = objectMapper.readValue(parser, LISTA_ASIENTOS);
+
+            ProxyEstadoAsientosResponse wrapper = new ProxyEstadoAsientosResponse();
+            wrapper.setEventoId(externalId);
+            wrapper.setAsientos(lista != null ? lista : Collections.emptyList());
+
+            log.debug("✅ [Proxy-Backend] {} parseado como LISTA y envuelto (externalId={})", tag, externalId);
+            return wrapper;
         }
+
+        log.warn("⚠️ [Proxy-Backend] {} devolvió un JSON inesperado (primer token={}) externalId={}", tag, primero, externalId);
+        return null;
     }
 }
 
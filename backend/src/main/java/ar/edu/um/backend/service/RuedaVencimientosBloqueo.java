@@ -0,0 +1,181 @@
+package ar.edu.um.backend.service;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rueda de tiempo ("hashed timing wheel") con los vencimientos de bloqueos conocidos por evento.
+ *
+ * Funcionamiento:
+ * - Cada vez que se construye la grilla de un evento se programan sus expiras futuras
+ *   ({@link #programar(Long, Collection)}); el mismo (evento, expira) se programa una sola vez.
+ * - Un ÚNICO hilo avanza la rueda cada {@code tick-ms}: la ranura de un vencimiento es
+ *   tick(expira) mod ranuras, y solo se dispara en la vuelta que corresponde.
+ * - Al vencer, se publica {@link BloqueosVencidos} (uno por evento y tick) para que los que tienen
+ *   estado calculado a una fecha (p. ej. los vigilantes del stream SSE) lo reevalúen en el acto.
+ *   Los listeners corren en el hilo de la rueda: deben solo encolar su trabajo, sin I/O.
+ *
+ * Nunca dispara antes de la expira (redondea hacia arriba al tick siguiente): el atraso máximo es un tick.
+ * No hay un hilo ni una tarea por bloqueo: programar es encolar y el costo por tick es la ranura actual.
+ */
+@Component
+public class RuedaVencimientosBloqueo {
+
+    private static final Logger log = LoggerFactory.getLogger(RuedaVencimientosBloqueo.class);
+
+    /**
+     * Evento de aplicación: en el evento (idLocal) vencieron bloqueos con expira &lt;= {@code vencimiento}.
+     */
+    public record BloqueosVencidos(Long eventoIdLocal, Instant vencimiento) {}
+
+    /** Vencimiento programado (también es la clave de deduplicación). */
+    private record Vencimiento(Long eventoIdLocal, Instant expira) {}
+
+    private final ApplicationEventPublisher publisher;
+    private final long tickMs;
+    private final long inicioMs = System.currentTimeMillis();
+    private final ArrayDeque<Vencimiento>[] ranuras;
+    private final int mascara;
+
+    /** Todos los vencimientos pendientes (en la rueda o esperando entrar). */
+    private final Set<Vencimiento> programados = ConcurrentHashMap.newKeySet();
+    /** Altas de otros hilos: solo el hilo de la rueda toca las ranuras. */
+    private final Queue<Vencimiento> entrantes = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService reloj;
+
+    /** Último tick procesado (solo lo modifica el hilo de la rueda). */
+    private long tickProcesado;
+
+    @SuppressWarnings("unchecked")
+    public RuedaVencimientosBloqueo(
+        ApplicationEventPublisher publisher,
+        MeterRegistry meterRegistry,
+        @Value("${app.asientos-vencimientos.tick-ms:100}") long tickMs,
+        @Value("${app.asientos-vencimientos.ranuras:512}") int ranuras
+    ) {
+        this.publisher = publisher;
+        this.tickMs = Math.max(1, tickMs);
+        // Potencia de 2 para calcular la ranura con una máscara
+        int cantidad = Integer.highestOneBit(Math.max(2, ranuras - 1)) << 1;
+        this.ranuras = new ArrayDeque[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            this.ranuras[i] = new ArrayDeque<>();
+        }
+        this.mascara = cantidad - 1;
+        this.tickProcesado = tickActual(System.currentTimeMillis());
+
+        Gauge.builder("asientos.vencimientos.programados", programados, Set::size)
+            .description("Vencimientos de bloqueo esperando en la rueda")
+            .register(meterRegistry);
+
+        this.reloj = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("rueda-vencimientos-"));
+        this.reloj.scheduleAtFixedRate(this::avanzar, this.tickMs, this.tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Programa las expiras de bloqueos de un evento. Ignora las ya vencidas y las ya programadas.
+     */
+    public void programar(Long eventoIdLocal, Collection<Instant> expiras) {
+        if (eventoIdLocal == null || expiras == null || expiras.isEmpty()) {
+            return;
+        }
+        Instant ahora = Instant.now();
+        int nuevos = 0;
+        for (Instant expira : expiras) {
+            if (expira == null || !expira.isAfter(ahora)) continue;
+
+            Vencimiento v = new Vencimiento(eventoIdLocal, expira);
+            if (programados.add(v)) {
+                entrantes.add(v);
+                nuevos++;
+            }
+        }
+        if (nuevos > 0) {
+            log.debug("⏱️ [Vencimientos] {} vencimiento(s) programados eventoIdLocal={}", nuevos, eventoIdLocal);
+        }
+    }
+
+    public int cantidadProgramados() {
+        return programados.size();
+    }
+
+    /**
+     * Tick de la rueda: ubica las altas y dispara lo vencido en los ticks transcurridos
+     * (si el hilo se atrasó, se ponen al día todos los ticks pendientes).
+     */
+    void avanzar() {
+        try {
+            long hasta = tickActual(System.currentTimeMillis());
+            ubicarEntrantes();
+
+            Map<Long, Instant> vencidos = new HashMap<>();
+            while (tickProcesado < hasta) {
+                tickProcesado++;
+                Iterator<Vencimiento> it = ranuras[(int) (tickProcesado & mascara)].iterator();
+                while (it.hasNext()) {
+                    Vencimiento v = it.next();
+                    // Las demás son de vueltas posteriores
+                    if (tickDe(v.expira()) <= tickProcesado) {
+                        it.remove();
+                        programados.remove(v);
+                        vencidos.merge(v.eventoIdLocal(), v.expira(), (a, b) -> a.isAfter(b) ? a : b);
+                    }
+                }
+            }
+
+            for (Map.Entry<Long, Instant> e : vencidos.entrySet()) {
+                try {
+                    publisher.publishEvent(new BloqueosVencidos(e.getKey(), e.getValue()));
+                } catch (RuntimeException ex) {
+                    log.warn("⚠️ [Vencimientos] Error notificando eventoIdLocal={}: {}", e.getKey(), ex.getMessage());
+                }
+            }
+        } catch (RuntimeException e) {
+            // Si la tarea periódica lanza, el executor no la vuelve a ejecutar
+            log.error("❌ [Vencimientos] Error avanzando la rueda: {}", e.getMessage(), e);
+        }
+    }
+
+    private void ubicarEntrantes() {
+        Vencimiento v;
+        while ((v = entrantes.poll()) != null) {
+            // Si venció mientras esperaba, va al próximo tick a procesar
+            long tick = Math.max(tickDe(v.expira()), tickProcesado + 1);
+            ranuras[(int) (tick & mascara)].add(v);
+        }
+    }
+
+    /** Primer tick cuyo instante es &gt;= expira (nunca se dispara antes de tiempo). */
+    private long tickDe(Instant expira) {
+        long expiraMs = expira.toEpochMilli() + (expira.getNano() % 1_000_000 == 0 ? 0 : 1);
+        return Math.floorDiv(expiraMs - inicioMs + tickMs - 1, tickMs);
+    }
+
+    private long tickActual(long ahoraMs) {
+        return Math.floorDiv(ahoraMs - inicioMs, tickMs);
+    }
+
+    @PreDestroy
+    public void detener() {
+        reloj.shutdownNow();
+    }
+}
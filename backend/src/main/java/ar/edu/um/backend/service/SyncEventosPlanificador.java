@@ -0,0 +1,169 @@
+package ar.edu.um.backend.service;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Planifica la sincronización de eventos disparada por notificaciones del proxy.
+ *
+ * - solicitar() NO sincroniza: anota la notificación y vuelve enseguida (el endpoint responde 202).
+ * - Las notificaciones que llegan dentro de la ventana (app.sync-eventos.debounce-ms) desde la
+ *   primera pendiente se agrupan en UNA sola corrida.
+ * - Nunca corren dos sincronizaciones a la vez: hay un único hilo. Si llegan notificaciones
+ *   durante una corrida, se agrupan en la siguiente.
+ * - Notificaciones dirigidas (con externalIds) sincronizan solo esos eventos. Si en la ventana
+ *   hubo alguna global, o el proxy no devuelve un evento, se hace el sync completo.
+ */
+@Service
+public class SyncEventosPlanificador {
+
+    private static final Logger log = LoggerFactory.getLogger(SyncEventosPlanificador.class);
+
+    private final EventoSyncService eventoSyncService;
+    private final long debounceMs;
+    private final ScheduledExecutorService executor =
+        Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("sync-eventos-"));
+
+    // Todo el estado se lee/modifica con el monitor de this
+    private int pendientes;
+    private final Set<Long> eventosPendientes = new LinkedHashSet<>();
+    private boolean completoPendiente;
+    private boolean programado;
+    private boolean enCurso;
+    private long ejecuciones;
+    private long ultimaDuracionMs = -1;
+    private Instant ultimaEjecucion;
+    private String ultimoError;
+
+    public SyncEventosPlanificador(
+        EventoSyncService eventoSyncService,
+        @Value("${app.sync-eventos.debounce-ms:500}") long debounceMs
+    ) {
+        this.eventoSyncService = eventoSyncService;
+        this.debounceMs = debounceMs;
+    }
+
+    /**
+     * Registra una notificación global (sync completo).
+     */
+    public synchronized Estado solicitar() {
+        completoPendiente = true;
+        return registrar();
+    }
+
+    /**
+     * Registra una notificación dirigida a eventos puntuales (externalIds de la cátedra).
+     * Sin ids, equivale a una notificación global.
+     */
+    public synchronized Estado solicitar(Collection<Long> externalIds) {
+        if (externalIds == null || externalIds.isEmpty()) {
+            return solicitar();
+        }
+        eventosPendientes.addAll(externalIds);
+        return registrar();
+    }
+
+    // Si no hay una corrida programada, programa una al cerrar la ventana
+    private Estado registrar() {
+        pendientes++;
+        if (!programado) {
+            programado = true;
+            executor.schedule(this::ejecutar, debounceMs, TimeUnit.MILLISECONDS);
+        }
+        return estado();
+    }
+
+    public synchronized Estado estado() {
+        return new Estado(pendientes, eventosPendientes.size(), enCurso, ejecuciones, ultimaDuracionMs, ultimaEjecucion, ultimoError);
+    }
+
+    private void ejecutar() {
+        int agrupadas;
+        boolean completo;
+        List<Long> externalIds;
+        synchronized (this) {
+            agrupadas = pendientes;
+            completo = completoPendiente;
+            externalIds = new ArrayList<>(eventosPendientes);
+            pendientes = 0;
+            completoPendiente = false;
+            eventosPendientes.clear();
+            programado = false; // lo que llegue desde ahora va a la próxima corrida
+            enCurso = true;
+        }
+
+        log.info(
+            "🔄 [Sync-Eventos] Corrida planificada: {} notificación(es) agrupadas (completo={}, eventos={}).",
+            agrupadas, completo, externalIds
+        );
+        long inicio = System.nanoTime();
+        String error = null;
+        try {
+            if (completo || !sincronizarDirigido(externalIds)) {
+                eventoSyncService.sincronizarEventosDesdeProxy();
+            }
+        } catch (Exception e) {
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            log.error("❌ [Sync-Eventos] Falló la sincronización planificada: {}", error, e);
+        }
+        long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+
+        synchronized (this) {
+            enCurso = false;
+            ejecuciones++;
+            ultimaDuracionMs = duracionMs;
+            ultimaEjecucion = Instant.now();
+            ultimoError = error;
+        }
+        log.info("✅ [Sync-Eventos] Corrida planificada terminada en {} ms (pendientes={}).", duracionMs, estado().pendientes());
+    }
+
+    // false si algún evento no se pudo obtener del proxy (hay que caer al sync completo)
+    private boolean sincronizarDirigido(List<Long> externalIds) {
+        for (Long externalId : externalIds) {
+            if (!eventoSyncService.sincronizarEvento(externalId)) {
+                log.warn("⚠️ [Sync-Eventos] Sync dirigido externalId={} sin datos: se pasa al sync completo.", externalId);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @PreDestroy
+    void cerrar() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Foto del planificador.
+     *
+     * @param pendientes        notificaciones recibidas que todavía no entraron en una corrida.
+     * @param eventosPendientes externalIds distintos pendientes de sync dirigido.
+     * @param enCurso           si hay una sincronización corriendo ahora.
+     * @param ejecuciones       corridas terminadas desde el arranque.
+     * @param ultimaDuracionMs  duración de la última corrida (-1 si no hubo ninguna).
+     * @param ultimaEjecucion   fin de la última corrida.
+     * @param ultimoError       error de la última corrida, o null si terminó bien.
+     */
+    public record Estado(
+        int pendientes,
+        int eventosPendientes,
+        boolean enCurso,
+        long ejecuciones,
+        long ultimaDuracionMs,
+        Instant ultimaEjecucion,
+        String ultimoError
+    ) {}
+}
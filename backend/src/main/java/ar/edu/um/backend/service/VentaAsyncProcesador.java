@@ -0,0 +1,221 @@
+package ar.edu.um.backend.service;
+import ar.edu.um.backend.domain.enumeration.VentaEstado;
+import ar.edu.um.backend.repository.VentaRepository;
+import ar.edu.um.backend.service.dto.VentaRequestFrontendDTO;
+import ar.edu.um.backend.service.dto.VentaTicketDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Mono;
+
+/**
+ * Ventas asíncronas (modo ticket): el request no espera a la cátedra.
+ *
+ * - solicitarAsync(): valida y registra la venta PENDIENTE (VentaSyncService) y la encola; el endpoint
+ *   responde 202 con el ticket enseguida.
+ * - Un pool propio (app.ventas.async.workers, cola acotada app.ventas.async.capacidad-cola)
+ *   confirma cada venta con la cátedra y la deja CONFIRMADA o RECHAZADA.
+ * - El cliente sigue el ticket por polling (GET /api/ventas/tickets/{ticket}) o por SSE (suscribir()).
+ * - Al arrancar se reencolan las ventas que quedaron PENDIENTE (reinicio a mitad de camino).
+ * - Una venta ya enviada a la cátedra nunca se reenvía ni se rechaza a ciegas: si la respuesta no llegó
+ *   queda PENDIENTE y se concilia con la cátedra (al arrancar y cada app.ventas.async.conciliar-cada-ms).
+ * - Si la cola está llena la venta se rechaza en el momento (503) en lugar de acumular latencia.
+ */
+@Service
+public class VentaAsyncProcesador {
+
+    private static final Logger log = LoggerFactory.getLogger(VentaAsyncProcesador.class);
+
+    private final VentaSyncService ventaSyncService;
+    private final VentaRepository ventaRepository;
+    private final ThreadPoolExecutor executor;
+    private final long sseTimeoutMs;
+    private final long conciliarCadaMs;
+    private final Map<Long, List<SseEmitter>> suscriptores = new ConcurrentHashMap<>();
+
+    public VentaAsyncProcesador(
+        VentaSyncService ventaSyncService,
+        VentaRepository ventaRepository,
+        MeterRegistry meterRegistry,
+        @Value("${app.ventas.async.workers:4}") int workers,
+        @Value("${app.ventas.async.capacidad-cola:500}") int capacidadCola,
+        @Value("${app.ventas.async.sse-timeout-ms:120000}") long sseTimeoutMs,
+        @Value("${app.ventas.async.conciliar-cada-ms:30000}") long conciliarCadaMs
+    ) {
+        this.ventaSyncService = ventaSyncService;
+        this.ventaRepository = ventaRepository;
+        this.sseTimeoutMs = sseTimeoutMs;
+        this.conciliarCadaMs = conciliarCadaMs;
+        int hilos = Math.max(1, workers);
+        this.executor = new ThreadPoolExecutor(
+            hilos,
+            hilos,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(Math.max(1, capacidadCola)),
+            new CustomizableThreadFactory("venta-async-")
+        );
+        Gauge.builder("venta.async.cola", executor, e -> e.getQueue().size())
+            .description("Ventas asíncronas esperando un worker")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Valida y registra la venta PENDIENTE, y la deja en la cola de confirmación.
+     * La validación contra Redis no retiene el hilo del request (ver registrarVentaPendienteAsync).
+     */
+    public Mono<VentaTicketDTO> solicitarAsync(VentaRequestFrontendDTO request) {
+        return ventaSyncService.registrarVentaPendienteAsync(request).doOnNext(ticket -> {
+            try {
+                encolar(ticket.getTicket());
+            } catch (RejectedExecutionException e) {
+                ventaSyncService.rechazarPendiente(ticket.getTicket(), "Cola de ventas llena.");
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Demasiadas ventas en curso. Reintentá en unos segundos.");
+            }
+        });
+    }
+
+    /**
+     * SSE con el estado del ticket: un evento "estado" al suscribirse si ya está resuelto,
+     * o cuando el worker lo resuelva. Después se cierra la conexión.
+     */
+    public SseEmitter suscribir(Long ticket) {
+        // Primero el ticket: si no existe (o es de otro usuario), 404 sin dejar un emitter registrado
+        VentaTicketDTO actual = ventaSyncService
+            .consultarTicketDelUsuario(ticket)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Ticket inexistente"));
+
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        if (actual.getEstado() != VentaEstado.PENDIENTE) {
+            enviar(emitter, actual);
+            return emitter;
+        }
+
+        List<SseEmitter> lista = suscriptores.computeIfAbsent(ticket, k -> new CopyOnWriteArrayList<>());
+        lista.add(emitter);
+        emitter.onCompletion(() -> quitar(ticket, emitter));
+        emitter.onTimeout(() -> quitar(ticket, emitter));
+        emitter.onError(e -> quitar(ticket, emitter));
+
+        // Después de registrarse: si el worker terminó entre la consulta y el registro, no se pierde el resultado
+        ventaSyncService.consultarTicket(ticket).ifPresent(t -> enviar(emitter, t));
+        return emitter;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void reencolarPendientes() {
+        List<Long> pendientes = ventaRepository.findIdsByEstado(VentaEstado.PENDIENTE);
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        log.info("🎫 [Sync-Venta] Reencolando {} venta(s) PENDIENTE del arranque anterior", pendientes.size());
+        for (Long ventaId : pendientes) {
+            try {
+                encolar(ventaId);
+            } catch (RejectedExecutionException e) {
+                ventaSyncService.rechazarPendiente(ventaId, "Cola de ventas llena.");
+            }
+        }
+    }
+
+    /**
+     * Reencola las ventas enviadas a la cátedra que siguen PENDIENTE (respuesta perdida o asientos todavía
+     * bloqueados en la última conciliación). El worker las concilia; no las reenvía.
+     */
+    @Scheduled(
+        fixedDelayString = "${app.ventas.async.conciliar-cada-ms:30000}",
+        initialDelayString = "${app.ventas.async.conciliar-cada-ms:30000}"
+    )
+    void conciliarEnviadas() {
+        List<Long> enviadas = ventaRepository.findIdsByEstadoAndEnviadaCatedraAntesDe(
+            VentaEstado.PENDIENTE,
+            Instant.now().minusMillis(conciliarCadaMs)
+        );
+        if (enviadas.isEmpty()) {
+            return;
+        }
+        log.info("🔁 [Sync-Venta] Conciliando {} venta(s) enviadas a la cátedra sin respuesta", enviadas.size());
+        for (Long ventaId : enviadas) {
+            try {
+                encolar(ventaId);
+            } catch (RejectedExecutionException e) {
+                // Cola llena: quedan para la próxima vuelta
+                return;
+            }
+        }
+    }
+
+    private void encolar(Long ventaId) {
+        executor.execute(() -> procesar(ventaId));
+    }
+
+    private void procesar(Long ventaId) {
+        VentaTicketDTO resultado;
+        try {
+            resultado = ventaSyncService.confirmarVentaPendiente(ventaId);
+        } catch (Exception e) {
+            // Error local (DB, cerrojo): la venta no puede quedar PENDIENTE para siempre.
+            // rechazarPendiente no toca las ya enviadas a la cátedra: esas se concilian.
+            log.error("❌ [Sync-Venta] Falló la confirmación asíncrona ticket={}: {}", ventaId, e.getMessage(), e);
+            ventaSyncService.rechazarPendiente(ventaId, "No se pudo procesar la venta: " + e.getMessage());
+            resultado = ventaSyncService.consultarTicket(ventaId).orElse(null);
+        }
+        if (resultado == null) {
+            return;
+        }
+        List<SseEmitter> lista = suscriptores.get(ventaId);
+        if (lista != null) {
+            for (SseEmitter emitter : lista) {
+                enviar(emitter, resultado);
+            }
+        }
+    }
+
+    // Solo se envía el estado final; con PENDIENTE se espera al worker
+    private void enviar(SseEmitter emitter, VentaTicketDTO ticket) {
+        if (ticket.getEstado() == VentaEstado.PENDIENTE) {
+            return;
+        }
+        try {
+            emitter.send(SseEmitter.event().name("estado").data(ticket, MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void quitar(Long ticket, SseEmitter emitter) {
+        suscriptores.computeIfPresent(ticket, (k, lista) -> {
+            lista.remove(emitter);
+            return lista.isEmpty() ? null : lista;
+        });
+    }
+
+    @PreDestroy
+    void cerrar() {
+        // Las ventas que queden en la cola siguen PENDIENTE y se reencolan en el próximo arranque
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,268 @@
+package ar.edu.um.backend.service;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+/**
+ * Publica en Kafka los eventos del outbox de ventas (venta_outbox), fuera del camino de la venta.
+ *
+ * Cada lote pasa por tres pasos, y solo los extremos tocan la DB (transacciones cortas):
+ * 1) Reclamo: se toman pendientes con "for update skip locked" y se les pone un lease
+ *    (reclamado_hasta = ahora + reclamo-ms). Con varias instancias, cada fila la reclama una sola;
+ *    si la instancia muere, la fila vuelve a estar disponible al vencer el lease.
+ * 2) Envío: el lote entero (el productor los agrupa: linger.ms) y la espera de los acks, SIN
+ *    transacción ni conexión de Hikari tomada.
+ * 3) Marca: publicado_en en las confirmadas; intentos/ultimo_error en las fallidas (y se libera el
+ *    lease para reintentarlas en la próxima corrida).
+ * Si se cae entre el ack y la marca, la fila se vuelve a publicar: entrega AT-LEAST-ONCE,
+ * los consumidores deduplican por ventaIdLocal (o header outbox-id).
+ *
+ * Las corridas las dispara @Scheduled pero corren en el hilo propio del relay: la espera de acks
+ * no ocupa el pool compartido de @Scheduled. Si la corrida anterior sigue, el disparo se descarta.
+ *
+ * Solo existe si Kafka está configurado (spring.kafka.bootstrap-servers) y solo publica si además
+ * hay broker explícito (app.ventas.outbox.broker, por defecto el mismo bootstrap-servers); sin él
+ * las filas quedan en el outbox hasta que se configure.
+ * Clave del mensaje = externalId del evento: las ventas de un mismo evento van a la misma partición.
+ */
+@Service
+@ConditionalOnProperty(name = "spring.kafka.bootstrap-servers")
+public class VentaOutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(VentaOutboxRelay.class);
+
+    static final String HEADER_OUTBOX_ID = "outbox-id";
+    static final String HEADER_TIPO = "tipo";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final TransactionTemplate txEscritura;
+    private final boolean habilitado;
+    private final String topic;
+    private final int tamanoLote;
+    private final long timeoutEnvioMs;
+    private final long reclamoMs;
+    private final Duration retencion;
+    private final Counter publicados;
+    private final Counter errores;
+    private final ThreadPoolExecutor executor;
+
+    public VentaOutboxRelay(
+        JdbcTemplate jdbcTemplate,
+        KafkaTemplate<String, String> kafkaTemplate,
+        PlatformTransactionManager transactionManager,
+        MeterRegistry meterRegistry,
+        @Value("${app.ventas.outbox.relay-habilitado:true}") boolean habilitado,
+        @Value("${app.ventas.outbox.broker:${spring.kafka.bootstrap-servers:}}") String broker,
+        @Value("${app.ventas.outbox.topic:ventas-confirmadas}") String topic,
+        @Value("${app.ventas.outbox.tamano-lote:100}") int tamanoLote,
+        @Value("${app.ventas.outbox.timeout-envio-ms:10000}") long timeoutEnvioMs,
+        @Value("${app.ventas.outbox.reclamo-ms:30000}") long reclamoMs,
+        @Value("${app.ventas.outbox.retencion-horas:72}") long retencionHoras
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.txEscritura = new TransactionTemplate(transactionManager);
+        this.habilitado = habilitado && StringUtils.hasText(broker);
+        if (habilitado && !this.habilitado) {
+            log.info("ℹ️ [Outbox] Sin broker Kafka explícito: el relay no publica, las ventas quedan en el outbox");
+        }
+        this.topic = topic;
+        this.tamanoLote = Math.max(1, tamanoLote);
+        this.timeoutEnvioMs = timeoutEnvioMs;
+        // El lease tiene que cubrir la espera de acks; si no, otra corrida reclamaría filas en vuelo
+        this.reclamoMs = Math.max(reclamoMs, 2 * timeoutEnvioMs);
+        this.retencion = Duration.ofHours(retencionHoras);
+        this.publicados = Counter.builder("venta.outbox.publicados").description("Eventos de venta publicados en Kafka").register(meterRegistry);
+        this.errores = Counter.builder("venta.outbox.errores").description("Envíos a Kafka fallidos (se reintentan)").register(meterRegistry);
+        // Un solo hilo y sin cola: un disparo con la corrida anterior en curso se descarta
+        this.executor = new ThreadPoolExecutor(
+            1,
+            1,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new SynchronousQueue<>(),
+            new CustomizableThreadFactory("outbox-relay-"),
+            new ThreadPoolExecutor.DiscardPolicy()
+        );
+    }
+
+    /**
+     * Fila pendiente del outbox.
+     */
+    record Pendiente(long id, String clave, String tipo, String payload) {}
+
+    @Scheduled(fixedDelayString = "${app.ventas.outbox.intervalo-ms:1000}")
+    public void publicarPendientes() {
+        if (!habilitado) {
+            return;
+        }
+        executor.execute(this::corrida);
+    }
+
+    /**
+     * Lotes completos seguidos mientras haya atraso y no haya errores.
+     */
+    void corrida() {
+        try {
+            int enviados;
+            do {
+                enviados = publicarLote();
+            } while (enviados == tamanoLote);
+        } catch (RuntimeException e) {
+            log.warn("⚠️ [Outbox-Ventas] Corrida del relay interrumpida: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reclama un lote, lo publica sin transacción abierta y marca el resultado.
+     *
+     * @return filas publicadas, o 0 si hubo algún error (se corta la corrida).
+     */
+    int publicarLote() {
+        List<Pendiente> lote = txEscritura.execute(status -> reclamar());
+        if (lote == null || lote.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<SendResult<String, String>>> envios = new ArrayList<>(lote.size());
+        for (Pendiente fila : lote) {
+            ProducerRecord<String, String> record = new ProducerRecord<>(topic, fila.clave(), fila.payload());
+            record.headers().add(HEADER_OUTBOX_ID, String.valueOf(fila.id()).getBytes(StandardCharsets.UTF_8));
+            record.headers().add(HEADER_TIPO, fila.tipo().getBytes(StandardCharsets.UTF_8));
+            envios.add(enviar(record));
+        }
+        kafkaTemplate.flush();
+
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutEnvioMs);
+        List<Object[]> ok = new ArrayList<>(lote.size());
+        List<Object[]> fallidas = new ArrayList<>();
+        Timestamp ahora = Timestamp.from(Instant.now());
+
+        for (int i = 0; i < lote.size(); i++) {
+            long id = lote.get(i).id();
+            try {
+                envios.get(i).get(Math.max(0, limite - System.nanoTime()), TimeUnit.NANOSECONDS);
+                ok.add(new Object[] { ahora, id });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fallidas.add(new Object[] { "interrumpido", id });
+            } catch (ExecutionException | TimeoutException e) {
+                String causa = e instanceof ExecutionException && e.getCause() != null ? e.getCause().getMessage() : e.toString();
+                fallidas.add(new Object[] { recortar(causa), id });
+            }
+        }
+
+        txEscritura.executeWithoutResult(status -> {
+            if (!ok.isEmpty()) {
+                jdbcTemplate.batchUpdate("update venta_outbox set publicado_en = ?, reclamado_hasta = null where id = ?", ok);
+            }
+            if (!fallidas.isEmpty()) {
+                jdbcTemplate.batchUpdate(
+                    "update venta_outbox set intentos = intentos + 1, ultimo_error = ?, reclamado_hasta = null where id = ?",
+                    fallidas
+                );
+            }
+        });
+        publicados.increment(ok.size());
+
+        if (!fallidas.isEmpty()) {
+            errores.increment(fallidas.size());
+            log.warn(
+                "⚠️ [Outbox-Ventas] {} de {} evento(s) no se pudieron publicar en {} (se reintentan): {}",
+                fallidas.size(), lote.size(), topic, fallidas.get(0)[0]
+            );
+            return 0;
+        }
+
+        log.debug("📤 [Outbox-Ventas] {} evento(s) publicados en {}", ok.size(), topic);
+        return ok.size();
+    }
+
+    /**
+     * Toma hasta tamanoLote pendientes sin lease vigente y les pone el lease. Debe correr en una transacción.
+     */
+    private List<Pendiente> reclamar() {
+        Instant ahora = Instant.now();
+        List<Pendiente> lote = new ArrayList<>(
+            jdbcTemplate.query(
+                "update venta_outbox set reclamado_hasta = ? where id in (" +
+                "select id from venta_outbox where publicado_en is null and (reclamado_hasta is null or reclamado_hasta < ?) " +
+                "order by id limit ? for update skip locked) " +
+                "returning id, clave, tipo, payload",
+                (rs, i) -> new Pendiente(rs.getLong("id"), rs.getString("clave"), rs.getString("tipo"), rs.getString("payload")),
+                Timestamp.from(ahora.plusMillis(reclamoMs)),
+                Timestamp.from(ahora),
+                tamanoLote
+            )
+        );
+        // RETURNING no garantiza orden: se publican en orden de id
+        lote.sort(Comparator.comparingLong(Pendiente::id));
+        return lote;
+    }
+
+    // send() puede fallar en el acto (p. ej. sin metadata del broker): se trata igual que un ack fallido
+    private CompletableFuture<SendResult<String, String>> enviar(ProducerRecord<String, String> record) {
+        try {
+            return kafkaTemplate.send(record);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Borra las filas ya publicadas más viejas que la retención.
+     */
+    @Scheduled(cron = "0 15 * * * ?")
+    public void purgarPublicados() {
+        if (!habilitado) {
+            return;
+        }
+        Integer borradas = txEscritura.execute(status ->
+            jdbcTemplate.update("delete from venta_outbox where publicado_en < ?", Timestamp.from(Instant.now().minus(retencion)))
+        );
+        if (borradas != null && borradas > 0) {
+            log.info("🧹 [Outbox-Ventas] {} evento(s) publicados purgados", borradas);
+        }
+    }
+
+    @PreDestroy
+    void cerrar() {
+        // Las filas de un lote cortado quedan reclamadas hasta que vence el lease y se reintentan
+        executor.shutdownNow();
+    }
+
+    private static String recortar(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        return texto.length() <= 500 ? texto : texto.substring(0, 500);
+    }
+}
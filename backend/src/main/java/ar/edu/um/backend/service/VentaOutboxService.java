@@ -0,0 +1,80 @@
+package ar.edu.um.backend.service;
+import ar.edu.um.backend.domain.Asiento;
+import ar.edu.um.backend.domain.Venta;
+import ar.edu.um.backend.service.dto.AsientoUbicacionDTO;
+import ar.edu.um.backend.service.dto.VentaConfirmadaEventoDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Escritura del outbox de ventas (tabla venta_outbox).
+ *
+ * Se llama DENTRO de la transacción que confirma la Venta (Propagation.MANDATORY): o se guardan
+ * las dos cosas o ninguna, así que ninguna venta confirmada queda sin su evento.
+ * La publicación en Kafka la hace VentaOutboxRelay, fuera del camino de la venta.
+ */
+@Service
+public class VentaOutboxService {
+
+    static final String TIPO_VENTA_CONFIRMADA = "VENTA_CONFIRMADA";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public VentaOutboxService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Registra el evento de una venta CONFIRMADA. La venta ya debe tener id (save previo).
+     *
+     * @param eventoExternalId id del evento en la cátedra (clave de partición en Kafka).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarVentaConfirmada(Venta venta, Long eventoExternalId) {
+        List<AsientoUbicacionDTO> asientos = venta
+            .getAsientos()
+            .stream()
+            .sorted(Comparator.comparing(Asiento::getFila).thenComparing(Asiento::getColumna))
+            .map(a -> new AsientoUbicacionDTO(a.getFila(), a.getColumna()))
+            .toList();
+
+        Instant ahora = Instant.now();
+        VentaConfirmadaEventoDTO evento = new VentaConfirmadaEventoDTO(
+            venta.getId(),
+            venta.getExternalId(),
+            eventoExternalId,
+            venta.getFechaVenta(),
+            venta.getPrecioVenta(),
+            venta.getCantidadAsientos(),
+            asientos,
+            ahora
+        );
+
+        jdbcTemplate.update(
+            "insert into venta_outbox (venta_id, clave, tipo, payload, creado_en, intentos) values (?, ?, ?, ?, ?, 0)",
+            venta.getId(),
+            String.valueOf(eventoExternalId),
+            TIPO_VENTA_CONFIRMADA,
+            escribir(evento),
+            Timestamp.from(ahora)
+        );
+    }
+
+    private String escribir(VentaConfirmadaEventoDTO evento) {
+        try {
+            return objectMapper.writeValueAsString(evento);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el evento de venta", e);
+        }
+    }
+}
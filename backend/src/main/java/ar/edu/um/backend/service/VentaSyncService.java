@@ -7,11 +7,19 @@ import ar.edu.um.backend.domain.enumeration.VentaEstado;
 import ar.edu.um.backend.repository.AsientoRepository;
 import ar.edu.um.backend.repository.EventoRepository;
 import ar.edu.um.backend.repository.VentaRepository;
+import ar.edu.um.backend.security.AuthoritiesConstants;
+import ar.edu.um.backend.security.SecurityUtils;
 import ar.edu.um.backend.service.dto.AsientoEstadoDTO;
+import ar.edu.um.backend.service.dto.AsientoUbicacionDTO;
 import ar.edu.um.backend.service.dto.ProxyVentaRequestDTO;
 import ar.edu.um.backend.service.dto.ProxyVentaResponseDTO;
 import ar.edu.um.backend.service.dto.VentaAsientoFrontendDTO;
 import ar.edu.um.backend.service.dto.VentaRequestFrontendDTO;
+import ar.edu.um.backend.service.dto.VentaTicketDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDate;
@@ -20,10 +28,15 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 /**
  * Servicio encargado de procesar una venta real de entradas para un evento.
  *
@@ -59,29 +72,93 @@ import org.springframework.transaction.annotation.Transactional;
  * 5) Si la cátedra confirma:
  *      - Se persiste la venta local
  *      - Se marcan los asientos como VENDIDO en la BD local
+ *
+ * TRANSACCIONES (para no retener conexiones de Hikari durante llamadas remotas)
+ * ------------------------------------------------------------
+ * - Fase "validacion":   transacción READ-ONLY corta (evento + asientos locales).
+ * - Estado en Redis y confirmación con la cátedra: SIN transacción (sin conexión tomada) y
+ *   sin hilo tomado: son las llamadas no bloqueantes del ProxyService (Mono), y la venta termina
+ *   en un hilo de boundedElastic (nunca en el event loop del WebClient).
+ * - Fase "persistencia": transacción de escritura corta (Venta + Asientos VENDIDO + fila del
+ *   outbox venta_outbox, que VentaOutboxRelay publica después en Kafka).
+ *
+ * CONCURRENCIA
+ * ------------------------------------------------------------
+ * - Antes de validar se toman los asientos con CerrojoAsientos (orden canónico, memoria o Redis).
+ *   Dos ventas con asientos en común no llegan juntas a la cátedra: la segunda espera y,
+ *   si la primera vendió, falla en la validación local; si espera demasiado → 409.
+ *
+ * MODO ASÍNCRONO (ticket)
+ * ------------------------------------------------------------
+ * - registrarVentaPendienteAsync: valida y deja la Venta PENDIENTE (asientos reservados localmente).
+ * - confirmarVentaPendiente: la ejecuta VentaAsyncProcesador en su pool; marca la venta como enviada,
+ *   llama a la cátedra y la deja CONFIRMADA (asientos VENDIDO) o RECHAZADA. Una venta enviada cuya
+ *   respuesta no llegó nunca se reenvía: se concilia con el estado de sus asientos en la cátedra.
+ *
+ * Métricas: timer "venta.fase" (tag fase=validacion|estado-redis|catedra|persistencia).
+ * Junto con hikaricp.connections.active / pending / usage muestran que la espera
+ * de red ya no ocupa conexiones del pool.
  */
 @Service
-@Transactional
 public class VentaSyncService {
     private static final Logger log = LoggerFactory.getLogger(VentaSyncService.class);
+
+    static final String METRICA_FASES = "venta.fase";
+
     private final EventoRepository eventoRepository;
     private final AsientoRepository asientoRepository;
     private final VentaRepository ventaRepository;
     private final AsientoEstadoService asientoEstadoService;
     private final ProxyService proxyService;
+    private final CerrojoAsientos cerrojoAsientos;
+    private final ObjectMapper objectMapper;
+    private final VentaOutboxService ventaOutboxService;
+    private final boolean asientosBajoDemanda;
+    private final TransactionTemplate txLectura;
+    private final TransactionTemplate txEscritura;
+    private final Timer timerValidacion;
+    private final Timer timerEstadoRedis;
+    private final Timer timerCatedra;
+    private final Timer timerPersistencia;
 
     public VentaSyncService(
         EventoRepository eventoRepository,
         AsientoRepository asientoRepository,
         VentaRepository ventaRepository,
         AsientoEstadoService asientoEstadoService,
-        ProxyService proxyService
+        ProxyService proxyService,
+        CerrojoAsientos cerrojoAsientos,
+        ObjectMapper objectMapper,
+        VentaOutboxService ventaOutboxService,
+        PlatformTransactionManager transactionManager,
+        MeterRegistry meterRegistry,
+        @Value("${app.asientos.materializacion:grilla}") String materializacion
     ) {
         this.eventoRepository = eventoRepository;
         this.asientoRepository = asientoRepository;
         this.ventaRepository = ventaRepository;
         this.asientoEstadoService = asientoEstadoService;
         this.proxyService = proxyService;
+        this.cerrojoAsientos = cerrojoAsientos;
+        this.objectMapper = objectMapper;
+        this.ventaOutboxService = ventaOutboxService;
+        this.asientosBajoDemanda = AsientoSyncService.MATERIALIZACION_BAJO_DEMANDA.equals(materializacion);
+
+        this.txLectura = new TransactionTemplate(transactionManager);
+        this.txLectura.setReadOnly(true);
+        this.txEscritura = new TransactionTemplate(transactionManager);
+
+        this.timerValidacion = timerFase(meterRegistry, "validacion");
+        this.timerEstadoRedis = timerFase(meterRegistry, "estado-redis");
+        this.timerCatedra = timerFase(meterRegistry, "catedra");
+        this.timerPersistencia = timerFase(meterRegistry, "persistencia");
+    }
+
+    private static Timer timerFase(MeterRegistry registry, String fase) {
+        return Timer.builder(METRICA_FASES)
+            .description("Duración de cada fase de una venta (solo validacion y persistencia usan conexión de DB)")
+            .tag("fase", fase)
+            .register(registry);
     }
 
     /**
@@ -90,18 +167,17 @@ public class VentaSyncService {
      * IMPORTANTE:
      * - request.getEventoId() contiene el idLocal del evento (resuelto previamente por el controller).
      * - El externalId se obtiene desde la entidad Evento para comunicarse con la cátedra.
+     * - NO debe llamarse dentro de una transacción: cada fase abre la suya.
+     * - Al suscribirse, el cerrojo y la validación local corren en el hilo que se suscribe (el del
+     *   request); Redis y la cátedra no retienen hilos, y el cerrojo se libera al terminar la venta.
      *
      * Devuelve siempre el Payload 7 (ProxyVentaResponseDTO):
      * - resultado = true  → venta confirmada por la cátedra
      * - resultado = false → venta rechazada (bloqueos, reglas, etc.)
      */
-    public ProxyVentaResponseDTO procesarVenta(VentaRequestFrontendDTO request) {
+    public Mono<ProxyVentaResponseDTO> procesarVentaAsync(VentaRequestFrontendDTO request) {
 
-        if (request == null) throw new IllegalArgumentException("Body requerido.");
-        if (request.getEventoId() == null) throw new IllegalArgumentException("eventoIdLocal requerido.");
-        if (request.getAsientos() == null || request.getAsientos().isEmpty()) {
-            throw new IllegalArgumentException("La venta debe incluir al menos un asiento.");
-        }
+        validarRequest(request);
 
         // eventoIdLocal (NO externalId)
         Long eventoIdLocal = request.getEventoId(); // 1051
@@ -112,6 +188,219 @@ public class VentaSyncService {
             request.getAsientos().size()
         );
 
+        // 1) Forma de los asientos, y cerrojo local sobre ellos (orden canónico) ANTES de validar:
+        //    una venta concurrente con asientos en común espera acá en lugar de llegar a la cátedra.
+        List<AsientoUbicacionDTO> ubicaciones = validarForma(request);
+        return Mono.using(
+            () -> cerrojoAsientos.adquirir(eventoIdLocal, ubicaciones),
+            permiso -> venderConAsientosTomados(request, ubicaciones),
+            CerrojoAsientos.Permiso::close
+        );
+    }
+
+    /**
+     * Modo asíncrono, parte 1 (en el request): mismas validaciones que procesarVentaAsync, pero en lugar
+     * de esperar a la cátedra deja la venta PENDIENTE con sus asientos y el request original.
+     * La confirma después {@link #confirmarVentaPendiente(Long)} (VentaAsyncProcesador).
+     *
+     * Mientras está PENDIENTE, sus asientos no pueden entrar en otra venta (ver prepararVenta).
+     */
+    public Mono<VentaTicketDTO> registrarVentaPendienteAsync(VentaRequestFrontendDTO request) {
+        validarRequest(request);
+        Long eventoIdLocal = request.getEventoId();
+
+        List<AsientoUbicacionDTO> ubicaciones = validarForma(request);
+        return Mono.using(
+            () -> cerrojoAsientos.adquirir(eventoIdLocal, ubicaciones),
+            permiso -> {
+                VentaPreparada preparada = timerValidacion.record(() -> txLectura.execute(status -> prepararVenta(request, ubicaciones)));
+
+                return validarEstadoRedisAsync(preparada.evento(), ubicaciones)
+                    .publishOn(Schedulers.boundedElastic())
+                    .then(Mono.fromSupplier(() -> {
+                        Venta venta = timerPersistencia.record(() -> txEscritura.execute(status -> persistirPendiente(preparada, request)));
+
+                        log.info(
+                            "🎫 [Sync-Venta] Venta PENDIENTE ticket={} eventoIdLocal={} asientos={}",
+                            venta.getId(),
+                            eventoIdLocal,
+                            ubicaciones.size()
+                        );
+                        return ticket(venta, preparada.evento().getExternalId());
+                    }));
+            },
+            CerrojoAsientos.Permiso::close
+        );
+    }
+
+    /**
+     * Modo asíncrono, parte 2 (en un worker): confirma con la cátedra una venta PENDIENTE y la deja
+     * CONFIRMADA (asientos VENDIDO) o RECHAZADA. Si ya no está PENDIENTE no hace nada.
+     *
+     * Antes de llamar a la cátedra la venta queda marcada como enviada (enviada_catedra_en). Si la
+     * respuesta no llega (timeout, proxy caído, reinicio a mitad de camino) no se sabe si la cátedra
+     * la registró: queda PENDIENTE y, en lugar de reenviarla, se concilia ({@link #conciliarConCatedra}).
+     *
+     * Igual que en el modo síncrono, la espera a la cátedra no ocupa conexiones de la DB.
+     */
+    public VentaTicketDTO confirmarVentaPendiente(Long ventaId) {
+        Pendiente pendiente = txLectura.execute(status -> cargarPendiente(ventaId));
+        if (pendiente == null) {
+            return consultarTicket(ventaId).orElse(null);
+        }
+
+        try (CerrojoAsientos.Permiso permiso = cerrojoAsientos.adquirir(pendiente.eventoIdLocal(), pendiente.ubicaciones())) {
+            // Con los asientos tomados: ¿los vendió otra operación mientras esperaba en la cola?
+            Pendiente vigente = txLectura.execute(status -> cargarPendiente(ventaId));
+            if (vigente == null) {
+                return consultarTicket(ventaId).orElse(null);
+            }
+            if (vigente.enviadaCatedraEn() != null) {
+                // Un intento anterior ya la envió: reenviarla podría vender dos veces
+                conciliarConCatedra(ventaId, vigente);
+                return consultarTicket(ventaId).orElse(null);
+            }
+            if (vigente.motivoRechazo() != null) {
+                txEscritura.executeWithoutResult(status -> resolverPendiente(ventaId, null, vigente.motivoRechazo()));
+                return consultarTicket(ventaId).orElse(null);
+            }
+
+            txEscritura.executeWithoutResult(status -> marcarEnviada(ventaId));
+
+            ProxyVentaResponseDTO resp = null;
+            try {
+                resp = timerCatedra.record(() -> proxyService.crearVentaEnProxy(vigente.externalId(), vigente.requestProxy()));
+            } catch (RuntimeException e) {
+                log.warn("⚠️ [Sync-Venta] Error llamando a la cátedra ticket={}: {}", ventaId, e.getMessage());
+            }
+
+            if (resp == null) {
+                log.warn("⚠️ [Sync-Venta] Sin respuesta de la cátedra ticket={}; queda PENDIENTE para conciliar", ventaId);
+                conciliarConCatedra(ventaId, vigente);
+            } else {
+                ProxyVentaResponseDTO respuesta = resp;
+                timerPersistencia.record(() -> txEscritura.executeWithoutResult(status -> resolverPendiente(ventaId, respuesta, null)));
+            }
+        }
+        return consultarTicket(ventaId).orElse(null);
+    }
+
+    /**
+     * Deja RECHAZADA una venta PENDIENTE sin consultar a la cátedra (p. ej. cola de trabajo llena o error local).
+     * Si ya se había enviado a la cátedra no la toca: pudo haberse vendido, así que se concilia después.
+     */
+    public void rechazarPendiente(Long ventaId, String motivo) {
+        txEscritura.executeWithoutResult(status -> {
+            Venta venta = ventaRepository.findById(ventaId).orElse(null);
+            if (venta != null && venta.getEnviadaCatedraEn() != null) {
+                log.warn("⚠️ [Sync-Venta] ticket={} ya se envió a la cátedra; queda PENDIENTE para conciliar ({})", ventaId, motivo);
+                return;
+            }
+            resolverPendiente(ventaId, null, motivo);
+        });
+    }
+
+    /**
+     * Estado actual de una venta (cualquier modo) en formato ticket. Sin control de dueño: uso interno.
+     */
+    public Optional<VentaTicketDTO> consultarTicket(Long ventaId) {
+        return txLectura.execute(status ->
+            ventaRepository.findById(ventaId).map(venta -> ticket(venta, venta.getEvento().getExternalId()))
+        );
+    }
+
+    /**
+     * Como {@link #consultarTicket(Long)}, pero solo si la venta es del usuario actual (o es admin).
+     * Los tickets son ids secuenciales: la venta de otro se ve igual que una inexistente.
+     */
+    public Optional<VentaTicketDTO> consultarTicketDelUsuario(Long ventaId) {
+        String login = SecurityUtils.getCurrentUserLogin().orElse(null);
+        boolean admin = SecurityUtils.hasCurrentUserThisAuthority(AuthoritiesConstants.ADMIN);
+        return txLectura.execute(status ->
+            ventaRepository
+                .findById(ventaId)
+                .filter(venta -> admin || (login != null && login.equals(venta.getComprador())))
+                .map(venta -> ticket(venta, venta.getEvento().getExternalId()))
+        );
+    }
+
+    private void validarRequest(VentaRequestFrontendDTO request) {
+        if (request == null) throw new IllegalArgumentException("Body requerido.");
+        if (request.getEventoId() == null) throw new IllegalArgumentException("eventoIdLocal requerido.");
+        if (request.getAsientos() == null || request.getAsientos().isEmpty()) {
+            throw new IllegalArgumentException("La venta debe incluir al menos un asiento.");
+        }
+    }
+
+    /**
+     * Resto de la venta, con los asientos ya retenidos por el cerrojo local.
+     */
+    private Mono<ProxyVentaResponseDTO> venderConAsientosTomados(VentaRequestFrontendDTO request, List<AsientoUbicacionDTO> ubicaciones) {
+        Long eventoIdLocal = request.getEventoId();
+
+        // 2) Validar evento y filas locales (transacción read-only corta)
+        VentaPreparada preparada = timerValidacion.record(() -> txLectura.execute(status -> prepararVenta(request, ubicaciones)));
+        Evento evento = preparada.evento();
+
+        // 3) y 4) Estado en tiempo real SOLO de los asientos pedidos (Redis vía proxy, sin transacción)
+        return validarEstadoRedisAsync(evento, ubicaciones)
+            .then(Mono.defer(() -> {
+                // 5) Calcular total
+                int cantidadAsientos = ubicaciones.size();
+                BigDecimal total = evento.getPrecioEntrada()
+                    .multiply(BigDecimal.valueOf(cantidadAsientos));
+
+                // 6) Construir request para la cátedra (externalId)
+                ProxyVentaRequestDTO requestProxy = new ProxyVentaRequestDTO();
+                requestProxy.setEventoId(evento.getExternalId());
+                requestProxy.setFecha(Instant.now());
+                requestProxy.setPrecioVenta(total);
+                requestProxy.setAsientos(request.getAsientos());
+
+                log.info(
+                    "💸 [Sync-Venta] Enviando venta al proxy eventoIdLocal={} externalId={} total={}",
+                    eventoIdLocal,
+                    evento.getExternalId(),
+                    total
+                );
+
+                // 7) Confirmar venta con la cátedra (sin transacción ni hilo: la espera de red no ocupa recursos)
+                Timer.Sample muestra = Timer.start();
+                return proxyService
+                    .crearVentaEnProxyAsync(evento.getExternalId(), requestProxy)
+                    .doFinally(senal -> muestra.stop(timerCatedra));
+            }))
+            .switchIfEmpty(Mono.error(() -> new IllegalStateException(
+                "No se pudo confirmar la venta con la cátedra (respuesta nula)."
+            )))
+            // Persistencia (JDBC) y liberación del cerrojo: fuera del event loop del WebClient
+            .publishOn(Schedulers.boundedElastic())
+            .map(resp -> {
+                if (Boolean.FALSE.equals(resp.getResultado())) {
+                    log.warn("⛔ [Sync-Venta] Venta rechazada por cátedra: {}", resp.getDescripcion());
+                    return resp;
+                }
+
+                // 8) Persistir venta local (transacción de escritura corta)
+                Venta venta = timerPersistencia.record(() -> txEscritura.execute(status -> persistirVenta(preparada, resp)));
+
+                log.info(
+                    "💾 [Sync-Venta] Venta persistida idLocal={} externalId={} asientos={}",
+                    venta.getId(),
+                    venta.getExternalId(),
+                    ubicaciones.size()
+                );
+
+                return resp;
+            });
+    }
+
+    /**
+     * Fase de validación (read-only): evento y existencia de las filas locales de los asientos.
+     */
+    private VentaPreparada prepararVenta(VentaRequestFrontendDTO request, List<AsientoUbicacionDTO> ubicaciones) {
+        Long eventoIdLocal = request.getEventoId();
+
         // 1) Validar evento local
         Evento evento = eventoRepository.findById(eventoIdLocal)
             .orElseThrow(() -> new IllegalArgumentException(
@@ -133,19 +422,47 @@ public class VentaSyncService {
             );
         }
 
-        // 2) Obtener estados en tiempo real (Redis vía proxy)
-        List<AsientoEstadoDTO> estados =
-            asientoEstadoService.obtenerEstadoActualDeAsientos(eventoIdLocal);
-
-        Map<String, AsientoEstadoDTO> mapaEstado = new HashMap<>();
-        for (AsientoEstadoDTO dto : estados) {
-            if (dto != null && dto.getFila() != null && dto.getColumna() != null) {
-                mapaEstado.put(dto.getFila() + "-" + dto.getColumna(), dto);
+        // 2.b) Filas locales: se validan ANTES de vender en la cátedra (en bajo-demanda pueden no existir aún).
+        //      Una sola consulta para todos los asientos pedidos.
+        for (AsientoUbicacionDTO ubicacion : ubicaciones) {
+            validarDentroDeGrilla(evento, ubicacion);
+        }
+        Map<AsientoUbicacionDTO, Asiento> existentes = buscarAsientos(eventoIdLocal, ubicaciones);
+        List<AsientoUbicacionDTO> sinFilaLocal = new ArrayList<>();
+        for (AsientoUbicacionDTO ubicacion : ubicaciones) {
+            Asiento existente = existentes.get(ubicacion);
+            if (existente != null && existente.getEstado() == AsientoEstado.VENDIDO) {
+                // Típico de una venta concurrente que ganó el cerrojo: se corta sin ir a la cátedra
+                throw new IllegalStateException(
+                    "Asiento (" + ubicacion.getFila() + "," + ubicacion.getColumna() + ") ya está vendido."
+                );
+            }
+            if (existente != null) {
+                continue;
+            }
+            if (!asientosBajoDemanda) {
+                throw new IllegalStateException(
+                    "Asiento persistido no encontrado (eventoIdLocal=" + eventoIdLocal + ")"
+                );
             }
+            sinFilaLocal.add(ubicacion);
         }
 
-        // 3) Validar asientos solicitados
-        List<Asiento> asientosPersistidos = new ArrayList<>();
+        // 2.c) Asientos comprometidos en una venta asíncrona que todavía espera a la cátedra
+        List<Long> idsExistentes = existentes.values().stream().map(Asiento::getId).toList();
+        if (!idsExistentes.isEmpty() && ventaRepository.existsByEstadoAndAsientos_IdIn(VentaEstado.PENDIENTE, idsExistentes)) {
+            throw new IllegalStateException("Alguno de los asientos tiene una venta pendiente de confirmación.");
+        }
+
+        // En el hilo del request: después (worker, boundedElastic) ya no hay contexto de seguridad
+        return new VentaPreparada(evento, ubicaciones, sinFilaLocal, SecurityUtils.getCurrentUserLogin().orElse(null));
+    }
+
+    /**
+     * Valida la forma de los asientos pedidos (sin tocar la DB) y devuelve sus ubicaciones.
+     */
+    private List<AsientoUbicacionDTO> validarForma(VentaRequestFrontendDTO request) {
+        List<AsientoUbicacionDTO> ubicaciones = new ArrayList<>(request.getAsientos().size());
 
         for (VentaAsientoFrontendDTO asientoReq : request.getAsientos()) {
 
@@ -159,8 +476,32 @@ public class VentaSyncService {
                 throw new IllegalArgumentException("Cada asiento debe incluir persona (payload 7).");
             }
 
-            String key = asientoReq.getFila() + "-" + asientoReq.getColumna();
-            AsientoEstadoDTO estadoDto = mapaEstado.get(key);
+            ubicaciones.add(new AsientoUbicacionDTO(asientoReq.getFila(), asientoReq.getColumna()));
+        }
+
+        return ubicaciones;
+    }
+
+    /**
+     * Valida contra Redis (vía proxy, sin bloquear) que todos los asientos pedidos estén BLOQUEADO_VIGENTE.
+     */
+    private Mono<Void> validarEstadoRedisAsync(Evento evento, List<AsientoUbicacionDTO> ubicaciones) {
+        return Mono.defer(() -> {
+            Timer.Sample muestra = Timer.start();
+            // 3) Obtener estados en tiempo real SOLO de los asientos pedidos (Redis vía proxy)
+            return asientoEstadoService
+                .obtenerEstadosAsientosAsync(evento, ubicaciones)
+                .doFinally(senal -> muestra.stop(timerEstadoRedis))
+                .doOnNext(mapaEstado -> validarEstados(mapaEstado, ubicaciones))
+                .then();
+        });
+    }
+
+    private void validarEstados(Map<AsientoUbicacionDTO, AsientoEstadoDTO> mapaEstado, List<AsientoUbicacionDTO> ubicaciones) {
+        // 4) Validar estado de los asientos solicitados
+        for (AsientoUbicacionDTO asientoReq : ubicaciones) {
+
+            AsientoEstadoDTO estadoDto = mapaEstado.get(asientoReq);
 
             if (estadoDto == null) {
                 throw new IllegalStateException(
@@ -182,51 +523,17 @@ public class VentaSyncService {
                         ") no está bloqueado vigente. Estado actual: " + estado
                 );
             }
-
-            Asiento asiento = asientoRepository
-                .findByEventoIdAndFilaAndColumna(eventoIdLocal, asientoReq.getFila(), asientoReq.getColumna())
-                .orElseThrow(() -> new IllegalStateException(
-                    "Asiento persistido no encontrado (eventoIdLocal=" + eventoIdLocal + ")"
-                ));
-
-            asientosPersistidos.add(asiento);
         }
+    }
 
-        // 4) Calcular total
-        int cantidadAsientos = asientosPersistidos.size();
-        BigDecimal total = evento.getPrecioEntrada()
-            .multiply(BigDecimal.valueOf(cantidadAsientos));
-
-        // 5) Construir request para la cátedra (externalId)
-        ProxyVentaRequestDTO requestProxy = new ProxyVentaRequestDTO();
-        requestProxy.setEventoId(evento.getExternalId());
-        requestProxy.setFecha(Instant.now());
-        requestProxy.setPrecioVenta(total);
-        requestProxy.setAsientos(request.getAsientos());
-
-        log.info(
-            "💸 [Sync-Venta] Enviando venta al proxy eventoIdLocal={} externalId={} total={}",
-            eventoIdLocal,
-            evento.getExternalId(),
-            total
-        );
-
-        // 6) Confirmar venta con la cátedra
-        ProxyVentaResponseDTO resp =
-            proxyService.crearVentaEnProxy(evento.getExternalId(), requestProxy);
-
-        if (resp == null) {
-            throw new IllegalStateException(
-                "No se pudo confirmar la venta con la cátedra (respuesta nula)."
-            );
-        }
+    /**
+     * Fase de persistencia: Venta + asientos VENDIDO, en una transacción corta.
+     */
+    private Venta persistirVenta(VentaPreparada preparada, ProxyVentaResponseDTO resp) {
+        Long eventoIdLocal = preparada.evento().getId();
 
-        if (Boolean.FALSE.equals(resp.getResultado())) {
-            log.warn("⛔ [Sync-Venta] Venta rechazada por cátedra: {}", resp.getDescripcion());
-            return resp;
-        }
+        List<Asiento> asientosPersistidos = resolverAsientos(preparada);
 
-        // 7) Persistir venta local
         Venta venta = new Venta();
         venta.setExternalId(resp.getVentaId());
         venta.setEstado(VentaEstado.CONFIRMADA);
@@ -237,9 +544,10 @@ public class VentaSyncService {
         );
         venta.setDescripcion(resp.getDescripcion());
         venta.setPrecioVenta(resp.getPrecioVenta());
-        venta.setCantidadAsientos(cantidadAsientos);
-        venta.setEvento(evento);
+        venta.setCantidadAsientos(asientosPersistidos.size());
+        venta.setEvento(eventoRepository.getReferenceById(eventoIdLocal));
         venta.getAsientos().addAll(asientosPersistidos);
+        venta.setComprador(preparada.comprador());
 
         ventaRepository.save(venta);
 
@@ -248,13 +556,303 @@ public class VentaSyncService {
         }
         asientoRepository.saveAll(asientosPersistidos);
 
-        log.info(
-            "💾 [Sync-Venta] Venta persistida idLocal={} externalId={} asientos={}",
+        // Evento de venta confirmada para Kafka, en la misma transacción (outbox)
+        ventaOutboxService.registrarVentaConfirmada(venta, preparada.evento().getExternalId());
+
+        return venta;
+    }
+
+    /**
+     * Venta asíncrona: Venta PENDIENTE con sus asientos (todavía no VENDIDO) y el request original.
+     */
+    private Venta persistirPendiente(VentaPreparada preparada, VentaRequestFrontendDTO request) {
+        List<Asiento> asientos = resolverAsientos(preparada);
+
+        Venta venta = new Venta();
+        venta.setEstado(VentaEstado.PENDIENTE);
+        venta.setFechaVenta(LocalDate.now());
+        venta.setPrecioVenta(preparada.evento().getPrecioEntrada().multiply(BigDecimal.valueOf(asientos.size())));
+        venta.setCantidadAsientos(asientos.size());
+        venta.setEvento(eventoRepository.getReferenceById(preparada.evento().getId()));
+        venta.getAsientos().addAll(asientos);
+        venta.setSolicitud(escribirSolicitud(request));
+        venta.setComprador(preparada.comprador());
+
+        return ventaRepository.save(venta);
+    }
+
+    /**
+     * Lee una venta PENDIENTE y arma lo necesario para confirmarla. null si ya no está PENDIENTE.
+     */
+    private Pendiente cargarPendiente(Long ventaId) {
+        Venta venta = ventaRepository.findById(ventaId).orElse(null);
+        if (venta == null || venta.getEstado() != VentaEstado.PENDIENTE) {
+            return null;
+        }
+
+        VentaRequestFrontendDTO solicitud = leerSolicitud(venta.getSolicitud());
+        List<AsientoUbicacionDTO> ubicaciones = new ArrayList<>(venta.getAsientos().size());
+        String motivoRechazo = null;
+        for (Asiento asiento : venta.getAsientos()) {
+            ubicaciones.add(new AsientoUbicacionDTO(asiento.getFila(), asiento.getColumna()));
+            if (asiento.getEstado() == AsientoEstado.VENDIDO) {
+                motivoRechazo = "Asiento (" + asiento.getFila() + "," + asiento.getColumna() + ") ya está vendido.";
+            }
+        }
+
+        Evento evento = venta.getEvento();
+        ProxyVentaRequestDTO requestProxy = new ProxyVentaRequestDTO();
+        requestProxy.setEventoId(evento.getExternalId());
+        requestProxy.setFecha(Instant.now());
+        requestProxy.setPrecioVenta(venta.getPrecioVenta());
+        requestProxy.setAsientos(solicitud.getAsientos());
+
+        return new Pendiente(evento.getId(), evento.getExternalId(), ubicaciones, requestProxy, motivoRechazo, venta.getEnviadaCatedraEn());
+    }
+
+    /**
+     * Decide una venta PENDIENTE ya enviada a la cátedra mirando sus asientos en el Redis de la cátedra:
+     * - todos VENDIDO → la cátedra la registró (nadie más puede vender asientos que esta venta tiene
+     *   bloqueados): CONFIRMADA, sin id de venta de la cátedra.
+     * - alguno todavía BLOQUEADO vigente → la venta pudo seguir en curso: queda PENDIENTE y se vuelve
+     *   a conciliar más tarde (VentaAsyncProcesador).
+     * - si no → el bloqueo venció sin venta: RECHAZADA.
+     * Si el proxy no responde tampoco se decide nada.
+     */
+    private void conciliarConCatedra(Long ventaId, Pendiente pendiente) {
+        Evento evento = txLectura.execute(status -> eventoRepository.findById(pendiente.eventoIdLocal()).orElse(null));
+        Map<AsientoUbicacionDTO, AsientoEstadoService.EstadoEnCatedra> estados = evento == null
+            ? null
+            : asientoEstadoService.obtenerEstadosAsientosSiResponde(evento, pendiente.ubicaciones()).block();
+        if (estados == null || estados.size() != pendiente.ubicaciones().size()) {
+            log.warn("⚠️ [Sync-Venta] No se pudo leer el estado en la cátedra ticket={}; se concilia más tarde", ventaId);
+            return;
+        }
+
+        boolean todosVendidos = estados.values().stream().allMatch(e -> "VENDIDO".equals(e.estado().getEstado()));
+        boolean algunoBloqueado = estados.values().stream().anyMatch(e -> "BLOQUEADO_VIGENTE".equals(e.estado().getEstado()));
+
+        if (todosVendidos) {
+            // Vendidos no alcanza: si nuestro bloqueo venció, otro comprador pudo quedarse con los asientos
+            Map<String, String> personas = personasPedidas(pendiente.requestProxy());
+            boolean sinPersona = false;
+            boolean deOtro = false;
+            for (Map.Entry<AsientoUbicacionDTO, AsientoEstadoService.EstadoEnCatedra> e : estados.entrySet()) {
+                String remota = e.getValue().personaActual();
+                if (remota == null || remota.isBlank()) {
+                    sinPersona = true;
+                } else if (!mismaPersona(remota, personas.get(claveAsiento(e.getKey())))) {
+                    deOtro = true;
+                }
+            }
+            if (deOtro) {
+                log.warn("🔁 [Sync-Venta] ticket={} conciliada: la cátedra vendió los asientos a otra persona", ventaId);
+                txEscritura.executeWithoutResult(status ->
+                    resolverPendiente(ventaId, null, "La cátedra vendió los asientos a otra persona (el bloqueo venció).")
+                );
+                return;
+            }
+            if (sinPersona) {
+                log.warn("⚠️ [Sync-Venta] ticket={} con asientos vendidos pero sin persona en la cátedra; no se puede atribuir, se concilia más tarde", ventaId);
+                return;
+            }
+
+            ProxyVentaResponseDTO conciliada = new ProxyVentaResponseDTO();
+            conciliada.setResultado(true);
+            conciliada.setEventoId(pendiente.externalId());
+            conciliada.setDescripcion("Confirmada por conciliación con la cátedra (asientos vendidos a la misma persona).");
+            log.info("🔁 [Sync-Venta] ticket={} conciliada: la cátedra tiene los asientos vendidos a nuestro comprador", ventaId);
+            txEscritura.executeWithoutResult(status -> resolverPendiente(ventaId, conciliada, null));
+        } else if (algunoBloqueado) {
+            log.info("🔁 [Sync-Venta] ticket={} sin resolver en la cátedra (asientos bloqueados); se concilia más tarde", ventaId);
+        } else {
+            log.info("🔁 [Sync-Venta] ticket={} conciliada: el bloqueo venció sin venta en la cátedra", ventaId);
+            txEscritura.executeWithoutResult(status ->
+                resolverPendiente(ventaId, null, "La cátedra no registró la venta (el bloqueo venció).")
+            );
+        }
+    }
+
+    /**
+     * Persona pedida para cada asiento (clave "fila-columna") en el request enviado a la cátedra.
+     */
+    private static Map<String, String> personasPedidas(ProxyVentaRequestDTO requestProxy) {
+        Map<String, String> personas = new HashMap<>();
+        if (requestProxy != null && requestProxy.getAsientos() != null) {
+            for (VentaAsientoFrontendDTO a : requestProxy.getAsientos()) {
+                personas.put(a.getFila() + "-" + a.getColumna(), a.getPersona());
+            }
+        }
+        return personas;
+    }
+
+    private static String claveAsiento(AsientoUbicacionDTO u) {
+        return u.getFila() + "-" + u.getColumna();
+    }
+
+    private static boolean mismaPersona(String remota, String pedida) {
+        return pedida != null && remota.strip().equalsIgnoreCase(pedida.strip());
+    }
+
+    private void marcarEnviada(Long ventaId) {
+        ventaRepository.findById(ventaId).ifPresent(venta -> {
+            venta.setEnviadaCatedraEn(Instant.now());
+            ventaRepository.save(venta);
+        });
+    }
+
+    /**
+     * Cierra una venta PENDIENTE: CONFIRMADA si la cátedra aceptó, RECHAZADA en cualquier otro caso.
+     */
+    private void resolverPendiente(Long ventaId, ProxyVentaResponseDTO resp, String motivo) {
+        Venta venta = ventaRepository.findById(ventaId).orElse(null);
+        if (venta == null || venta.getEstado() != VentaEstado.PENDIENTE) {
+            return;
+        }
+
+        venta.setSolicitud(null);
+        if (resp != null && Boolean.TRUE.equals(resp.getResultado())) {
+            venta.setEstado(VentaEstado.CONFIRMADA);
+            venta.setExternalId(resp.getVentaId());
+            if (resp.getFechaVenta() != null) {
+                venta.setFechaVenta(resp.getFechaVenta().atZone(ZoneId.systemDefault()).toLocalDate());
+            }
+            venta.setDescripcion(resp.getDescripcion());
+            if (resp.getPrecioVenta() != null) {
+                venta.setPrecioVenta(resp.getPrecioVenta());
+            }
+            for (Asiento a : venta.getAsientos()) {
+                a.setEstado(AsientoEstado.VENDIDO);
+            }
+            asientoRepository.saveAll(venta.getAsientos());
+            ventaOutboxService.registrarVentaConfirmada(venta, venta.getEvento().getExternalId());
+            log.info("💾 [Sync-Venta] Venta asíncrona CONFIRMADA ticket={} externalId={}", ventaId, resp.getVentaId());
+        } else {
+            venta.setEstado(VentaEstado.RECHAZADA);
+            venta.setDescripcion(resp != null ? resp.getDescripcion() : motivo);
+            log.warn("⛔ [Sync-Venta] Venta asíncrona RECHAZADA ticket={}: {}", ventaId, venta.getDescripcion());
+        }
+        ventaRepository.save(venta);
+    }
+
+    private static VentaTicketDTO ticket(Venta venta, Long externalIdEvento) {
+        return new VentaTicketDTO(
             venta.getId(),
+            externalIdEvento,
+            venta.getEstado(),
             venta.getExternalId(),
-            cantidadAsientos
+            venta.getDescripcion(),
+            venta.getPrecioVenta(),
+            venta.getCantidadAsientos()
+        );
+    }
+
+    private String escribirSolicitud(VentaRequestFrontendDTO request) {
+        try {
+            return objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la solicitud de venta", e);
+        }
+    }
+
+    private VentaRequestFrontendDTO leerSolicitud(String json) {
+        try {
+            return objectMapper.readValue(json, VentaRequestFrontendDTO.class);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            throw new IllegalStateException("Solicitud de venta pendiente ilegible", e);
+        }
+    }
+
+    /**
+     * Filas de los asientos de la venta (creando las que falten en bajo-demanda), en el orden pedido.
+     * Debe llamarse dentro de la transacción de escritura.
+     */
+    private List<Asiento> resolverAsientos(VentaPreparada preparada) {
+        Long eventoIdLocal = preparada.evento().getId();
+
+        // Modo bajo-demanda: crear las filas que faltaban (insert atómico por la restricción única)
+        for (AsientoUbicacionDTO ubicacion : preparada.sinFilaLocal()) {
+            materializarAsiento(eventoIdLocal, ubicacion);
+        }
+
+        // Una sola consulta para traer todos los asientos de la venta
+        Map<AsientoUbicacionDTO, Asiento> porUbicacion = buscarAsientos(eventoIdLocal, preparada.ubicaciones());
+        List<Asiento> asientosPersistidos = new ArrayList<>(preparada.ubicaciones().size());
+        for (AsientoUbicacionDTO ubicacion : preparada.ubicaciones()) {
+            Asiento asiento = porUbicacion.get(ubicacion);
+            if (asiento == null) {
+                throw new IllegalStateException(
+                    "Asiento persistido no encontrado (eventoIdLocal=" + eventoIdLocal + ")"
+                );
+            }
+            asientosPersistidos.add(asiento);
+        }
+        return asientosPersistidos;
+    }
+
+    private void validarDentroDeGrilla(Evento evento, AsientoUbicacionDTO ubicacion) {
+        if (
+            asientosBajoDemanda &&
+            (ubicacion.getFila() > evento.getFilaAsientos() || ubicacion.getColumna() > evento.getColumnaAsientos())
+        ) {
+            throw new IllegalStateException(
+                "Asiento (" + ubicacion.getFila() + "," + ubicacion.getColumna() + ") fuera de la grilla del evento."
+            );
+        }
+    }
+
+    /**
+     * Modo bajo-demanda: crea la fila del asiento al venderlo
+     * (insert atómico protegido por la restricción única evento/fila/columna).
+     */
+    private void materializarAsiento(Long eventoIdLocal, AsientoUbicacionDTO ubicacion) {
+        int creados = asientoRepository.insertarSiNoExiste(eventoIdLocal, ubicacion.getFila(), ubicacion.getColumna());
+        log.debug(
+            "🧩 [Sync-Venta] Asiento ({},{}) materializado bajo demanda eventoIdLocal={} (nuevo={})",
+            ubicacion.getFila(), ubicacion.getColumna(), eventoIdLocal, creados > 0
         );
+    }
+
+    /**
+     * Resuelve todos los asientos pedidos con UNA consulta (join contra unnest de filas/columnas),
+     * en lugar de un SELECT por asiento. Las ubicaciones sin fila local no aparecen en el mapa.
+     */
+    private Map<AsientoUbicacionDTO, Asiento> buscarAsientos(Long eventoIdLocal, List<AsientoUbicacionDTO> ubicaciones) {
+        Integer[] filas = new Integer[ubicaciones.size()];
+        Integer[] columnas = new Integer[ubicaciones.size()];
+        for (int i = 0; i < ubicaciones.size(); i++) {
+            filas[i] = ubicaciones.get(i).getFila();
+            columnas[i] = ubicaciones.get(i).getColumna();
+        }
 
-        return resp;
+        Map<AsientoUbicacionDTO, Asiento> porUbicacion = new HashMap<>();
+        for (Asiento asiento : asientoRepository.findByEventoIdAndUbicaciones(eventoIdLocal, filas, columnas)) {
+            porUbicacion.put(new AsientoUbicacionDTO(asiento.getFila(), asiento.getColumna()), asiento);
+        }
+        return porUbicacion;
     }
+
+    /**
+     * Venta PENDIENTE lista para confirmar. motivoRechazo != null si ya no puede venderse;
+     * enviadaCatedraEn != null si un intento anterior ya la envió a la cátedra.
+     */
+    private record Pendiente(
+        Long eventoIdLocal,
+        Long externalId,
+        List<AsientoUbicacionDTO> ubicaciones,
+        ProxyVentaRequestDTO requestProxy,
+        String motivoRechazo,
+        Instant enviadaCatedraEn
+    ) {}
+
+    /**
+     * Resultado de la fase de validación. sinFilaLocal son los asientos que todavía
+     * no tienen fila en la base (solo en modo bajo-demanda); comprador es el login del request.
+     */
+    private record VentaPreparada(
+        Evento evento,
+        List<AsientoUbicacionDTO> ubicaciones,
+        List<AsientoUbicacionDTO> sinFilaLocal,
+        String comprador
+    ) {}
 }
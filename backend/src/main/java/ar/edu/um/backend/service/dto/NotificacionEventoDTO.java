@@ -0,0 +1,20 @@
+package ar.edu.um.backend.service.dto;
+import lombok.*;
+import java.io.Serializable;
+import java.util.List;
+/**
+ * Notificación del proxy cuando la cátedra informa cambios por Kafka (eventos-actualizacion).
+ *
+ * - eventoIds: externalIds afectados.
+ * - tipo: tipo de cambio informado por la cátedra (informativo).
+ * - global: true si el proxy no pudo identificar el evento → sync completo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificacionEventoDTO implements Serializable {
+
+    private List<Long> eventoIds;
+    private String tipo;
+    private boolean global;
+}
@@ -0,0 +1,27 @@
+package ar.edu.um.backend.service.dto;
+import lombok.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+/**
+ * Evento publicado en Kafka (vía outbox) por cada venta confirmada.
+ *
+ * - ventaIdLocal: clave de deduplicación para los consumidores (la entrega es at-least-once).
+ * - ventaId / eventoId: ids de la cátedra.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VentaConfirmadaEventoDTO implements Serializable {
+
+    private Long ventaIdLocal;
+    private Long ventaId;
+    private Long eventoId;
+    private LocalDate fechaVenta;
+    private BigDecimal precioVenta;
+    private Integer cantidadAsientos;
+    private List<AsientoUbicacionDTO> asientos;
+    private Instant confirmadaEn;
+}
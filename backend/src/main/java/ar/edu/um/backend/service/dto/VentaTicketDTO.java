@@ -0,0 +1,25 @@
+package ar.edu.um.backend.service.dto;
+import ar.edu.um.backend.domain.enumeration.VentaEstado;
+import lombok.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+/**
+ * Estado de una venta asíncrona (modo ticket).
+ *
+ * - ticket: id local de la venta; con él se consulta GET /api/ventas/tickets/{ticket}.
+ * - estado: PENDIENTE mientras el worker espera a la cátedra; luego CONFIRMADA o RECHAZADA.
+ * - ventaId: id de la venta en la cátedra (solo CONFIRMADA).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VentaTicketDTO implements Serializable {
+
+    private Long ticket;
+    private Long eventoId; // externalId del evento
+    private VentaEstado estado;
+    private Long ventaId;
+    private String descripcion;
+    private BigDecimal precioVenta;
+    private Integer cantidadAsientos;
+}
@@ -3,24 +3,37 @@ import ar.edu.um.backend.domain.Evento;
 import ar.edu.um.backend.repository.EventoRepository;
 import ar.edu.um.backend.service.AsientoBloqueoService;
 import ar.edu.um.backend.service.AsientoEstadoService;
+import ar.edu.um.backend.service.AsientosStreamService;
 import ar.edu.um.backend.service.EventoService;
 import ar.edu.um.backend.service.EventoSyncService;
+import ar.edu.um.backend.service.GrillaAsientos;
+import ar.edu.um.backend.service.IdempotenciaService;
 import ar.edu.um.backend.service.dto.*;
 import ar.edu.um.backend.web.rest.errors.BadRequestAlertException;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.ResponseUtil;
 
@@ -30,6 +43,7 @@ import tech.jhipster.web.util.ResponseUtil;
  * Además de los endpoints CRUD generados por JHipster, expone:
  *  - GET  /api/eventos/{id}/asientos  → estado de asientos en tiempo real
  *    (DB local + Redis vía proxy).
+ *  - GET  /api/eventos/{id}/asientos/stream → mismo mapa por SSE (snapshot + deltas).
  *  - POST /api/eventos/{id}/bloqueos → bloqueo de asientos (Payload 6).
  *
  * También administra la sincronización manual de eventos entre:
@@ -56,19 +70,28 @@ public class EventoResource {
     private final AsientoEstadoService asientoEstadoService;
     private final AsientoBloqueoService asientoBloqueoService;
     private final EventoSyncService eventoSyncService;
+    private final AsientosStreamService asientosStreamService;
+    private final IdempotenciaService idempotenciaService;
+    private final ObjectMapper objectMapper;
 
     public EventoResource(
         EventoService eventoService,
         EventoRepository eventoRepository,
         AsientoEstadoService asientoEstadoService,
         AsientoBloqueoService asientoBloqueoService,
-        EventoSyncService eventoSyncService
+        EventoSyncService eventoSyncService,
+        AsientosStreamService asientosStreamService,
+        IdempotenciaService idempotenciaService,
+        ObjectMapper objectMapper
     ) {
         this.eventoService = eventoService;
         this.eventoRepository = eventoRepository;
         this.asientoEstadoService = asientoEstadoService;
         this.asientoBloqueoService = asientoBloqueoService;
         this.eventoSyncService = eventoSyncService;
+        this.asientosStreamService = asientosStreamService;
+        this.idempotenciaService = idempotenciaService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -254,9 +277,13 @@ public class EventoResource {
      * - {id} = externalId (ID cátedra) → es el que vos usás desde /api/eventos/resumidos
      * - Internamente se busca el evento local por externalId para obtener idLocal y grilla
      * - Si probás con idLocal (ej: 1051) acá, va a fallar con "no sincronizado" porque NO es externalId
+     *
+     * Cache HTTP:
+     * - La respuesta lleva ETag = versión de la grilla (huella de Redis + bloqueos vencidos).
+     * - Si el cliente manda If-None-Match con esa versión → 304 sin serializar la grilla.
      */
-    @GetMapping("/{id}/asientos")
-    public ResponseEntity<List<AsientoEstadoDTO>> obtenerEstadoActualAsientos(@PathVariable Long id) {
+    @GetMapping(value = "/{id}/asientos", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> obtenerEstadoActualAsientos(@PathVariable Long id, WebRequest webRequest) {
         // id = externalId (por diseño de endpoints públicos)
         LOG.info("[EventoResource] GET /api/eventos/{}/asientos (externalId)", id);
 
@@ -267,8 +294,53 @@ public class EventoResource {
                 "Evento no sincronizado localmente. Ejecutá POST /api/eventos/sync-eventos y reintentá."
             ));
 
-        List<AsientoEstadoDTO> mapa = asientoEstadoService.obtenerEstadoActualDeAsientos(eventoLocal.getId());
-        return ResponseEntity.ok(mapa);
+        // Grilla compacta (reutilizada mientras Redis no cambie) → se serializa sin crear un DTO por asiento
+        GrillaAsientos grilla = asientoEstadoService.obtenerGrillaAsientos(eventoLocal.getId());
+        Instant ahora = Instant.now();
+
+        String etag = "\"" + grilla.version(ahora) + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            // 304 + ETag ya quedaron seteados en la respuesta
+            LOG.debug("[EventoResource] Asientos sin cambios externalId={} etag={} → 304", id, etag);
+            return null;
+        }
+
+        StreamingResponseBody body = out -> {
+            JsonGenerator gen = objectMapper.createGenerator(out, JsonEncoding.UTF8);
+            grilla.escribirJson(gen, ahora);
+            gen.flush();
+        };
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(CacheControl.noCache())
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(body);
+    }
+
+    /**
+     * GET  /api/eventos/{id}/asientos/stream
+     *
+     * Server-Sent Events con el mapa de asientos del evento:
+     * - event: snapshot → grilla completa (al conectarse, o si cambian las dimensiones del evento).
+     * - event: delta    → solo los asientos que cambiaron: [{fila, columna, estado, expira}, ...].
+     *
+     * Todos los suscriptores de un mismo evento comparten una única lectura periódica de Redis.
+     *
+     * IMPORTANTE:
+     * - {id} = externalId (ID cátedra), igual que /asientos.
+     */
+    @GetMapping(value = "/{id}/asientos/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEstadoAsientos(@PathVariable Long id) {
+        LOG.info("[EventoResource] GET /api/eventos/{}/asientos/stream (externalId)", id);
+
+        Evento eventoLocal = eventoRepository
+            .findByExternalId(id)
+            .orElseThrow(() -> new ResponseStatusException(
+                HttpStatus.BAD_REQUEST,
+                "Evento no sincronizado localmente. Ejecutá POST /api/eventos/sync-eventos y reintentá."
+            ));
+
+        return asientosStreamService.suscribir(eventoLocal.getId());
     }
 
     /**
@@ -292,11 +364,18 @@ public class EventoResource {
      *     { "fila": 2, "columna": 2 }
      *   ]
      * }
+     *
+     * El bloqueo real espera a la cátedra: se devuelve un CompletableFuture armado con las llamadas
+     * no bloqueantes al proxy, así ningún hilo (ni worker de Undertow ni de un pool) queda esperando.
+     *
+     * Header opcional Idempotency-Key: los reintentos con la misma clave reciben la respuesta
+     * original sin volver a llamar a la cátedra (ver IdempotenciaService).
      */
     @PostMapping("/{id}/bloqueos")
-    public ResponseEntity<AsientoBloqueoResponseDTO> bloquearAsientos(
+    public CompletableFuture<ResponseEntity<AsientoBloqueoResponseDTO>> bloquearAsientos(
         @PathVariable("id") Long externalId,
-        @RequestBody AsientoBloqueoRequestDTO request
+        @RequestBody AsientoBloqueoRequestDTO request,
+        @RequestHeader(value = IdempotenciaService.HEADER, required = false) String idempotencyKey
     ) {
         LOG.info("🔒 [Bloqueo] POST /api/eventos/{}/bloqueos (externalId) body={}", externalId, request);
 
@@ -315,13 +394,24 @@ public class EventoResource {
             );
         }
 
-        try {
-            AsientoBloqueoResponseDTO respuesta = asientoBloqueoService.bloquearAsientos(eventoLocal.getId(), request);
-            return ResponseEntity.ok(respuesta);
-        } catch (IllegalStateException e) {
-            LOG.warn("⚠️ [Bloqueo] Error de negocio externalId={}: {}", externalId, e.getMessage());
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
-        }
+        return idempotenciaService
+            .ejecutar(
+                "bloqueo:" + externalId,
+                idempotencyKey,
+                request,
+                AsientoBloqueoResponseDTO.class,
+                () -> asientoBloqueoService.bloquearAsientosAsync(eventoLocal.getId(), request)
+            )
+            .onErrorMap(IllegalStateException.class, e -> {
+                LOG.warn("⚠️ [Bloqueo] Error de negocio externalId={}: {}", externalId, e.getMessage());
+                return new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            })
+            .map(resultado ->
+                ResponseEntity.ok()
+                    .header(IdempotenciaService.HEADER_REPETIDA, String.valueOf(resultado.repetida()))
+                    .body(resultado.respuesta())
+            )
+            .toFuture();
     }
 
     /**
@@ -1,9 +1,12 @@
 package ar.edu.um.backend.web.rest;
 
-import ar.edu.um.backend.service.EventoSyncService;
+import ar.edu.um.backend.service.SyncEventosPlanificador;
 import ar.edu.um.backend.service.VentaSyncService;
+import ar.edu.um.backend.service.dto.NotificacionEventoDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,15 +20,18 @@ public class ProxyNotificationResource {
 
     private static final Logger log = LoggerFactory.getLogger(ProxyNotificationResource.class);
 
-    private final EventoSyncService eventoSyncService;
+    private final SyncEventosPlanificador syncEventosPlanificador;
     private final VentaSyncService ventaSyncService;
+    private final ObjectMapper objectMapper;
 
     public ProxyNotificationResource(
-        EventoSyncService eventoSyncService,
-        VentaSyncService ventaSyncService
+        SyncEventosPlanificador syncEventosPlanificador,
+        VentaSyncService ventaSyncService,
+        ObjectMapper objectMapper
     ) {
-        this.eventoSyncService = eventoSyncService;
+        this.syncEventosPlanificador = syncEventosPlanificador;
         this.ventaSyncService = ventaSyncService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -35,7 +41,10 @@ public class ProxyNotificationResource {
      *
      * Comportamiento actual:
      *  - Loguea el contenido recibido (si viene algo en el body).
-     *  - Dispara nuevamente la sincronización de eventos/asientos contra el proxy.
+     *  - Si el body es una NotificacionEventoDTO con eventoIds → sync dirigido solo a esos eventos.
+     *    Si no se puede interpretar (o es global) → sync completo.
+     *  - Encola la sincronización de eventos/asientos y responde 202 sin esperarla.
+     *    Varias notificaciones seguidas se agrupan en una sola corrida (ver SyncEventosPlanificador).
      */
     @PostMapping("/notificacion-evento")
     public ResponseEntity<String> recibirNotificacionEvento(@RequestBody(required = false) String body) {
@@ -47,11 +56,42 @@ public class ProxyNotificationResource {
             log.info("[Proxy-Backend] Notificación de evento sin body (se procede igual con la sincronización).");
         }
 
-        // Disparar la sincronización de eventos/asientos
-        eventoSyncService.sincronizarEventosDesdeProxy();
+        // Encolar la sincronización de eventos/asientos (no bloquea el request)
+        NotificacionEventoDTO notificacion = parsearNotificacion(body);
+        SyncEventosPlanificador.Estado estado = notificacion != null && !notificacion.isGlobal()
+            ? syncEventosPlanificador.solicitar(notificacion.getEventoIds())
+            : syncEventosPlanificador.solicitar();
 
-        return ResponseEntity.ok(
-            "{\"status\":\"ok\",\"mensaje\":\"Notificación de evento procesada y sincronización disparada\"}"
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(
+            "{\"status\":\"aceptado\",\"mensaje\":\"Sincronización encolada\",\"pendientes\":" + estado.pendientes() + "}"
         );
     }
+
+    private NotificacionEventoDTO parsearNotificacion(String body) {
+        if (body == null || body.isBlank()) {
+            return null;
+        }
+        try {
+            NotificacionEventoDTO notificacion = objectMapper.readValue(body, NotificacionEventoDTO.class);
+            log.info(
+                "[Proxy-Backend] Notificación dirigida: eventoIds={} tipo={} global={}",
+                notificacion.getEventoIds(), notificacion.getTipo(), notificacion.isGlobal()
+            );
+            return notificacion;
+        } catch (Exception e) {
+            log.warn("[Proxy-Backend] Body de notificación no interpretable, se hace sync completo: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * GET /api/proxy/sync-estado
+     *
+     * Estado del planificador de sincronización: notificaciones pendientes,
+     * si hay una corrida en curso y duración/resultado de la última.
+     */
+    @GetMapping("/sync-estado")
+    public ResponseEntity<SyncEventosPlanificador.Estado> estadoSync() {
+        return ResponseEntity.ok(syncEventosPlanificador.estado());
+    }
 }
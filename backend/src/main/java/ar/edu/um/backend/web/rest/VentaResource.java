@@ -3,11 +3,14 @@ import ar.edu.um.backend.domain.Evento;
 import ar.edu.um.backend.domain.Venta;
 import ar.edu.um.backend.repository.EventoRepository;
 import ar.edu.um.backend.repository.VentaRepository;
+import ar.edu.um.backend.service.IdempotenciaService;
+import ar.edu.um.backend.service.VentaAsyncProcesador;
 import ar.edu.um.backend.service.VentaService;
 import ar.edu.um.backend.service.VentaSyncService;
 import ar.edu.um.backend.service.dto.ProxyVentaResponseDTO;
 import ar.edu.um.backend.service.dto.VentaDTO;
 import ar.edu.um.backend.service.dto.VentaRequestFrontendDTO;
+import ar.edu.um.backend.service.dto.VentaTicketDTO;
 import ar.edu.um.backend.service.mapper.VentaMapper;
 import ar.edu.um.backend.web.rest.errors.BadRequestAlertException;
 import jakarta.validation.Valid;
@@ -17,13 +20,16 @@ import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.ResponseUtil;
 /**
@@ -35,6 +41,7 @@ import tech.jhipster.web.util.ResponseUtil;
  * - Un endpoint especial para iniciar una venta real de asientos,
  *   validando bloqueos en Redis y confirmando la operación con la cátedra
  *   a través del proxy.
+ * - Su variante asíncrona (venta-async) con ticket, y la consulta/stream del ticket.
  */
 @RestController
 @RequestMapping("/api/ventas")
@@ -51,13 +58,17 @@ public class VentaResource {
     private final EventoRepository  eventoRepository;
     private final VentaSyncService ventaSyncService;
     private final VentaMapper ventaMapper;
+    private final IdempotenciaService idempotenciaService;
+    private final VentaAsyncProcesador ventaAsyncProcesador;
 
-    public VentaResource(VentaService ventaService, VentaRepository ventaRepository, EventoRepository eventoRepository, VentaSyncService ventaSyncService, VentaMapper ventaMapper) {
+    public VentaResource(VentaService ventaService, VentaRepository ventaRepository, EventoRepository eventoRepository, VentaSyncService ventaSyncService, VentaMapper ventaMapper, IdempotenciaService idempotenciaService, VentaAsyncProcesador ventaAsyncProcesador) {
         this.ventaService = ventaService;
         this.ventaRepository = ventaRepository;
         this.eventoRepository = eventoRepository;
         this.ventaSyncService = ventaSyncService;
         this.ventaMapper = ventaMapper;
+        this.idempotenciaService = idempotenciaService;
+        this.ventaAsyncProcesador = ventaAsyncProcesador;
     }
 
     /**
@@ -171,11 +182,18 @@ public class VentaResource {
      * - {eventoId} = externalId (ID de la cátedra)
      * - El frontend SIEMPRE usa externalId
      * - Internamente se resuelve el idLocal para persistencia
+     *
+     * La confirmación espera a la cátedra: se devuelve un CompletableFuture armado con las llamadas
+     * no bloqueantes al proxy, así ningún hilo queda esperando la respuesta (ver VentaSyncService).
+     *
+     * Header opcional Idempotency-Key: un reintento con la misma clave recibe la respuesta
+     * de la venta original (Idempotent-Replayed: true) sin generar otra venta en la cátedra.
      */
     @PostMapping("/eventos/{eventoId}/venta")
-    public ResponseEntity<ProxyVentaResponseDTO> crearVentaParaEvento(
+    public CompletableFuture<ResponseEntity<ProxyVentaResponseDTO>> crearVentaParaEvento(
         @PathVariable("eventoId") Long externalId,
-        @Valid @RequestBody VentaRequestFrontendDTO request
+        @Valid @RequestBody VentaRequestFrontendDTO request,
+        @RequestHeader(value = IdempotenciaService.HEADER, required = false) String idempotencyKey
     ) {
         LOG.info("[Venta] Solicitud de venta recibida para eventoId={} (externalId)", externalId);
 
@@ -190,10 +208,81 @@ public class VentaResource {
         // 2) Setear idLocal en el request (lo que espera el service)
         request.setEventoId(eventoLocal.getId());
 
-        // 3) Delegar al service (firma correcta)
-        ProxyVentaResponseDTO resp = ventaSyncService.procesarVenta(request);
+        // 3) Delegar al service (firma correcta); el request queda en espera sin retener el worker
+        return idempotenciaService
+            .ejecutar(
+                "venta:" + externalId,
+                idempotencyKey,
+                request,
+                ProxyVentaResponseDTO.class,
+                () -> ventaSyncService.procesarVentaAsync(request)
+            )
+            .map(resultado ->
+                ResponseEntity.ok()
+                    .header(IdempotenciaService.HEADER_REPETIDA, String.valueOf(resultado.repetida()))
+                    .body(resultado.respuesta())
+            )
+            .toFuture();
+    }
+
+    /**
+     * POST /api/ventas/eventos/{eventoId}/venta-async :
+     * Igual que /venta pero sin esperar a la cátedra: valida, deja la venta PENDIENTE
+     * y responde 202 con el ticket (Location → GET /api/ventas/tickets/{ticket}).
+     *
+     * - {eventoId} = externalId (ID de la cátedra)
+     * - Acepta Idempotency-Key igual que /venta.
+     */
+    @PostMapping("/eventos/{eventoId}/venta-async")
+    public CompletableFuture<ResponseEntity<VentaTicketDTO>> crearVentaAsincronaParaEvento(
+        @PathVariable("eventoId") Long externalId,
+        @Valid @RequestBody VentaRequestFrontendDTO request,
+        @RequestHeader(value = IdempotenciaService.HEADER, required = false) String idempotencyKey
+    ) {
+        LOG.info("[Venta] Solicitud de venta asíncrona recibida para eventoId={} (externalId)", externalId);
+
+        Evento eventoLocal = eventoRepository
+            .findByExternalId(externalId)
+            .orElseThrow(() -> new ResponseStatusException(
+                HttpStatus.BAD_REQUEST,
+                "Evento no sincronizado localmente. Ejecutá POST /api/eventos/sync-eventos y reintentá."
+            ));
+        request.setEventoId(eventoLocal.getId());
+
+        // La validación consulta Redis vía proxy: tampoco retiene el worker del request
+        return idempotenciaService
+            .ejecutar(
+                "venta-async:" + externalId,
+                idempotencyKey,
+                request,
+                VentaTicketDTO.class,
+                () -> ventaAsyncProcesador.solicitarAsync(request)
+            )
+            .map(resultado ->
+                ResponseEntity.accepted()
+                    .location(URI.create("/api/ventas/tickets/" + resultado.respuesta().getTicket()))
+                    .header(IdempotenciaService.HEADER_REPETIDA, String.valueOf(resultado.repetida()))
+                    .body(resultado.respuesta())
+            )
+            .toFuture();
+    }
 
-        return ResponseEntity.ok(resp);
+    /**
+     * GET /api/ventas/tickets/{ticket} : estado de una venta (PENDIENTE, CONFIRMADA o RECHAZADA).
+     * Solo para el comprador (o un admin); la venta de otro responde 404.
+     */
+    @GetMapping("/tickets/{ticket}")
+    public ResponseEntity<VentaTicketDTO> getTicket(@PathVariable("ticket") Long ticket) {
+        return ResponseUtil.wrapOrNotFound(ventaSyncService.consultarTicketDelUsuario(ticket));
+    }
+
+    /**
+     * GET /api/ventas/tickets/{ticket}/stream : SSE con un único evento "estado" cuando la venta
+     * se resuelve (o enseguida, si ya estaba resuelta). Mismo control de dueño que getTicket.
+     */
+    @GetMapping(value = "/tickets/{ticket}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTicket(@PathVariable("ticket") Long ticket) {
+        return ventaAsyncProcesador.suscribir(ticket);
     }
 
 
@@ -0,0 +1,121 @@
+package ar.edu.um.backend.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ar.edu.um.backend.IntegrationTest;
+import ar.edu.um.backend.domain.Asiento;
+import ar.edu.um.backend.domain.Evento;
+import ar.edu.um.backend.service.GrillaAsientosMaterializador;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests de las consultas de {@link AsientoRepository} en los caminos de venta y sync:
+ * verifica con EXPLAIN que las resuelve el índice ux_asiento__evento_fila_columna.
+ */
+@IntegrationTest
+@Transactional
+class AsientoRepositoryIT {
+
+    private static final String INDICE_ASIENTO = "ux_asiento__evento_fila_columna";
+
+    @Autowired
+    private AsientoRepository asientoRepository;
+
+    @Autowired
+    private EventoRepository eventoRepository;
+
+    @Autowired
+    private GrillaAsientosMaterializador materializador;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Evento evento;
+
+    @BeforeEach
+    void initTest() {
+        evento = eventoRepository.saveAndFlush(
+            new Evento()
+                .titulo("Evento índices")
+                .fecha(LocalDate.ofEpochDay(0L))
+                .hora(LocalTime.NOON)
+                .filaAsientos(20)
+                .columnaAsientos(20)
+                .cantidadAsientosTotales(400)
+                .precioEntrada(BigDecimal.TEN)
+        );
+        materializador.crearGrilla(evento.getId(), 20, 20, Map.of());
+        // Con tablas chicas el planner prefiere seq scan; se desactiva para ver si el índice SIRVE
+        jdbcTemplate.execute("set local enable_seqscan = off");
+        jdbcTemplate.execute("analyze asiento");
+    }
+
+    @Test
+    void shouldUseCompositeIndexForSeatLookup() {
+        assertThat(plan("select * from asiento where evento_id = ? and fila = 3 and columna = 7", evento.getId())).contains(
+            INDICE_ASIENTO
+        );
+    }
+
+    @Test
+    void shouldUseCompositeIndexForEventSeats() {
+        assertThat(plan("select * from asiento where evento_id = ?", evento.getId())).contains(INDICE_ASIENTO);
+        assertThat(plan("select * from asiento where evento_id = ? order by fila asc, columna asc", evento.getId()))
+            .contains(INDICE_ASIENTO)
+            .doesNotContain("Sort Key");
+    }
+
+    @Test
+    void shouldUseCompositeIndexForMultiSeatLookup() {
+        assertThat(
+            plan(
+                "select a.* from asiento a join unnest(cast(? as integer[]), cast(? as integer[])) as u(fila, columna) " +
+                "on a.fila = u.fila and a.columna = u.columna where a.evento_id = ?",
+                "{1,2,3}",
+                "{4,5,6}",
+                evento.getId()
+            )
+        ).contains(INDICE_ASIENTO);
+    }
+
+    @Test
+    void shouldIndexVentaAsientosJoinTableBySeat() {
+        assertThat(plan("select venta_id from rel_venta__asientos where asientos_id = ?", 1L)).contains(
+            "ix_rel_venta__asientos__asientos_id"
+        );
+    }
+
+    @Test
+    void shouldResolveRequestedSeatsInOneQuery() {
+        List<Asiento> asientos = asientoRepository.findByEventoIdAndUbicaciones(
+            evento.getId(),
+            new Integer[] { 1, 20, 7, 99 },
+            new Integer[] { 1, 20, 3, 1 }
+        );
+
+        assertThat(asientos)
+            .extracting(a -> a.getFila() + "-" + a.getColumna())
+            .containsExactlyInAnyOrder("1-1", "20-20", "7-3");
+    }
+
+    @Test
+    void shouldNotDuplicateSeatsWhenGridIsMaterializedTwice() {
+        int segundaVez = materializador.crearGrilla(evento.getId(), 20, 20, Map.of());
+
+        assertThat(segundaVez).isZero();
+        assertThat(asientoRepository.findByEventoId(evento.getId())).hasSize(400);
+    }
+
+    private String plan(String sql, Object... args) {
+        return String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class, args));
+    }
+}
@@ -0,0 +1,91 @@
+package ar.edu.um.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ar.edu.um.backend.domain.Evento;
+import ar.edu.um.backend.repository.EventoRepository;
+import ar.edu.um.backend.service.dto.AsientoEstadoDTO;
+import ar.edu.um.backend.service.dto.AsientoRequestDTO;
+import ar.edu.um.backend.service.dto.AsientoUbicacionDTO;
+import ar.edu.um.backend.service.dto.ProxyEstadoAsientosResponse;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import reactor.core.publisher.Mono;
+
+class AsientoEstadoServiceTest {
+
+    private static final Long EVENTO_ID_LOCAL = 1051L;
+    private static final Long EXTERNAL_ID = 7L;
+
+    private EventoRepository eventoRepository;
+    private ProxyService proxyService;
+    private AsientoEstadoService asientoEstadoService;
+    private Evento evento;
+
+    @BeforeEach
+    void setUp() {
+        eventoRepository = mock(EventoRepository.class);
+        proxyService = mock(ProxyService.class);
+        asientoEstadoService = new AsientoEstadoService(eventoRepository, proxyService, mock(RuedaVencimientosBloqueo.class));
+
+        evento = new Evento().id(EVENTO_ID_LOCAL).filaAsientos(10).columnaAsientos(10);
+        evento.setExternalId(EXTERNAL_ID);
+
+        List<AsientoRequestDTO> redis = List.of(
+            new AsientoRequestDTO(1, 1, null, "Vendido", null),
+            new AsientoRequestDTO(1, 2, null, "Bloqueado", Instant.now().plusSeconds(300)),
+            new AsientoRequestDTO(1, 3, null, "Bloqueado", Instant.now().minusSeconds(5))
+        );
+        when(proxyService.listarEstadoAsientosRedisAsync(anyLong(), anyCollection())).thenReturn(
+            Mono.just(new ProxyEstadoAsientosResponse(EXTERNAL_ID, redis))
+        );
+    }
+
+    @Test
+    void shouldResolveRequestedSeatsFromSingleTargetedRedisRead() {
+        List<AsientoUbicacionDTO> pedidos = List.of(
+            new AsientoUbicacionDTO(1, 1),
+            new AsientoUbicacionDTO(1, 2),
+            new AsientoUbicacionDTO(1, 3),
+            new AsientoUbicacionDTO(5, 5),
+            new AsientoUbicacionDTO(11, 1)
+        );
+
+        Map<AsientoUbicacionDTO, AsientoEstadoDTO> estados = asientoEstadoService.obtenerEstadosAsientos(evento, pedidos);
+
+        assertThat(estados).hasSize(4);
+        assertThat(estados.get(pedidos.get(0)).getEstado()).isEqualTo("VENDIDO");
+        assertThat(estados.get(pedidos.get(1)).getEstado()).isEqualTo("BLOQUEADO_VIGENTE");
+        assertThat(estados.get(pedidos.get(2)).getEstado()).isEqualTo("BLOQUEADO_EXPIRADO");
+        assertThat(estados.get(pedidos.get(3)).getEstado()).isEqualTo("LIBRE");
+        assertThat(estados).doesNotContainKey(pedidos.get(4));
+        verify(proxyService, times(1)).listarEstadoAsientosRedisAsync(eq(EXTERNAL_ID), anyCollection());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 4, 25, 100 })
+    void shouldCostOneTargetedProxyCallRegardlessOfSeatCount(int cantidad) {
+        List<AsientoUbicacionDTO> pedidos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            pedidos.add(new AsientoUbicacionDTO(i / 10 + 1, i % 10 + 1));
+        }
+
+        Map<AsientoUbicacionDTO, AsientoEstadoDTO> estados = asientoEstadoService.obtenerEstadosAsientos(evento, pedidos);
+
+        assertThat(estados).hasSize(cantidad);
+        verify(proxyService, times(1)).listarEstadoAsientosRedisAsync(eq(EXTERNAL_ID), anyCollection());
+    }
+}
@@ -0,0 +1,44 @@
+package ar.edu.um.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import ar.edu.um.backend.domain.Evento;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AsientosSyncOrquestadorTest {
+
+    @Test
+    void shouldReportFailedEventWithoutAbortingTheRest() {
+        AsientoSyncService asientoSyncService = mock(AsientoSyncService.class);
+        doThrow(new IllegalStateException("proxy caído")).when(asientoSyncService).sincronizarAsientosDeEvento(any(), eq(2L));
+        AsientosSyncOrquestador orquestador = new AsientosSyncOrquestador(asientoSyncService, 2);
+
+        AsientosSyncOrquestador.Reporte reporte;
+        try {
+            reporte = orquestador.sincronizar(List.of(evento(1051L, 1L), evento(1052L, 2L), evento(1053L, 3L)));
+        } finally {
+            orquestador.cerrar();
+        }
+
+        verify(asientoSyncService, times(3)).sincronizarAsientosDeEvento(any(), any());
+        assertThat(reporte.resultados()).hasSize(3);
+        assertThat(reporte.exitosos()).isEqualTo(2);
+        assertThat(reporte.fallidosDetalle()).singleElement().satisfies(r -> {
+            assertThat(r.externalId()).isEqualTo(2L);
+            assertThat(r.error()).isEqualTo("proxy caído");
+        });
+    }
+
+    private static Evento evento(Long id, Long externalId) {
+        Evento evento = new Evento().id(id);
+        evento.setExternalId(externalId);
+        return evento;
+    }
+}
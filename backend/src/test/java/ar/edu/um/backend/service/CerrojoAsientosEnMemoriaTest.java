@@ -0,0 +1,102 @@
+package ar.edu.um.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ar.edu.um.backend.service.dto.AsientoUbicacionDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+
+class CerrojoAsientosEnMemoriaTest {
+
+    private static final Long EVENTO = 1051L;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CerrojoAsientosEnMemoria cerrojo;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cerrojo = new CerrojoAsientosEnMemoria(meterRegistry, 1024, 100);
+    }
+
+    @Test
+    void shouldRejectOverlappingSaleAfterWaiting() throws Exception {
+        try (CerrojoAsientos.Permiso permiso = cerrojo.adquirir(EVENTO, List.of(u(1, 1), u(1, 2)))) {
+            CompletableFuture<Void> otra = CompletableFuture.runAsync(() -> cerrojo.adquirir(EVENTO, List.of(u(1, 2), u(3, 3))));
+
+            assertThatThrownBy(otra::join).hasCauseInstanceOf(CannotAcquireLockException.class);
+        }
+
+        assertThat(meterRegistry.get(CerrojoAsientos.METRICA_RECHAZOS).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(CerrojoAsientos.METRICA_CONTENCION).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldQueueOverlappingSaleUntilReleased() throws Exception {
+        CerrojoAsientosEnMemoria paciente = new CerrojoAsientosEnMemoria(meterRegistry, 1024, 5_000);
+        CerrojoAsientos.Permiso primero = paciente.adquirir(EVENTO, List.of(u(2, 2)));
+
+        CountDownLatch obtuvo = new CountDownLatch(1);
+        CompletableFuture<Void> segunda = CompletableFuture.runAsync(() -> {
+            try (CerrojoAsientos.Permiso permiso = paciente.adquirir(EVENTO, List.of(u(2, 2)))) {
+                obtuvo.countDown();
+            }
+        });
+
+        assertThat(obtuvo.await(100, TimeUnit.MILLISECONDS)).isFalse();
+        primero.close();
+        assertThat(obtuvo.await(2, TimeUnit.SECONDS)).isTrue();
+        segunda.get(2, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void shouldReleaseFromAnotherThread() throws Exception {
+        CerrojoAsientos.Permiso permiso = cerrojo.adquirir(EVENTO, List.of(u(6, 6)));
+
+        // Venta asíncrona: la respuesta de la cátedra (y el close) llega en otro hilo
+        CompletableFuture.runAsync(permiso::close).get(2, TimeUnit.SECONDS);
+
+        try (CerrojoAsientos.Permiso otro = cerrojo.adquirir(EVENTO, List.of(u(6, 6)))) {
+            assertThat(meterRegistry.find(CerrojoAsientos.METRICA_RECHAZOS).counter().count()).isZero();
+        }
+    }
+
+    @Test
+    void shouldNotDeadlockWhenSeatsAreRequestedInOppositeOrder() throws Exception {
+        List<AsientoUbicacionDTO> ida = List.of(u(1, 1), u(5, 5), u(9, 9));
+        List<AsientoUbicacionDTO> vuelta = List.of(u(9, 9), u(5, 5), u(1, 1));
+        CerrojoAsientosEnMemoria paciente = new CerrojoAsientosEnMemoria(meterRegistry, 1024, 5_000);
+
+        CompletableFuture<Void> a = CompletableFuture.runAsync(() -> repetir(paciente, ida));
+        CompletableFuture<Void> b = CompletableFuture.runAsync(() -> repetir(paciente, vuelta));
+
+        CompletableFuture.allOf(a, b).get(10, TimeUnit.SECONDS);
+        assertThat(meterRegistry.find(CerrojoAsientos.METRICA_RECHAZOS).counter().count()).isZero();
+    }
+
+    @Test
+    void shouldIgnoreDuplicatedSeatsInTheSameSale() {
+        try (CerrojoAsientos.Permiso permiso = cerrojo.adquirir(EVENTO, List.of(u(4, 4), u(4, 4)))) {
+            assertThat(CerrojoAsientos.ordenCanonico(List.of(u(4, 4), u(1, 9), u(4, 4)))).containsExactly(u(1, 9), u(4, 4));
+        }
+    }
+
+    private static void repetir(CerrojoAsientos cerrojo, List<AsientoUbicacionDTO> ubicaciones) {
+        for (int i = 0; i < 500; i++) {
+            try (CerrojoAsientos.Permiso permiso = cerrojo.adquirir(EVENTO, ubicaciones)) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private static AsientoUbicacionDTO u(int fila, int columna) {
+        return new AsientoUbicacionDTO(fila, columna);
+    }
+}
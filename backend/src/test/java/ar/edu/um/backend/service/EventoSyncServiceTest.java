@@ -0,0 +1,110 @@
+package ar.edu.um.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ar.edu.um.backend.domain.Evento;
+import ar.edu.um.backend.repository.EventoRepository;
+import ar.edu.um.backend.service.dto.ProxyEventoDetalleDTO;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class EventoSyncServiceTest {
+
+    @Test
+    void shouldUpsertWholeCatalogueWithConstantRepositoryCalls() {
+        EventoRepository eventoRepository = mock(EventoRepository.class);
+        ProxyService proxyService = mock(ProxyService.class);
+        AsientosSyncOrquestador orquestador = mock(AsientosSyncOrquestador.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        EventoSyncService service = new EventoSyncService(proxyService, eventoRepository, orquestador, transactionTemplate);
+
+        Evento existente = new Evento().id(1051L).titulo("Viejo").activo(true);
+        existente.setExternalId(1L);
+        Evento obsoleto = new Evento().id(1052L).titulo("Ya no está").activo(true);
+        obsoleto.setExternalId(99L);
+
+        when(proxyService.listarEventosCompletos()).thenReturn(
+            List.of(remoto(1L, "Actualizado", 10, 10), remoto(2L, "Nuevo", 5, 4), remoto(3L, "Inválido", 0, 4))
+        );
+        when(eventoRepository.findByExternalIdIsNotNull()).thenReturn(List.of(existente, obsoleto));
+        when(eventoRepository.saveAll(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(orquestador.sincronizar(any())).thenReturn(AsientosSyncOrquestador.Reporte.vacio());
+
+        service.sincronizarEventosDesdeProxy();
+
+        // Una consulta de lectura y un solo saveAll, sin importar el tamaño del catálogo
+        verify(eventoRepository, times(1)).findByExternalIdIsNotNull();
+        verify(eventoRepository, never()).findByExternalId(anyLong());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Evento>> guardados = ArgumentCaptor.forClass(List.class);
+        verify(eventoRepository, times(1)).saveAll(guardados.capture());
+
+        assertThat(guardados.getValue()).extracting(Evento::getExternalId).containsExactly(1L, 2L);
+        assertThat(existente.getTitulo()).isEqualTo("Actualizado");
+        assertThat(existente.getCantidadAsientosTotales()).isEqualTo(100);
+        assertThat(obsoleto.getActivo()).isFalse();
+        verify(orquestador, times(1)).sincronizar(guardados.getValue());
+    }
+
+    @Test
+    void shouldSkipEventsWhosePayloadDidNotChange() {
+        EventoRepository eventoRepository = mock(EventoRepository.class);
+        ProxyService proxyService = mock(ProxyService.class);
+        AsientosSyncOrquestador orquestador = mock(AsientosSyncOrquestador.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        EventoSyncService service = new EventoSyncService(proxyService, eventoRepository, orquestador, transactionTemplate);
+
+        ProxyEventoDetalleDTO igual = remoto(1L, "Igual", 10, 10);
+        Evento existente = new Evento().id(1051L).titulo("Igual").activo(true);
+        existente.setExternalId(1L);
+        existente.setHuellaContenido(EventoSyncService.calcularHuella(remoto(1L, "Igual", 10, 10)));
+
+        when(proxyService.listarEventosCompletos()).thenReturn(List.of(igual, remoto(2L, "Nuevo", 5, 4)));
+        when(eventoRepository.findByExternalIdIsNotNull()).thenReturn(List.of(existente));
+        when(eventoRepository.saveAll(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(orquestador.sincronizar(any())).thenReturn(AsientosSyncOrquestador.Reporte.vacio());
+
+        service.sincronizarEventosDesdeProxy();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Evento>> guardados = ArgumentCaptor.forClass(List.class);
+        verify(eventoRepository).saveAll(guardados.capture());
+        assertThat(guardados.getValue()).extracting(Evento::getExternalId).containsExactly(2L);
+        assertThat(guardados.getValue().get(0).getHuellaContenido()).hasSize(64);
+        assertThat(existente.getActivo()).isTrue();
+    }
+
+    @Test
+    void shouldIgnorePriceScaleInFingerprint() {
+        ProxyEventoDetalleDTO a = remoto(1L, "Recital", 10, 10);
+        ProxyEventoDetalleDTO b = remoto(1L, "Recital", 10, 10);
+        b.setPrecioEntrada(new BigDecimal("10.00"));
+
+        assertThat(EventoSyncService.calcularHuella(a)).isEqualTo(EventoSyncService.calcularHuella(b));
+        b.setTitulo("Recital 2");
+        assertThat(EventoSyncService.calcularHuella(a)).isNotEqualTo(EventoSyncService.calcularHuella(b));
+    }
+
+    private static ProxyEventoDetalleDTO remoto(Long id, String titulo, int filas, int columnas) {
+        ProxyEventoDetalleDTO dto = new ProxyEventoDetalleDTO();
+        dto.setId(id);
+        dto.setTitulo(titulo);
+        dto.setFecha(Instant.parse("2025-12-01T21:00:00Z"));
+        dto.setFilaAsientos(filas);
+        dto.setColumnaAsientos(columnas);
+        dto.setPrecioEntrada(BigDecimal.TEN);
+        return dto;
+    }
+}
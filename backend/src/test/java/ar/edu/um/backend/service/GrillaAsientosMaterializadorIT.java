@@ -0,0 +1,110 @@
+package ar.edu.um.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ar.edu.um.backend.IntegrationTest;
+import ar.edu.um.backend.domain.Evento;
+import ar.edu.um.backend.domain.enumeration.AsientoEstado;
+import ar.edu.um.backend.repository.EventoRepository;
+import ar.edu.um.backend.service.dto.AsientoUbicacionDTO;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests (y medición de tiempos) para {@link GrillaAsientosMaterializador}.
+ */
+@IntegrationTest
+@Transactional
+class GrillaAsientosMaterializadorIT {
+
+    private static final Logger log = LoggerFactory.getLogger(GrillaAsientosMaterializadorIT.class);
+
+    @Autowired
+    private GrillaAsientosMaterializador materializador;
+
+    @Autowired
+    private EventoRepository eventoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Evento eventoConGrilla(int filas, int columnas) {
+        Evento evento = new Evento()
+            .titulo("Evento grilla")
+            .fecha(LocalDate.ofEpochDay(0L))
+            .hora(LocalTime.NOON)
+            .filaAsientos(filas)
+            .columnaAsientos(columnas)
+            .cantidadAsientosTotales(filas * columnas)
+            .precioEntrada(BigDecimal.TEN);
+        return eventoRepository.saveAndFlush(evento);
+    }
+
+    @Test
+    void shouldCreateGridWithInitialStates() {
+        Evento evento = eventoConGrilla(3, 4);
+
+        int creados = materializador.crearGrilla(
+            evento.getId(),
+            3,
+            4,
+            Map.of(GrillaAsientosMaterializador.indice(2, 3, 4), new GrillaAsientosMaterializador.EstadoInicial(AsientoEstado.VENDIDO, "Ana"))
+        );
+
+        assertThat(creados).isEqualTo(12);
+        assertThat(contar(evento.getId())).isEqualTo(12);
+        assertThat(
+            jdbcTemplate.queryForObject(
+                "select estado from asiento where evento_id = ? and fila = 2 and columna = 3",
+                String.class,
+                evento.getId()
+            )
+        ).isEqualTo("VENDIDO");
+        assertThat(
+            jdbcTemplate.queryForObject("select count(distinct id) from asiento where evento_id = ?", Long.class, evento.getId())
+        ).isEqualTo(12);
+    }
+
+    @Test
+    void shouldOnlyCreateMissingSeats() {
+        Evento evento = eventoConGrilla(2, 2);
+        materializador.crearFaltantes(evento.getId(), List.of(new AsientoUbicacionDTO(1, 1)));
+
+        int creados = materializador.crearFaltantes(
+            evento.getId(),
+            List.of(new AsientoUbicacionDTO(1, 1), new AsientoUbicacionDTO(1, 2), new AsientoUbicacionDTO(2, 2))
+        );
+
+        assertThat(creados).isEqualTo(2);
+        assertThat(contar(evento.getId())).isEqualTo(3);
+    }
+
+    @ParameterizedTest(name = "{0}x{1}")
+    @CsvSource({ "25, 40", "100, 100", "250, 200" })
+    void shouldMaterializeLargeGrids(int filas, int columnas) {
+        Evento evento = eventoConGrilla(filas, columnas);
+
+        long inicio = System.nanoTime();
+        int creados = materializador.crearGrilla(evento.getId(), filas, columnas, Map.of());
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+
+        log.info("Grilla {}x{} ({} asientos) materializada en {} ms", filas, columnas, creados, ms);
+        assertThat(creados).isEqualTo(filas * columnas);
+        assertThat(contar(evento.getId())).isEqualTo(filas * columnas);
+    }
+
+    private long contar(Long eventoId) {
+        return jdbcTemplate.queryForObject("select count(*) from asiento where evento_id = ?", Long.class, eventoId);
+    }
+}
@@ -0,0 +1,110 @@
+package ar.edu.um.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ar.edu.um.backend.service.dto.AsientoEstadoDTO;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class GrillaAsientosTest {
+
+    @Test
+    void shouldPackStatesAndResolveExpirationAtReadTime() {
+        Instant ahora = Instant.parse("2025-12-01T10:00:00Z");
+        GrillaAsientos grilla = GrillaAsientos.builder(3, 40)
+            .marcar(1, 1, GrillaAsientos.VENDIDO, null, null)
+            .marcar(2, 33, GrillaAsientos.BLOQUEADO, ahora.plusSeconds(60), null)
+            .marcar(3, 40, GrillaAsientos.BLOQUEADO, ahora.minusSeconds(1), null)
+            .marcar(3, 1, GrillaAsientos.OTRO, null, "RESERVADO")
+            .build();
+
+        assertThat(grilla.getNoLibres()).isEqualTo(4);
+        assertThat(grilla.estado(1, 1, ahora)).isEqualTo("VENDIDO");
+        assertThat(grilla.estado(1, 2, ahora)).isEqualTo("LIBRE");
+        assertThat(grilla.estado(2, 33, ahora)).isEqualTo("BLOQUEADO_VIGENTE");
+        assertThat(grilla.estado(2, 33, ahora.plusSeconds(60))).isEqualTo("BLOQUEADO_EXPIRADO");
+        assertThat(grilla.estado(3, 40, ahora)).isEqualTo("BLOQUEADO_EXPIRADO");
+        assertThat(grilla.estado(3, 1, ahora)).isEqualTo("RESERVADO");
+        assertThat(grilla.expira(2, 33)).isEqualTo(ahora.plusSeconds(60));
+    }
+
+    @Test
+    void shouldOverwriteSeatMarkedTwice() {
+        GrillaAsientos grilla = GrillaAsientos.builder(1, 2)
+            .marcar(1, 2, GrillaAsientos.BLOQUEADO, Instant.now(), null)
+            .marcar(1, 2, GrillaAsientos.VENDIDO, null, null)
+            .build();
+
+        assertThat(grilla.getNoLibres()).isEqualTo(1);
+        assertThat(grilla.codigo(1, 2)).isEqualTo(GrillaAsientos.VENDIDO);
+        assertThat(grilla.expira(1, 2)).isNull();
+    }
+
+    @Test
+    void shouldMaterializeFullGridInRowMajorOrder() {
+        GrillaAsientos grilla = GrillaAsientos.builder(2, 2).marcar(2, 1, GrillaAsientos.VENDIDO, null, null).build();
+
+        List<AsientoEstadoDTO> asientos = grilla.materializar(Instant.now());
+
+        assertThat(asientos).extracting(AsientoEstadoDTO::getEstado).containsExactly("LIBRE", "LIBRE", "VENDIDO", "LIBRE");
+        assertThat(asientos.get(2).getFila()).isEqualTo(2);
+        assertThat(asientos.get(2).getColumna()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReportOnlyChangedSeatsIncludingTimeBasedExpiration() {
+        Instant antes = Instant.parse("2025-12-01T10:00:00Z");
+        Instant ahora = antes.plusSeconds(30);
+        GrillaAsientos anterior = GrillaAsientos.builder(2, 3)
+            .marcar(1, 1, GrillaAsientos.VENDIDO, null, null)
+            .marcar(1, 2, GrillaAsientos.BLOQUEADO, antes.plusSeconds(10), null)
+            .marcar(2, 3, GrillaAsientos.BLOQUEADO, antes.plusSeconds(300), null)
+            .build();
+        GrillaAsientos nueva = GrillaAsientos.builder(2, 3)
+            .marcar(1, 1, GrillaAsientos.VENDIDO, null, null)
+            .marcar(1, 2, GrillaAsientos.BLOQUEADO, antes.plusSeconds(10), null)
+            .marcar(2, 1, GrillaAsientos.BLOQUEADO, ahora.plusSeconds(300), null)
+            .build();
+
+        List<AsientoEstadoDTO> cambios = nueva.diferencias(anterior, antes, ahora);
+
+        assertThat(cambios)
+            .extracting(a -> a.getFila() + "-" + a.getColumna() + ":" + a.getEstado())
+            .containsExactly("1-2:BLOQUEADO_EXPIRADO", "2-1:BLOQUEADO_VIGENTE", "2-3:LIBRE");
+        assertThat(nueva.diferencias(nueva, ahora, ahora)).isEmpty();
+    }
+
+    @Test
+    void shouldKeepVersionForSameContentAndBumpItWhenLockExpires() {
+        Instant ahora = Instant.parse("2025-12-01T10:00:00Z");
+        GrillaAsientos grilla = GrillaAsientos.builder(2, 2)
+            .marcar(1, 1, GrillaAsientos.VENDIDO, null, null)
+            .marcar(2, 2, GrillaAsientos.BLOQUEADO, ahora.plusSeconds(60), null)
+            .build();
+        GrillaAsientos reconstruida = GrillaAsientos.builder(2, 2)
+            .marcar(2, 2, GrillaAsientos.BLOQUEADO, ahora.plusSeconds(60), null)
+            .marcar(1, 1, GrillaAsientos.VENDIDO, null, null)
+            .build();
+        GrillaAsientos distinta = GrillaAsientos.builder(2, 2).marcar(1, 1, GrillaAsientos.VENDIDO, null, null).build();
+
+        assertThat(reconstruida.version(ahora)).isEqualTo(grilla.version(ahora));
+        assertThat(distinta.version(ahora)).isNotEqualTo(grilla.version(ahora));
+        assertThat(grilla.version(ahora.plusSeconds(60))).isNotEqualTo(grilla.version(ahora));
+        assertThat(grilla.bloqueosVencidos(ahora.plusSeconds(60))).isEqualTo(1);
+    }
+
+    @Test
+    void shouldListOnlyPendingLockExpiriesInOrder() {
+        Instant ahora = Instant.parse("2025-12-01T10:00:00Z");
+        GrillaAsientos grilla = GrillaAsientos.builder(2, 2)
+            .marcar(1, 1, GrillaAsientos.BLOQUEADO, ahora.plusSeconds(120), null)
+            .marcar(1, 2, GrillaAsientos.BLOQUEADO, ahora.minusSeconds(5), null)
+            .marcar(2, 1, GrillaAsientos.BLOQUEADO, ahora.plusSeconds(30), null)
+            .marcar(2, 2, GrillaAsientos.OTRO, ahora.plusSeconds(10), "RESERVADO")
+            .build();
+
+        assertThat(grilla.vencimientosPendientes(ahora)).containsExactly(ahora.plusSeconds(30), ahora.plusSeconds(120));
+        assertThat(grilla.vencimientosPendientes(ahora.plusSeconds(120))).isEmpty();
+    }
+}
@@ -0,0 +1,146 @@
+package ar.edu.um.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ar.edu.um.backend.service.dto.AsientoUbicacionDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+class IdempotenciaServiceTest {
+
+    private final Map<String, String> redis = new ConcurrentHashMap<>();
+    private final AtomicInteger ejecuciones = new AtomicInteger();
+
+    private IdempotenciaService idempotenciaService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(ops);
+        when(ops.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenAnswer(inv ->
+            redis.putIfAbsent(inv.getArgument(0), inv.getArgument(1)) == null
+        );
+        when(ops.get(anyString())).thenAnswer(inv -> redis.get(inv.<String>getArgument(0)));
+        doAnswer(inv -> redis.put(inv.getArgument(0), inv.getArgument(1)))
+            .when(ops)
+            .set(anyString(), anyString(), any(Duration.class));
+        when(redisTemplate.delete(anyString())).thenAnswer(inv -> redis.remove(inv.<String>getArgument(0)) != null);
+
+        idempotenciaService = new IdempotenciaService(redisTemplate, new ObjectMapper(), 120_000, 24);
+    }
+
+    @Test
+    void shouldReplayStoredResponseForSameKey() {
+        AsientoUbicacionDTO cuerpo = new AsientoUbicacionDTO(2, 3);
+
+        IdempotenciaService.Resultado<AsientoUbicacionDTO> primera = ejecutar("clave-1", cuerpo);
+        IdempotenciaService.Resultado<AsientoUbicacionDTO> segunda = ejecutar("clave-1", cuerpo);
+
+        assertThat(ejecuciones.get()).isEqualTo(1);
+        assertThat(primera.repetida()).isFalse();
+        assertThat(segunda.repetida()).isTrue();
+        assertThat(segunda.respuesta()).isEqualTo(primera.respuesta());
+    }
+
+    @Test
+    void shouldRunEveryTimeWithoutKey() {
+        ejecutar(null, new AsientoUbicacionDTO(1, 1));
+        ejecutar(" ", new AsientoUbicacionDTO(1, 1));
+
+        assertThat(ejecuciones.get()).isEqualTo(2);
+        assertThat(redis).isEmpty();
+    }
+
+    @Test
+    void shouldRejectKeyReusedWithDifferentBody() {
+        ejecutar("clave-1", new AsientoUbicacionDTO(1, 1));
+
+        assertThatThrownBy(() -> ejecutar("clave-1", new AsientoUbicacionDTO(9, 9)))
+            .isInstanceOf(ResponseStatusException.class)
+            .extracting(e -> ((ResponseStatusException) e).getStatusCode())
+            .isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @Test
+    void shouldAnswerConflictWhileFirstRequestIsInFlight() {
+        AsientoUbicacionDTO cuerpo = new AsientoUbicacionDTO(1, 1);
+
+        assertThatThrownBy(() ->
+            idempotenciaService
+                .ejecutar("venta:7", "clave-1", cuerpo, AsientoUbicacionDTO.class, () -> Mono.just(ejecutar("clave-1", cuerpo).respuesta()))
+                .block()
+        )
+            .isInstanceOf(ResponseStatusException.class)
+            .extracting(e -> ((ResponseStatusException) e).getStatusCode())
+            .isEqualTo(HttpStatus.CONFLICT);
+        assertThat(ejecuciones.get()).isZero();
+    }
+
+    @Test
+    void shouldForgetKeyWhenOperationFails() {
+        AsientoUbicacionDTO cuerpo = new AsientoUbicacionDTO(1, 1);
+
+        assertThatThrownBy(() ->
+            idempotenciaService
+                .ejecutar("venta:7", "clave-1", cuerpo, AsientoUbicacionDTO.class, () -> Mono.<AsientoUbicacionDTO>error(new IllegalStateException("cátedra caída")))
+                .block()
+        ).isInstanceOf(IllegalStateException.class);
+
+        assertThat(ejecutar("clave-1", cuerpo).repetida()).isFalse();
+        assertThat(ejecuciones.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldForgetKeyWhenOperationCompletesEmpty() {
+        AsientoUbicacionDTO cuerpo = new AsientoUbicacionDTO(1, 1);
+
+        idempotenciaService.ejecutar("venta:7", "clave-1", cuerpo, AsientoUbicacionDTO.class, Mono::<AsientoUbicacionDTO>empty).block();
+
+        assertThat(redis).isEmpty();
+        assertThat(ejecutar("clave-1", cuerpo).repetida()).isFalse();
+    }
+
+    @Test
+    void shouldForgetKeyWhenSubscriptionIsCancelled() {
+        AsientoUbicacionDTO cuerpo = new AsientoUbicacionDTO(1, 1);
+
+        Disposable suscripcion = idempotenciaService
+            .ejecutar("venta:7", "clave-1", cuerpo, AsientoUbicacionDTO.class, Mono::<AsientoUbicacionDTO>never)
+            .subscribe();
+        assertThat(redis).hasSize(1);
+
+        suscripcion.dispose();
+
+        await().atMost(Duration.ofSeconds(5)).until(redis::isEmpty);
+        assertThat(ejecutar("clave-1", cuerpo).repetida()).isFalse();
+    }
+
+    private IdempotenciaService.Resultado<AsientoUbicacionDTO> ejecutar(String clave, AsientoUbicacionDTO cuerpo) {
+        return idempotenciaService
+            .ejecutar("venta:7", clave, cuerpo, AsientoUbicacionDTO.class, () -> {
+                ejecuciones.incrementAndGet();
+                return Mono.just(new AsientoUbicacionDTO(cuerpo.getFila(), cuerpo.getColumna()));
+            })
+            .block();
+    }
+}
@@ -0,0 +1,145 @@
+package ar.edu.um.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ar.edu.um.backend.service.dto.AsientoBloqueoRequestDTO;
+import ar.edu.um.backend.service.dto.AsientoBloqueoResponseDTO;
+import ar.edu.um.backend.service.dto.ProxyEstadoAsientosResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class ProxyServiceTest {
+
+    private static final Long EXTERNAL_ID = 7L;
+
+    private ProxyService proxyServiceRespondiendo(String json) {
+        return proxyServiceRespondiendo(json, Duration.ZERO);
+    }
+
+    private ProxyService proxyServiceRespondiendo(String json, Duration demora) {
+        return proxyServiceRespondiendo(json, demora, 4 * 1024 * 1024);
+    }
+
+    private ProxyService proxyServiceRespondiendo(String json, Duration demora, int maxBytesRespuesta) {
+        WebClient webClient = WebClient.builder()
+            .exchangeFunction(request ->
+                Mono.delay(demora).map(t ->
+                    ClientResponse.create(HttpStatus.OK)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body(json)
+                        .build()
+                )
+            )
+            .build();
+        return new ProxyService(webClient, new ObjectMapper().findAndRegisterModules(), maxBytesRespuesta);
+    }
+
+    @Test
+    void shouldDecodeWrapperResponse() {
+        ProxyService proxyService = proxyServiceRespondiendo(
+            "{\"eventoId\":7,\"asientos\":[{\"fila\":1,\"columna\":2,\"estado\":\"Vendido\"}]}"
+        );
+
+        ProxyEstadoAsientosResponse respuesta = proxyService.listarEstadoAsientosRedis(EXTERNAL_ID);
+
+        assertThat(respuesta.getEventoId()).isEqualTo(EXTERNAL_ID);
+        assertThat(respuesta.getAsientos()).hasSize(1);
+        assertThat(respuesta.getAsientos().get(0).getEstado()).isEqualTo("Vendido");
+    }
+
+    @Test
+    void shouldWrapPlainListResponse() {
+        ProxyService proxyService = proxyServiceRespondiendo(
+            "[{\"fila\":3,\"columna\":4,\"estado\":\"Bloqueado\",\"expira\":\"2025-12-01T10:00:00Z\"}]"
+        );
+
+        ProxyEstadoAsientosResponse respuesta = proxyService.listarEstadoAsientosRedis(EXTERNAL_ID);
+
+        assertThat(respuesta.getEventoId()).isEqualTo(EXTERNAL_ID);
+        assertThat(respuesta.getAsientos()).singleElement().satisfies(a -> {
+            assertThat(a.getFila()).isEqualTo(3);
+            assertThat(a.getExpira()).isNotNull();
+        });
+    }
+
+    @Test
+    void shouldFillMissingFieldsOfWrapper() {
+        ProxyService proxyService = proxyServiceRespondiendo("{}");
+
+        ProxyEstadoAsientosResponse respuesta = proxyService.listarEstadoAsientosRedis(EXTERNAL_ID);
+
+        assertThat(respuesta.getEventoId()).isEqualTo(EXTERNAL_ID);
+        assertThat(respuesta.getAsientos()).isEmpty();
+    }
+
+    @Test
+    void shouldDecodeResponseSplitAcrossManyBuffers() {
+        byte[] json = "{\"eventoId\":7,\"asientos\":[{\"fila\":1,\"columna\":2,\"estado\":\"Vendido\",\"personaActual\":\"Añá\"}]}".getBytes(
+            StandardCharsets.UTF_8
+        );
+        // De a 3 bytes: los cortes caen en medio de tokens y de caracteres UTF-8
+        Flux<DataBuffer> trozos = Flux.range(0, (json.length + 2) / 3).map(i ->
+            DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(json, i * 3, Math.min(json.length, i * 3 + 3)))
+        );
+        WebClient webClient = WebClient.builder()
+            .exchangeFunction(request ->
+                Mono.just(
+                    ClientResponse.create(HttpStatus.OK).header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE).body(trozos).build()
+                )
+            )
+            .build();
+        ProxyService proxyService = new ProxyService(webClient, new ObjectMapper().findAndRegisterModules(), 4 * 1024 * 1024);
+
+        ProxyEstadoAsientosResponse respuesta = proxyService.listarEstadoAsientosRedis(EXTERNAL_ID);
+
+        assertThat(respuesta.getAsientos()).singleElement().satisfies(a -> {
+            assertThat(a.getColumna()).isEqualTo(2);
+            assertThat(a.getPersonaActual()).isEqualTo("Añá");
+        });
+    }
+
+    @Test
+    void shouldDiscardResponseLargerThanLimit() {
+        ProxyService proxyService = proxyServiceRespondiendo(
+            "{\"eventoId\":7,\"asientos\":[{\"fila\":1,\"columna\":2,\"estado\":\"Vendido\"}]}",
+            Duration.ZERO,
+            16
+        );
+
+        assertThat(proxyService.listarEstadoAsientosRedis(EXTERNAL_ID)).isNull();
+    }
+
+    @Test
+    void shouldKeepManySlowLockCallsInFlightWithoutHoldingThreads() {
+        // Cátedra lenta: 300ms por bloqueo. 200 bloqueos concurrentes sin un hilo por llamada.
+        ProxyService proxyService = proxyServiceRespondiendo(
+            "{\"resultado\":true,\"eventoId\":7,\"asientos\":[]}",
+            Duration.ofMillis(300)
+        );
+        int concurrentes = 200;
+
+        long inicio = System.nanoTime();
+        List<AsientoBloqueoResponseDTO> respuestas = Flux.range(0, concurrentes)
+            .flatMap(i -> proxyService.crearBloqueoEnProxyAsync(new AsientoBloqueoRequestDTO(EXTERNAL_ID, List.of())), concurrentes)
+            .collectList()
+            .block();
+        Duration total = Duration.ofNanos(System.nanoTime() - inicio);
+
+        assertThat(respuestas).hasSize(concurrentes).allMatch(AsientoBloqueoResponseDTO::isResultado);
+        // Con .block() secuencial serían ~60s; en paralelo no bloqueante, cerca de una sola demora
+        assertThat(total).isLessThan(Duration.ofSeconds(5));
+    }
+}
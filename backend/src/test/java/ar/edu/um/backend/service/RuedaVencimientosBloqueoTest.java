@@ -0,0 +1,73 @@
+package ar.edu.um.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+class RuedaVencimientosBloqueoTest {
+
+    private ApplicationEventPublisher publisher;
+    private RuedaVencimientosBloqueo rueda;
+
+    @BeforeEach
+    void setUp() {
+        publisher = mock(ApplicationEventPublisher.class);
+        // Ranuras pocas a propósito: los vencimientos de prueba dan varias vueltas
+        rueda = new RuedaVencimientosBloqueo(publisher, new SimpleMeterRegistry(), 10, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        rueda.detener();
+    }
+
+    @Test
+    void shouldFireOnceAtExpiryAndNeverBefore() {
+        Instant expira = Instant.now().plusMillis(300);
+        rueda.programar(1L, List.of(expira));
+        rueda.programar(1L, List.of(expira)); // reconstrucción de la grilla: misma expira
+
+        assertThat(rueda.cantidadProgramados()).isEqualTo(1);
+        verify(publisher, after(150).never()).publishEvent(any(Object.class));
+
+        ArgumentCaptor<RuedaVencimientosBloqueo.BloqueosVencidos> evento = ArgumentCaptor.forClass(RuedaVencimientosBloqueo.BloqueosVencidos.class);
+        verify(publisher, timeout(2000)).publishEvent(evento.capture());
+        assertThat(Instant.now()).isAfterOrEqualTo(expira);
+        assertThat(evento.getValue()).isEqualTo(new RuedaVencimientosBloqueo.BloqueosVencidos(1L, expira));
+
+        verify(publisher, after(200).times(1)).publishEvent(any(Object.class));
+        assertThat(rueda.cantidadProgramados()).isZero();
+    }
+
+    @Test
+    void shouldNotifyEachEventoWithItsOwnExpiries() {
+        Instant expira = Instant.now().plusMillis(200);
+        rueda.programar(1L, List.of(expira));
+        rueda.programar(2L, List.of(expira, expira.plusSeconds(60)));
+
+        verify(publisher, timeout(2000)).publishEvent(new RuedaVencimientosBloqueo.BloqueosVencidos(1L, expira));
+        verify(publisher, timeout(2000)).publishEvent(new RuedaVencimientosBloqueo.BloqueosVencidos(2L, expira));
+        // El de dentro de un minuto sigue esperando en la rueda
+        assertThat(rueda.cantidadProgramados()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldIgnoreExpiriesAlreadyPast() {
+        rueda.programar(1L, List.of(Instant.now().minusSeconds(1)));
+
+        assertThat(rueda.cantidadProgramados()).isZero();
+        verify(publisher, after(100).never()).publishEvent(any(Object.class));
+    }
+}
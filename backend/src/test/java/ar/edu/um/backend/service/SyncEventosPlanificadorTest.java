@@ -0,0 +1,58 @@
+package ar.edu.um.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SyncEventosPlanificadorTest {
+
+    private final EventoSyncService eventoSyncService = mock(EventoSyncService.class);
+    private final SyncEventosPlanificador planificador = new SyncEventosPlanificador(eventoSyncService, 200);
+
+    @AfterEach
+    void tearDown() {
+        planificador.cerrar();
+    }
+
+    @Test
+    void shouldCoalesceBurstIntoSingleRun() throws InterruptedException {
+        for (int i = 0; i < 20; i++) {
+            planificador.solicitar();
+        }
+        assertThat(planificador.estado().pendientes()).isEqualTo(20);
+
+        verify(eventoSyncService, timeout(2000).times(1)).sincronizarEventosDesdeProxy();
+        Thread.sleep(400);
+        verify(eventoSyncService, times(1)).sincronizarEventosDesdeProxy();
+
+        SyncEventosPlanificador.Estado estado = planificador.estado();
+        assertThat(estado.pendientes()).isZero();
+        assertThat(estado.ejecuciones()).isEqualTo(1);
+        assertThat(estado.ultimaDuracionMs()).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    void shouldSyncOnlyNotifiedEventsAndFallBackWhenOneIsMissing() {
+        when(eventoSyncService.sincronizarEvento(5L)).thenReturn(true);
+        when(eventoSyncService.sincronizarEvento(6L)).thenReturn(true);
+
+        planificador.solicitar(List.of(5L));
+        planificador.solicitar(List.of(5L, 6L));
+
+        verify(eventoSyncService, timeout(2000).times(1)).sincronizarEvento(6L);
+        verify(eventoSyncService, times(1)).sincronizarEvento(5L);
+        verify(eventoSyncService, never()).sincronizarEventosDesdeProxy();
+
+        // El proxy no devuelve el evento → sync completo
+        planificador.solicitar(List.of(9L));
+        verify(eventoSyncService, timeout(2000).times(1)).sincronizarEventosDesdeProxy();
+    }
+}
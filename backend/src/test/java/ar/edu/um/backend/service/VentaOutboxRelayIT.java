@@ -0,0 +1,163 @@
+package ar.edu.um.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ar.edu.um.backend.IntegrationTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests para {@link VentaOutboxRelay} contra la tabla real (Kafka simulado).
+ */
+@IntegrationTest
+class VentaOutboxRelayIT {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private VentaOutboxRelay relay;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        kafkaTemplate = mock(KafkaTemplate.class);
+        relay = new VentaOutboxRelay(jdbcTemplate, kafkaTemplate, transactionManager, new SimpleMeterRegistry(), true, "localhost:9092", "ventas-test", 2, 1000, 30_000, 72);
+        limpiar();
+    }
+
+    @AfterEach
+    void limpiar() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(s -> jdbcTemplate.update("delete from venta_outbox"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldPublishAllPendingInBatchesAndMarkThem() {
+        insertar(101L, "7");
+        insertar(102L, "7");
+        insertar(103L, "8");
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        relay.corrida();
+
+        ArgumentCaptor<ProducerRecord<String, String>> enviados = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, times(3)).send(enviados.capture());
+        assertThat(enviados.getAllValues()).extracting(ProducerRecord::key).containsExactly("7", "7", "8");
+        assertThat(
+            new String(enviados.getAllValues().get(0).headers().lastHeader(VentaOutboxRelay.HEADER_OUTBOX_ID).value(), StandardCharsets.UTF_8)
+        ).isNotBlank();
+        assertThat(pendientes()).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldKeepFailedEventsPendingForRetry() {
+        insertar(201L, "7");
+        insertar(202L, "7");
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+            .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker caído")));
+
+        relay.corrida();
+
+        assertThat(pendientes()).isEqualTo(1);
+        assertThat(
+            jdbcTemplate.queryForMap("select intentos, ultimo_error from venta_outbox where venta_id = 202")
+        ).containsEntry("intentos", 1).containsEntry("ultimo_error", "broker caído");
+
+        // Próxima corrida: se reintenta y queda publicado
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+        relay.corrida();
+        assertThat(pendientes()).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldWaitForKafkaOutsideAnyTransaction() {
+        insertar(301L, "7");
+        AtomicBoolean enTransaccion = new AtomicBoolean(true);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(inv -> {
+            enTransaccion.set(TransactionSynchronizationManager.isActualTransactionActive());
+            return CompletableFuture.completedFuture(mock(SendResult.class));
+        });
+
+        relay.corrida();
+
+        assertThat(enTransaccion.get()).isFalse();
+        assertThat(pendientes()).isZero();
+        Long reclamadas = new TransactionTemplate(transactionManager).execute(s ->
+            jdbcTemplate.queryForObject("select count(*) from venta_outbox where reclamado_hasta is not null", Long.class)
+        );
+        assertThat(reclamadas).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldSkipRowsClaimedByAnotherRunUntilLeaseExpires() {
+        insertar(401L, "7");
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        // Otra instancia la reclamó y sigue esperando a Kafka
+        reclamarHasta(Instant.now().plusSeconds(60));
+        relay.corrida();
+        verify(kafkaTemplate, never()).send(any(ProducerRecord.class));
+        assertThat(pendientes()).isEqualTo(1);
+
+        // Esa instancia murió: al vencer el lease la fila se vuelve a publicar
+        reclamarHasta(Instant.now().minusSeconds(1));
+        relay.corrida();
+        verify(kafkaTemplate, times(1)).send(any(ProducerRecord.class));
+        assertThat(pendientes()).isZero();
+    }
+
+    private void reclamarHasta(Instant hasta) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(s ->
+            jdbcTemplate.update("update venta_outbox set reclamado_hasta = ?", Timestamp.from(hasta))
+        );
+    }
+
+    private void insertar(Long ventaId, String clave) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(s ->
+            jdbcTemplate.update(
+                "insert into venta_outbox (venta_id, clave, tipo, payload, creado_en, intentos) values (?, ?, ?, ?, ?, 0)",
+                ventaId,
+                clave,
+                VentaOutboxService.TIPO_VENTA_CONFIRMADA,
+                "{\"ventaIdLocal\":" + ventaId + "}",
+                Timestamp.from(Instant.now())
+            )
+        );
+    }
+
+    private long pendientes() {
+        return new TransactionTemplate(transactionManager).execute(s ->
+            jdbcTemplate.queryForObject("select count(*) from venta_outbox where publicado_en is null", Long.class)
+        );
+    }
+}
@@ -0,0 +1,358 @@
+package ar.edu.um.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ar.edu.um.backend.domain.Asiento;
+import ar.edu.um.backend.domain.Evento;
+import ar.edu.um.backend.domain.Venta;
+import ar.edu.um.backend.domain.enumeration.AsientoEstado;
+import ar.edu.um.backend.domain.enumeration.VentaEstado;
+import ar.edu.um.backend.repository.AsientoRepository;
+import ar.edu.um.backend.repository.EventoRepository;
+import ar.edu.um.backend.repository.VentaRepository;
+import ar.edu.um.backend.service.dto.AsientoEstadoDTO;
+import ar.edu.um.backend.service.dto.AsientoUbicacionDTO;
+import ar.edu.um.backend.service.dto.ProxyVentaResponseDTO;
+import ar.edu.um.backend.service.dto.VentaAsientoFrontendDTO;
+import ar.edu.um.backend.service.dto.VentaRequestFrontendDTO;
+import ar.edu.um.backend.service.dto.VentaTicketDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import reactor.core.publisher.Mono;
+
+class VentaSyncServiceTest {
+
+    private static final Long EVENTO_ID_LOCAL = 1051L;
+    private static final Long EXTERNAL_ID = 7L;
+
+    private final AtomicInteger transaccionesAbiertas = new AtomicInteger();
+    private final AtomicInteger abiertasDuranteCatedra = new AtomicInteger(-1);
+
+    private EventoRepository eventoRepository;
+    private AsientoRepository asientoRepository;
+    private VentaRepository ventaRepository;
+    private VentaOutboxService ventaOutboxService;
+    private AsientoEstadoService asientoEstadoService;
+    private ProxyService proxyService;
+    private SimpleMeterRegistry meterRegistry;
+    private VentaSyncService ventaSyncService;
+    private Asiento asiento;
+
+    @BeforeEach
+    void setUp() {
+        eventoRepository = mock(EventoRepository.class);
+        asientoRepository = mock(AsientoRepository.class);
+        ventaRepository = mock(VentaRepository.class);
+        ventaOutboxService = mock(VentaOutboxService.class);
+        asientoEstadoService = mock(AsientoEstadoService.class);
+        proxyService = mock(ProxyService.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        ventaSyncService = new VentaSyncService(
+            eventoRepository,
+            asientoRepository,
+            ventaRepository,
+            asientoEstadoService,
+            proxyService,
+            new CerrojoAsientosEnMemoria(meterRegistry, 64, 100),
+            new ObjectMapper(),
+            ventaOutboxService,
+            new TransaccionesContadas(),
+            meterRegistry,
+            "grilla"
+        );
+
+        Evento evento = new Evento().id(EVENTO_ID_LOCAL).activo(true).filaAsientos(10).columnaAsientos(10).precioEntrada(BigDecimal.TEN);
+        evento.setExternalId(EXTERNAL_ID);
+        asiento = new Asiento().fila(2).columna(3).estado(AsientoEstado.BLOQUEADO);
+        asiento.setId(5000L);
+
+        when(eventoRepository.findById(EVENTO_ID_LOCAL)).thenReturn(Optional.of(evento));
+        when(eventoRepository.getReferenceById(EVENTO_ID_LOCAL)).thenReturn(evento);
+        when(asientoRepository.findByEventoIdAndUbicaciones(eq(EVENTO_ID_LOCAL), any(Integer[].class), any(Integer[].class))).thenReturn(
+            List.of(asiento)
+        );
+        when(asientoEstadoService.obtenerEstadosAsientosAsync(any(Evento.class), anyCollection())).thenReturn(
+            Mono.just(Map.of(new AsientoUbicacionDTO(2, 3), new AsientoEstadoDTO(2, 3, "BLOQUEADO_VIGENTE", Instant.now().plusSeconds(60))))
+        );
+        when(proxyService.crearVentaEnProxyAsync(anyLong(), any())).thenAnswer(inv ->
+            Mono.fromSupplier(() -> {
+                abiertasDuranteCatedra.set(transaccionesAbiertas.get());
+                return respuestaCatedra();
+            })
+        );
+        when(proxyService.crearVentaEnProxy(anyLong(), any())).thenAnswer(inv -> {
+            abiertasDuranteCatedra.set(transaccionesAbiertas.get());
+            return respuestaCatedra();
+        });
+    }
+
+    @Test
+    void shouldNotHoldTransactionWhileWaitingForCatedra() {
+        ProxyVentaResponseDTO resp = ventaSyncService
+            .procesarVentaAsync(new VentaRequestFrontendDTO(EVENTO_ID_LOCAL, List.of(new VentaAsientoFrontendDTO(2, 3, "Ana"))))
+            .block();
+
+        assertThat(resp.getResultado()).isTrue();
+        assertThat(abiertasDuranteCatedra.get()).isZero();
+        assertThat(transaccionesAbiertas.get()).isZero();
+        assertThat(asiento.getEstado()).isEqualTo(AsientoEstado.VENDIDO);
+        verify(ventaOutboxService).registrarVentaConfirmada(any(Venta.class), eq(EXTERNAL_ID));
+        assertThat(meterRegistry.get(VentaSyncService.METRICA_FASES).tag("fase", "catedra").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(VentaSyncService.METRICA_FASES).tag("fase", "persistencia").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldResolveAllRequestedSeatsWithOneQueryPerPhase() {
+        Asiento otro = new Asiento().fila(4).columna(1).estado(AsientoEstado.BLOQUEADO);
+        otro.setId(5001L);
+        when(asientoRepository.findByEventoIdAndUbicaciones(eq(EVENTO_ID_LOCAL), any(Integer[].class), any(Integer[].class))).thenReturn(
+            List.of(asiento, otro)
+        );
+        when(asientoEstadoService.obtenerEstadosAsientosAsync(any(Evento.class), anyCollection())).thenReturn(
+            Mono.just(
+                Map.of(
+                    new AsientoUbicacionDTO(2, 3),
+                    new AsientoEstadoDTO(2, 3, "BLOQUEADO_VIGENTE", Instant.now().plusSeconds(60)),
+                    new AsientoUbicacionDTO(4, 1),
+                    new AsientoEstadoDTO(4, 1, "BLOQUEADO_VIGENTE", Instant.now().plusSeconds(60))
+                )
+            )
+        );
+
+        ventaSyncService
+            .procesarVentaAsync(
+                new VentaRequestFrontendDTO(
+                    EVENTO_ID_LOCAL,
+                    List.of(new VentaAsientoFrontendDTO(2, 3, "Ana"), new VentaAsientoFrontendDTO(4, 1, "Luis"))
+                )
+            )
+            .block();
+
+        // Una consulta en la validación y otra en la persistencia, sin importar cuántos asientos se pidan
+        verify(asientoRepository, times(2)).findByEventoIdAndUbicaciones(
+            EVENTO_ID_LOCAL,
+            new Integer[] { 2, 4 },
+            new Integer[] { 3, 1 }
+        );
+        verify(asientoRepository, never()).findByEventoIdAndFilaAndColumna(anyLong(), anyInt(), anyInt());
+        assertThat(otro.getEstado()).isEqualTo(AsientoEstado.VENDIDO);
+    }
+
+    @Test
+    void shouldRegisterPendingSaleAndConfirmItLater() {
+        AtomicReference<Venta> guardada = new AtomicReference<>();
+        when(ventaRepository.save(any(Venta.class))).thenAnswer(inv -> {
+            Venta venta = inv.getArgument(0);
+            if (venta.getId() == null) {
+                venta.setId(300L);
+            }
+            guardada.set(venta);
+            return venta;
+        });
+        when(ventaRepository.findById(300L)).thenAnswer(inv -> Optional.ofNullable(guardada.get()));
+
+        VentaTicketDTO ticket = ventaSyncService
+            .registrarVentaPendienteAsync(new VentaRequestFrontendDTO(EVENTO_ID_LOCAL, List.of(new VentaAsientoFrontendDTO(2, 3, "Ana"))))
+            .block();
+
+        assertThat(ticket.getTicket()).isEqualTo(300L);
+        assertThat(ticket.getEstado()).isEqualTo(VentaEstado.PENDIENTE);
+        assertThat(abiertasDuranteCatedra.get()).isEqualTo(-1); // todavía no se llamó a la cátedra
+        assertThat(asiento.getEstado()).isEqualTo(AsientoEstado.BLOQUEADO);
+
+        VentaTicketDTO resuelto = ventaSyncService.confirmarVentaPendiente(300L);
+
+        assertThat(resuelto.getEstado()).isEqualTo(VentaEstado.CONFIRMADA);
+        assertThat(resuelto.getVentaId()).isEqualTo(99L);
+        assertThat(abiertasDuranteCatedra.get()).isZero();
+        assertThat(asiento.getEstado()).isEqualTo(AsientoEstado.VENDIDO);
+        assertThat(guardada.get().getSolicitud()).isNull();
+        verify(ventaOutboxService).registrarVentaConfirmada(guardada.get(), EXTERNAL_ID);
+    }
+
+    @Test
+    void shouldReleaseSeatsWhenCatedraAnswersOnAnotherThread() {
+        AtomicReference<String> hiloCatedra = new AtomicReference<>();
+        when(proxyService.crearVentaEnProxyAsync(anyLong(), any())).thenAnswer(inv ->
+            Mono.delay(Duration.ofMillis(50)).map(t -> {
+                hiloCatedra.set(Thread.currentThread().getName());
+                return respuestaCatedra();
+            })
+        );
+        VentaRequestFrontendDTO request = new VentaRequestFrontendDTO(EVENTO_ID_LOCAL, List.of(new VentaAsientoFrontendDTO(2, 3, "Ana")));
+
+        ventaSyncService.procesarVentaAsync(request).block();
+        asiento.setEstado(AsientoEstado.BLOQUEADO);
+        // Si el cerrojo siguiera tomado, la segunda venta esperaría 100 ms y fallaría con 409
+        ventaSyncService.procesarVentaAsync(request).block();
+
+        assertThat(hiloCatedra.get()).isNotEqualTo(Thread.currentThread().getName());
+        assertThat(meterRegistry.get(CerrojoAsientos.METRICA_RECHAZOS).counter().count()).isZero();
+    }
+
+    @Test
+    void shouldReconcileInsteadOfResendingWhenCatedraDidNotAnswer() {
+        AtomicReference<Venta> guardada = registrarPendiente();
+        when(proxyService.crearVentaEnProxy(anyLong(), any())).thenReturn(null);
+        estadoEnCatedra("BLOQUEADO_VIGENTE");
+
+        VentaTicketDTO sinRespuesta = ventaSyncService.confirmarVentaPendiente(300L);
+
+        // Sin respuesta no se sabe si la cátedra vendió: ni rechazada ni reenviada
+        assertThat(sinRespuesta.getEstado()).isEqualTo(VentaEstado.PENDIENTE);
+        assertThat(guardada.get().getEnviadaCatedraEn()).isNotNull();
+
+        estadoEnCatedra("VENDIDO");
+        VentaTicketDTO conciliada = ventaSyncService.confirmarVentaPendiente(300L);
+
+        assertThat(conciliada.getEstado()).isEqualTo(VentaEstado.CONFIRMADA);
+        assertThat(asiento.getEstado()).isEqualTo(AsientoEstado.VENDIDO);
+        verify(proxyService, times(1)).crearVentaEnProxy(anyLong(), any());
+        verify(ventaOutboxService).registrarVentaConfirmada(guardada.get(), EXTERNAL_ID);
+    }
+
+    @Test
+    void shouldNotConfirmSeatsSoldToSomeoneElse() {
+        AtomicReference<Venta> guardada = registrarPendiente();
+        guardada.get().setEnviadaCatedraEn(Instant.now().minusSeconds(60));
+
+        estadoEnCatedra("VENDIDO", null);
+        assertThat(ventaSyncService.confirmarVentaPendiente(300L).getEstado()).isEqualTo(VentaEstado.PENDIENTE);
+
+        estadoEnCatedra("VENDIDO", "Beto");
+        assertThat(ventaSyncService.confirmarVentaPendiente(300L).getEstado()).isEqualTo(VentaEstado.RECHAZADA);
+        assertThat(asiento.getEstado()).isNotEqualTo(AsientoEstado.VENDIDO);
+        verify(ventaOutboxService, never()).registrarVentaConfirmada(any(), anyLong());
+    }
+
+    @Test
+    void shouldOnlyShowTicketToItsBuyer() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("ana", "x", List.of()));
+        try {
+            registrarPendiente();
+            assertThat(ventaSyncService.consultarTicketDelUsuario(300L)).isPresent();
+
+            SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("beto", "x", List.of()));
+            assertThat(ventaSyncService.consultarTicketDelUsuario(300L)).isEmpty();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Test
+    void shouldRejectSentSaleOnlyWhenCatedraReleasedTheSeats() {
+        AtomicReference<Venta> guardada = registrarPendiente();
+        guardada.get().setEnviadaCatedraEn(Instant.now().minusSeconds(60));
+
+        // Un error local no rechaza a ciegas una venta que pudo haberse vendido
+        ventaSyncService.rechazarPendiente(300L, "error local");
+        assertThat(guardada.get().getEstado()).isEqualTo(VentaEstado.PENDIENTE);
+
+        estadoEnCatedra("LIBRE");
+        VentaTicketDTO conciliada = ventaSyncService.confirmarVentaPendiente(300L);
+
+        assertThat(conciliada.getEstado()).isEqualTo(VentaEstado.RECHAZADA);
+        verify(proxyService, never()).crearVentaEnProxy(anyLong(), any());
+    }
+
+    @Test
+    void shouldLeaveSentSalePendingWhenCatedraStateIsUnknown() {
+        AtomicReference<Venta> guardada = registrarPendiente();
+        guardada.get().setEnviadaCatedraEn(Instant.now().minusSeconds(60));
+        when(asientoEstadoService.obtenerEstadosAsientosSiResponde(any(Evento.class), anyCollection())).thenReturn(Mono.empty());
+
+        VentaTicketDTO ticket = ventaSyncService.confirmarVentaPendiente(300L);
+
+        assertThat(ticket.getEstado()).isEqualTo(VentaEstado.PENDIENTE);
+        verify(proxyService, never()).crearVentaEnProxy(anyLong(), any());
+    }
+
+    /**
+     * Registra una venta asíncrona PENDIENTE con id 300 (el repositorio guarda la última en memoria).
+     */
+    private AtomicReference<Venta> registrarPendiente() {
+        AtomicReference<Venta> guardada = new AtomicReference<>();
+        when(ventaRepository.save(any(Venta.class))).thenAnswer(inv -> {
+            Venta venta = inv.getArgument(0);
+            if (venta.getId() == null) {
+                venta.setId(300L);
+            }
+            guardada.set(venta);
+            return venta;
+        });
+        when(ventaRepository.findById(300L)).thenAnswer(inv -> Optional.ofNullable(guardada.get()));
+
+        ventaSyncService
+            .registrarVentaPendienteAsync(new VentaRequestFrontendDTO(EVENTO_ID_LOCAL, List.of(new VentaAsientoFrontendDTO(2, 3, "Ana"))))
+            .block();
+        return guardada;
+    }
+
+    private void estadoEnCatedra(String estado) {
+        estadoEnCatedra(estado, "Ana");
+    }
+
+    private void estadoEnCatedra(String estado, String persona) {
+        when(asientoEstadoService.obtenerEstadosAsientosSiResponde(any(Evento.class), anyCollection())).thenReturn(
+            Mono.just(
+                Map.of(
+                    new AsientoUbicacionDTO(2, 3),
+                    new AsientoEstadoService.EstadoEnCatedra(new AsientoEstadoDTO(2, 3, estado, null), persona)
+                )
+            )
+        );
+    }
+
+    private static ProxyVentaResponseDTO respuestaCatedra() {
+        return new ProxyVentaResponseDTO(EXTERNAL_ID, 99L, Instant.now(), List.of(), true, "ok", BigDecimal.TEN);
+    }
+
+    /**
+     * Transaction manager mínimo que cuenta las transacciones abiertas en cada momento.
+     */
+    private final class TransaccionesContadas implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            transaccionesAbiertas.incrementAndGet();
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            transaccionesAbiertas.decrementAndGet();
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            transaccionesAbiertas.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package ar.edu.um.backend.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import ar.edu.um.backend.domain.Evento;
+import ar.edu.um.backend.repository.EventoRepository;
+import ar.edu.um.backend.service.AsientoBloqueoService;
+import ar.edu.um.backend.service.AsientoEstadoService;
+import ar.edu.um.backend.service.AsientosStreamService;
+import ar.edu.um.backend.service.EventoService;
+import ar.edu.um.backend.service.EventoSyncService;
+import ar.edu.um.backend.service.IdempotenciaService;
+import ar.edu.um.backend.service.ProxyService;
+import ar.edu.um.backend.service.RuedaVencimientosBloqueo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * POST /api/eventos/{id}/bloqueos con una cátedra lenta: cuántos requests quedan en curso a la vez
+ * y qué hilos los sostienen.
+ */
+class EventoResourceBloqueoTest {
+
+    private static final Long EVENTO_ID_LOCAL = 1051L;
+    private static final Long EXTERNAL_ID = 7L;
+    private static final int CONCURRENTES = 200;
+
+    private final AtomicInteger enVuelo = new AtomicInteger();
+    private final AtomicInteger maximoEnVuelo = new AtomicInteger();
+    private final Set<String> hilosQueLlamaron = ConcurrentHashMap.newKeySet();
+    private final Sinks.Empty<Void> todosEnVuelo = Sinks.empty();
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        // Cátedra que no contesta ningún bloqueo hasta tener CONCURRENTES esperando a la vez
+        WebClient webClient = WebClient.builder()
+            .exchangeFunction(request -> {
+                if (request.method() == HttpMethod.GET) {
+                    return Mono.just(json("{\"eventoId\":7,\"asientos\":[]}"));
+                }
+                hilosQueLlamaron.add(Thread.currentThread().getName());
+                int actuales = enVuelo.incrementAndGet();
+                maximoEnVuelo.accumulateAndGet(actuales, Math::max);
+                if (actuales == CONCURRENTES) {
+                    todosEnVuelo.tryEmitEmpty();
+                }
+                return todosEnVuelo
+                    .asMono()
+                    .timeout(Duration.ofSeconds(10))
+                    .then(Mono.fromSupplier(() -> json("{\"resultado\":true,\"eventoId\":7,\"asientos\":[]}")))
+                    .doFinally(senal -> enVuelo.decrementAndGet());
+            })
+            .build();
+        ProxyService proxyService = new ProxyService(webClient, new ObjectMapper().findAndRegisterModules(), 1024 * 1024);
+
+        Evento evento = new Evento().id(EVENTO_ID_LOCAL).activo(true).filaAsientos(10).columnaAsientos(10);
+        evento.setExternalId(EXTERNAL_ID);
+        EventoRepository eventoRepository = mock(EventoRepository.class);
+        when(eventoRepository.findByExternalId(EXTERNAL_ID)).thenReturn(Optional.of(evento));
+        when(eventoRepository.findById(EVENTO_ID_LOCAL)).thenReturn(Optional.of(evento));
+
+        AsientoEstadoService asientoEstadoService = new AsientoEstadoService(
+            eventoRepository,
+            proxyService,
+            mock(RuedaVencimientosBloqueo.class)
+        );
+        EventoResource eventoResource = new EventoResource(
+            mock(EventoService.class),
+            eventoRepository,
+            asientoEstadoService,
+            new AsientoBloqueoService(eventoRepository, asientoEstadoService, proxyService),
+            mock(EventoSyncService.class),
+            mock(AsientosStreamService.class),
+            new IdempotenciaService(mock(StringRedisTemplate.class), new ObjectMapper(), 120_000, 24),
+            new ObjectMapper()
+        );
+        mockMvc = MockMvcBuilders.standaloneSetup(eventoResource).build();
+    }
+
+    @Test
+    void shouldKeepAllLockRequestsInFlightFromASingleRequestThread() throws Exception {
+        // El hilo del test hace de (único) worker de Undertow para todos los requests
+        List<MvcResult> iniciados = new ArrayList<>(CONCURRENTES);
+        for (int i = 0; i < CONCURRENTES; i++) {
+            iniciados.add(
+                mockMvc
+                    .perform(
+                        post("/api/eventos/{id}/bloqueos", EXTERNAL_ID)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"eventoId\":7,\"asientos\":[{\"fila\":1,\"columna\":1}]}")
+                    )
+                    .andExpect(request().asyncStarted())
+                    .andReturn()
+            );
+        }
+
+        for (MvcResult iniciado : iniciados) {
+            mockMvc.perform(asyncDispatch(iniciado)).andExpect(status().isOk()).andExpect(jsonPath("$.resultado").value(true));
+        }
+
+        // La cátedra solo contestó cuando los CONCURRENTES bloqueos estuvieron esperando a la vez,
+        // y ninguno necesitó un hilo propio para esperarla
+        assertThat(maximoEnVuelo.get()).isEqualTo(CONCURRENTES);
+        assertThat(hilosQueLlamaron).containsExactly(Thread.currentThread().getName());
+        assertThat(enVuelo.get()).isZero();
+    }
+
+    private static ClientResponse json(String body) {
+        return ClientResponse.create(HttpStatus.OK).header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE).body(body).build();
+    }
+}
@@ -12,8 +12,12 @@ import ar.edu.um.tpfinal.dto.VentaResponseDTO
 import io.ktor.client.HttpClient
 import io.ktor.client.call.body
 import io.ktor.client.plugins.HttpTimeout
+import io.ktor.client.plugins.HttpTimeoutConfig
 import io.ktor.client.plugins.contentnegotiation.ContentNegotiation
 import io.ktor.client.plugins.defaultRequest
+import io.ktor.client.plugins.sse.SSE
+import io.ktor.client.plugins.sse.sse
+import io.ktor.client.plugins.timeout
 import io.ktor.client.request.HttpRequestBuilder
 import io.ktor.client.request.get
 import io.ktor.client.request.header
@@ -22,8 +26,11 @@ import io.ktor.client.request.setBody
 import io.ktor.client.statement.HttpResponse
 import io.ktor.client.statement.bodyAsText
 import io.ktor.http.ContentType
+import io.ktor.http.HttpHeaders
+import io.ktor.http.HttpStatusCode
 import io.ktor.http.contentType
 import io.ktor.serialization.kotlinx.json.json
+import kotlinx.coroutines.CancellationException
 import kotlinx.serialization.json.Json
 /**
  * Cliente HTTP central del FRONTEND (KMP).
@@ -46,6 +53,10 @@ object ApiClient {
     // Token JWT (en memoria). Se setea luego del login.
     private var jwtToken: String? = null
 
+    // Último mapa de asientos recibido por evento (externalId) junto con su ETag.
+    // Permite revalidar con If-None-Match y reutilizarlo si el backend responde 304.
+    private val asientosCache = mutableMapOf<Long, Pair<String, List<AsientoEstadoDTO>>>()
+
     // Configuración de parseo JSON:
     private val json = Json {
         ignoreUnknownKeys = true // tolera campos extra del backend sin romper.
@@ -61,6 +72,9 @@ object ApiClient {
             json(json)
         }
 
+        // [PLUGIN] Server-Sent Events (stream del mapa de asientos)
+        install(SSE)
+
         // [PLUGIN] Timeouts para evitar requests colgadas
         install(HttpTimeout) {
             requestTimeoutMillis = 30000  // tiempo total de request
@@ -188,19 +202,35 @@ object ApiClient {
      * Importante:
      * - eventoId es externalId (ID de cátedra), como se definio en el backend.
      * - Requiere JWT (addAuth).
+     * - Si ya tenemos el mapa, se manda su ETag (If-None-Match):
+     *   304 → se reutiliza el mapa cacheado sin descargar la grilla de nuevo.
      */
     suspend fun getAsientosEvento(eventoId: Long): Result<List<AsientoEstadoDTO>> {
         return try {
             println("GET /api/eventos/$eventoId/asientos")
 
+            val cacheado = asientosCache[eventoId]
+
             val response: HttpResponse = client.get("/api/eventos/$eventoId/asientos") {
                 addAuth()
+                if (cacheado != null) {
+                    header(HttpHeaders.IfNoneMatch, cacheado.first)
+                }
             }
 
             println("Status code: ${response.status.value}")
 
-            if (response.status.value in 200..299) {
+            if (response.status == HttpStatusCode.NotModified && cacheado != null) {
+                println("♻️ Mapa sin cambios (304), usando cache")
+                Result.success(cacheado.second)
+            } else if (response.status.value in 200..299) {
                 val asientos: List<AsientoEstadoDTO> = response.body()
+                val etag = response.headers[HttpHeaders.ETag]
+                if (etag != null) {
+                    asientosCache[eventoId] = etag to asientos
+                } else {
+                    asientosCache.remove(eventoId)
+                }
                 Result.success(asientos)
             } else {
                 val errorBody = response.bodyAsText()
@@ -214,6 +244,55 @@ object ApiClient {
         }
     }
 
+    /**
+     * Backend endpoint: GET /api/eventos/{externalId}/asientos/stream (SSE)
+     *
+     * Función:
+     * - Mantiene abierta la conexión con el BACKEND y recibe:
+     *     - "snapshot": grilla completa (al conectarse o si cambian las dimensiones del evento),
+     *     - "delta": solo los asientos que cambiaron.
+     * - Cada evento se entrega parseado a los callbacks (no se acumula estado acá).
+     *
+     * Importante:
+     * - Suspende mientras el stream esté abierto; se corta cancelando la corrutina.
+     * - El backend manda un "ping" cada ~10s, por eso el socket timeout normal alcanza.
+     */
+    suspend fun escucharAsientosEvento(
+        eventoId: Long,
+        onSnapshot: (List<AsientoEstadoDTO>) -> Unit,
+        onDelta: (List<AsientoEstadoDTO>) -> Unit
+    ): Result<Unit> {
+        return try {
+            println("SSE /api/eventos/$eventoId/asientos/stream")
+
+            client.sse(
+                urlString = "/api/eventos/$eventoId/asientos/stream",
+                request = {
+                    addAuth()
+                    // El stream no tiene duración total máxima
+                    timeout { requestTimeoutMillis = HttpTimeoutConfig.INFINITE_TIMEOUT_MS }
+                }
+            ) {
+                incoming.collect { evento ->
+                    val data = evento.data ?: return@collect
+                    when (evento.event) {
+                        "snapshot" -> onSnapshot(json.decodeFromString(data))
+                        "delta" -> onDelta(json.decodeFromString(data))
+                    }
+                }
+            }
+
+            println("SSE /api/eventos/$eventoId/asientos/stream cerrado por el backend")
+            Result.success(Unit)
+        } catch (e: CancellationException) {
+            // Cancelación normal (se salió de la pantalla): no es un error
+            throw e
+        } catch (e: Exception) {
+            println("💥 Excepción escucharAsientosEvento: ${e.message}")
+            Result.failure(e)
+        }
+    }
+
     /**
      * Backend endpoint: POST /api/eventos/{externalId}/bloqueos
      * - Requiere JWT.
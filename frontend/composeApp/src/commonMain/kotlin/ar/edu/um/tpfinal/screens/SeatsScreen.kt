@@ -34,7 +34,11 @@ fun SeatsScreen(
     // Estado local para capturar el nombre de la persona
     var nombrePersona by remember { mutableStateOf("") }
 
-    LaunchedEffect(Unit) { viewModel.cargarMapa(eventoId) }
+    LaunchedEffect(Unit) {
+        viewModel.cargarMapa(eventoId)
+        // Mantiene el mapa al día mientras la pantalla esté abierta (se cancela al salir)
+        viewModel.escucharCambios(eventoId)
+    }
 
     Box(
         modifier = Modifier
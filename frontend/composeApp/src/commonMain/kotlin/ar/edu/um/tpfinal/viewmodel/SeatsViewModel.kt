@@ -1,8 +1,10 @@
 package ar.edu.um.tpfinal.viewmodel
+import ar.edu.um.tpfinal.dto.AsientoEstadoDTO
 import ar.edu.um.tpfinal.dto.AsientoUbicacionDTO
 import ar.edu.um.tpfinal.dto.VentaAsientoFrontendDTO
 import ar.edu.um.tpfinal.dto.VentaRequestDTO
 import ar.edu.um.tpfinal.network.ApiClient
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
@@ -11,6 +13,7 @@ import kotlinx.coroutines.flow.asStateFlow
  *
  * Rol:
  * - Solicita al backend el MAPA FINAL de asientos del evento.
+ * - Lo mantiene actualizado con el stream SSE (snapshot + deltas).
  * - Gestiona la selección de asientos (máximo 4).
  * - Coordina el bloqueo de asientos (Payload 6).
  * - Coordina la venta de asientos (Payload 7).
@@ -66,6 +69,47 @@ class SeatsViewModel {
         )
     }
 
+    /**
+     * Escucha el stream de cambios del mapa y lo aplica sobre el estado actual.
+     *
+     * Backend endpoint: GET /api/eventos/{externalId}/asientos/stream
+     *
+     * - "snapshot" reemplaza la grilla completa.
+     * - "delta" reemplaza solo los asientos recibidos (fila, columna).
+     * - Solo se toca la UI si el mapa está en pantalla (AsientosCargados);
+     *   la selección del usuario se conserva.
+     * - Si el stream se corta, se reintenta a los pocos segundos.
+     *
+     * Suspende hasta que se cancele la corrutina (ej: al salir de la pantalla).
+     */
+    suspend fun escucharCambios(eventoId: Long) {
+        while (true) {
+            ApiClient.escucharAsientosEvento(
+                eventoId = eventoId,
+                onSnapshot = { asientos -> aplicarAsientos(asientos, reemplazar = true) },
+                onDelta = { cambios -> aplicarAsientos(cambios, reemplazar = false) }
+            )
+            // Reconexión (corte de red, timeout del backend, etc.)
+            delay(3000)
+        }
+    }
+
+    private fun aplicarAsientos(asientos: List<AsientoEstadoDTO>, reemplazar: Boolean) {
+        val estadoActual = _uiState.value
+        if (estadoActual !is SeatsUiState.AsientosCargados) return
+
+        if (reemplazar) {
+            _uiState.value = estadoActual.copy(asientos = asientos)
+            return
+        }
+        if (asientos.isEmpty()) return
+
+        // [DELTA] Se reemplazan solo los asientos recibidos, manteniendo el orden de la grilla
+        val cambios = asientos.associateBy { it.fila to it.columna }
+        val actualizados = estadoActual.asientos.map { cambios[it.fila to it.columna] ?: it }
+        _uiState.value = estadoActual.copy(asientos = actualizados)
+    }
+
     /**
      * Alterna la selección de un asiento (fila, columna).
      *
@@ -0,0 +1,36 @@
+package ar.edu.um.proxyservice.client;
+import ar.edu.um.proxyservice.service.dto.LoginBackendDTO;
+import ar.edu.um.proxyservice.service.dto.NotificacionEventoDTO;
+import ar.edu.um.proxyservice.service.dto.TokenBackendDTO;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.*;
+/**
+ * Cliente hacia el backend del alumno (no la cátedra).
+ *
+ * El Authorization se pasa explícito en cada llamada con el token de la cuenta de servicio
+ * (ver BackendTokenService). El interceptor de CatServiceFeignConfig no toca este cliente:
+ * el token de la cátedra no sirve en el backend y en /api/authenticate haría fallar el login.
+ */
+@FeignClient(
+        name = BackendFeignClient.NOMBRE,
+        url = "${backend.url}"
+)
+public interface BackendFeignClient {
+
+    String NOMBRE = "backend";
+
+    @PostMapping(
+            value = "/api/authenticate",
+            consumes = "application/json"
+    )
+    TokenBackendDTO autenticar(@RequestBody LoginBackendDTO login);
+
+    @PostMapping(
+            value = "/api/proxy/notificacion-evento",
+            consumes = "application/json"
+    )
+    String notificarEvento(
+            @RequestHeader("Authorization") String authorization,
+            @RequestBody NotificacionEventoDTO body
+    );
+}
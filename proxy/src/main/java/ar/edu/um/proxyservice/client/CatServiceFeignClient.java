@@ -4,6 +4,7 @@ import java.util.Map;
 
 import ar.edu.um.proxyservice.service.dto.BloquearAsientosRequestDTO;
 import ar.edu.um.proxyservice.service.dto.BloquearAsientosResponseDTO;
+import feign.Response;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 @FeignClient(
@@ -45,5 +46,19 @@ public interface CatServiceFeignClient {
     @GetMapping("/api/endpoints/v1/listar-venta/{id}")
     String listarVentaPorId(@PathVariable("id") Long id);
 
+    // ----------------------------------------------------------------
+    // Variantes "stream": devuelven la Response cruda (body sin leer) para
+    // reenviarla al cliente sin materializarla en memoria.
+    // Quien las llama DEBE cerrar la Response.
+    // ----------------------------------------------------------------
+
+    @GetMapping("/api/endpoints/v1/eventos-resumidos")
+    Response listarEventosResumidosStream();
+
+    @GetMapping("/api/endpoints/v1/eventos")
+    Response listarEventosCompletosStream();
+
+    @GetMapping("/api/endpoints/v1/listar-ventas")
+    Response listarVentasStream();
 
 }
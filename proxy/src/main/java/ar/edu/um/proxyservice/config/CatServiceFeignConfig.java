@@ -1,4 +1,5 @@
 package ar.edu.um.proxyservice.config;
+import ar.edu.um.proxyservice.client.BackendFeignClient;
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
 import org.slf4j.Logger;
@@ -23,6 +24,10 @@ public class CatServiceFeignConfig {
     @Bean
     public RequestInterceptor catedraAuthRequestInterceptor() {
         return (RequestTemplate template) -> {
+            // La config es global a todos los clientes Feign: el backend del alumno usa su propio token
+            if (template.feignTarget() != null && BackendFeignClient.NOMBRE.equals(template.feignTarget().name())) {
+                return;
+            }
             if (catedraJwtToken == null || catedraJwtToken.isBlank()) {
                 log.debug("[CatServiceFeignConfig] catedra.jwt-token está vacío. Se llamará sin Authorization.");
                 return;
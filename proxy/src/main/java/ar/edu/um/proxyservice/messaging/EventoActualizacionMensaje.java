@@ -0,0 +1,114 @@
+package ar.edu.um.proxyservice.messaging;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Interpretación tolerante del payload que llega por Kafka (topic eventos-actualizacion).
+ *
+ * La cátedra no documenta un formato fijo, así que se aceptan:
+ *  - Un id suelto:            5   o   "5"
+ *  - Un objeto:               { "eventoId": 5, ... }  o  { "id": 5, ... }
+ *  - Una lista de lo anterior: [ 5, { "eventoId": 6 }, ... ]
+ *
+ * El tipo de cambio se toma del primer campo "tipo" / "tipoCambio" / "accion" que aparezca
+ * (normalizado a mayúsculas); si no viene, es {@link #TIPO_DESCONOCIDO}.
+ *
+ * Si no se puede identificar ningún evento, {@link #eventoIds()} queda vacío y
+ * quien consume el mensaje debe tratarlo como "cambió cualquier evento".
+ */
+public record EventoActualizacionMensaje(Set<Long> eventoIds, String tipo) {
+
+    public static final String TIPO_DESCONOCIDO = "DESCONOCIDO";
+    public static final String TIPO_VARIOS = "VARIOS";
+
+    private static final String[] CAMPOS_TIPO = { "tipo", "tipoCambio", "accion" };
+
+    public static EventoActualizacionMensaje parsear(ObjectMapper objectMapper, String payload) {
+        if (payload == null || payload.isBlank()) {
+            return global();
+        }
+
+        Set<Long> ids = new LinkedHashSet<>();
+        String tipo = null;
+        try {
+            JsonNode raiz = objectMapper.readTree(payload);
+            if (raiz.isArray()) {
+                for (JsonNode nodo : raiz) {
+                    agregarId(nodo, ids);
+                    tipo = tipo != null ? tipo : leerTipo(nodo);
+                }
+            } else {
+                agregarId(raiz, ids);
+                tipo = leerTipo(raiz);
+            }
+        } catch (Exception e) {
+            // Payload que no es JSON → no se puede saber qué evento cambió.
+            return global();
+        }
+        return new EventoActualizacionMensaje(Collections.unmodifiableSet(ids), tipo != null ? tipo : TIPO_DESCONOCIDO);
+    }
+
+    /**
+     * Junta varios mensajes (p. ej. los de un mismo poll de Kafka) en uno solo.
+     * - ids: unión sin repetidos, en orden de llegada.
+     * - global: si alguno de los mensajes es global, el resultado también (sync completo).
+     * - tipo: el común a todos, o {@link #TIPO_VARIOS} si difieren.
+     */
+    public static EventoActualizacionMensaje agrupar(List<EventoActualizacionMensaje> mensajes) {
+        Set<Long> ids = new LinkedHashSet<>();
+        String tipo = null;
+        for (EventoActualizacionMensaje mensaje : mensajes) {
+            if (mensaje.esGlobal()) {
+                return global();
+            }
+            ids.addAll(mensaje.eventoIds());
+            tipo = tipo == null || tipo.equals(mensaje.tipo()) ? mensaje.tipo() : TIPO_VARIOS;
+        }
+        if (ids.isEmpty()) {
+            return global();
+        }
+        return new EventoActualizacionMensaje(Collections.unmodifiableSet(ids), tipo);
+    }
+
+    private static EventoActualizacionMensaje global() {
+        return new EventoActualizacionMensaje(Collections.emptySet(), TIPO_DESCONOCIDO);
+    }
+
+    public boolean esGlobal() {
+        return eventoIds.isEmpty();
+    }
+
+    private static String leerTipo(JsonNode nodo) {
+        if (nodo == null || !nodo.isObject()) {
+            return null;
+        }
+        for (String campo : CAMPOS_TIPO) {
+            JsonNode valor = nodo.get(campo);
+            if (valor != null && valor.isValueNode() && !valor.isNull() && !valor.asString().isBlank()) {
+                return valor.asString().trim().toUpperCase();
+            }
+        }
+        return null;
+    }
+
+    private static void agregarId(JsonNode nodo, Set<Long> ids) {
+        if (nodo == null) {
+            return;
+        }
+        JsonNode candidato = nodo;
+        if (nodo.isObject()) {
+            candidato = nodo.has("eventoId") ? nodo.get("eventoId") : nodo.get("id");
+        }
+        if (candidato == null || candidato.isContainer()) {
+            return;
+        }
+        long id = candidato.asLong(-1L);
+        if (id > 0) {
+            ids.add(id);
+        }
+    }
+}
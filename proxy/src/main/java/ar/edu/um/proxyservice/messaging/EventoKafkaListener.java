@@ -1,8 +1,15 @@
 package ar.edu.um.proxyservice.messaging;
+import ar.edu.um.proxyservice.service.BackendNotificador;
+import ar.edu.um.proxyservice.service.EstadoAsientosCacheService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
 
 // Hace que Spring lo detecte automáticamente como bean.
 // Sin esto, no se registra en el contenedor → no escucha Kafka.
@@ -10,15 +17,65 @@ import org.springframework.stereotype.Component;
 public class EventoKafkaListener {
     private static final Logger log = LoggerFactory.getLogger(EventoKafkaListener.class);
 
+    // Espera antes de volver a entregar un lote que el backend no confirmó
+    private static final Duration REINTENTO_LOTE = Duration.ofSeconds(5);
+
+    private final EstadoAsientosCacheService estadoAsientosCacheService;
+    private final BackendNotificador backendNotificador;
+    private final ObjectMapper objectMapper;
+
+    public EventoKafkaListener(
+            EstadoAsientosCacheService estadoAsientosCacheService,
+            BackendNotificador backendNotificador,
+            ObjectMapper objectMapper
+    ) {
+        this.estadoAsientosCacheService = estadoAsientosCacheService;
+        this.backendNotificador = backendNotificador;
+        this.objectMapper = objectMapper;
+    }
+
     // Esta anotación le dice al proxy:
+    // Listener en modo batch (spring.kafka.listener.type=batch): recibe TODOS los mensajes de un poll juntos.
     @KafkaListener(
             topics = "eventos-actualizacion", // A qué topic escuchar → eventos-actualizacion
             groupId = "${PROXY_GROUP_ID:grupo-alumno}" // Con qué groupId
     )
-    // Qué hacer cuando llega un mensaje → ejecutar onEventoActualizado
-    public void onEventoActualizado(String mensaje) {
-        log.info("📡 [Kafka] Mensaje recibido en eventos-actualizacion");
-        log.info("📡 [Kafka] Payload recibido: {}", mensaje);
+    // Qué hacer cuando llega un lote de mensajes → ejecutar onEventosActualizados
+    public void onEventosActualizados(List<String> mensajes, Acknowledgment ack) {
+        log.info("📡 [Kafka] Lote recibido en eventos-actualizacion: {} mensaje(s)", mensajes.size());
+
+        List<EventoActualizacionMensaje> parseados = new ArrayList<>(mensajes.size());
+        for (String mensaje : mensajes) {
+            log.debug("📡 [Kafka] Payload recibido: {}", mensaje);
+            parseados.add(EventoActualizacionMensaje.parsear(objectMapper, mensaje));
+        }
+
+        // Un solo mensaje por lote: ids agrupados (sin repetidos), global si alguno lo es
+        EventoActualizacionMensaje lote = EventoActualizacionMensaje.agrupar(parseados);
+
+        // Invalidamos la cache de asientos SOLO de los eventos afectados.
+        // Si el payload no identifica eventos, invalidamos todo (más vale una lectura de más que un mapa viejo).
+        if (lote.esGlobal()) {
+            estadoAsientosCacheService.invalidarTodo();
+        } else {
+            lote.eventoIds().forEach(estadoAsientosCacheService::invalidar);
+        }
+
+        // Avisamos al backend con UNA llamada por lote. Los offsets se confirman si el backend aceptó
+        // la notificación (at-least-once). Solo una falla transitoria (incluidas las credenciales de servicio)
+        // vuelve a entregar el lote: un 4xx de contenido se repetiría igual en cada reintento y trabaría el topic.
+        BackendNotificador.Resultado resultado = backendNotificador.notificar(lote);
+        switch (resultado) {
+            case ACEPTADA -> ack.acknowledge();
+            case RECHAZADA -> {
+                log.error("📡 [Kafka] Backend rechazó el lote ({} mensaje(s), eventoIds={}); se descarta sin reintentar",
+                        mensajes.size(), lote.eventoIds());
+                ack.acknowledge();
+            }
+            case FALLA_TRANSITORIA -> {
+                log.warn("📡 [Kafka] Backend no confirmó el lote ({} mensaje(s)); se reintenta en {}", mensajes.size(), REINTENTO_LOTE);
+                ack.nack(0, REINTENTO_LOTE);
+            }
+        }
     }
 }
-
@@ -0,0 +1,99 @@
+package ar.edu.um.proxyservice.service;
+import ar.edu.um.proxyservice.client.BackendFeignClient;
+import ar.edu.um.proxyservice.messaging.EventoActualizacionMensaje;
+import ar.edu.um.proxyservice.service.dto.NotificacionEventoDTO;
+import feign.FeignException;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+/**
+ * Reenvía al backend las actualizaciones de eventos que llegan por Kafka.
+ *
+ * - Si el mensaje identifica eventos → notificación dirigida (el backend sincroniza solo esos).
+ * - Si no → notificación global (el backend hace el sync completo).
+ *
+ * Se autentica con el token de la cuenta de servicio ({@link BackendTokenService}); ante un 401
+ * renueva el token y reintenta una vez. Un problema de credenciales (cuenta sin configurar, login
+ * rechazado, 401/403 tras renovar) es de configuración y no del lote: se reintenta el lote hasta que
+ * se corrija, en lugar de confirmarlo y perder la notificación.
+ */
+@Service
+public class BackendNotificador {
+    private static final Logger log = LoggerFactory.getLogger(BackendNotificador.class);
+
+    /**
+     * Qué pasó con la notificación (decide si el lote de Kafka se confirma o se vuelve a entregar).
+     */
+    public enum Resultado {
+        /** El backend la aceptó. */
+        ACEPTADA,
+        /** El backend rechazó el contenido (4xx que no es de autenticación): reintentar daría lo mismo. */
+        RECHAZADA,
+        /** Falla transitoria (5xx, backend caído, timeout, credenciales de servicio): tiene sentido reintentar. */
+        FALLA_TRANSITORIA
+    }
+
+    private final BackendFeignClient backendFeignClient;
+    private final BackendTokenService backendTokenService;
+
+    public BackendNotificador(BackendFeignClient backendFeignClient, BackendTokenService backendTokenService) {
+        this.backendFeignClient = backendFeignClient;
+        this.backendTokenService = backendTokenService;
+    }
+
+    public Resultado notificar(EventoActualizacionMensaje mensaje) {
+        NotificacionEventoDTO body = NotificacionEventoDTO.builder()
+                .eventoIds(List.copyOf(mensaje.eventoIds()))
+                .tipo(mensaje.tipo())
+                .global(mensaje.esGlobal())
+                .build();
+
+        if (!backendTokenService.configurado()) {
+            log.error("🔔 [Proxy->Backend] Falta la cuenta de servicio (BACKEND_USUARIO / BACKEND_PASSWORD); "
+                    + "la notificación eventoIds={} queda pendiente", body.getEventoIds());
+            return Resultado.FALLA_TRANSITORIA;
+        }
+
+        log.info("🔔 [Proxy->Backend] Notificando eventoIds={} tipo={} global={}",
+                body.getEventoIds(), body.getTipo(), body.isGlobal());
+        try {
+            return enviar(body, true);
+        } catch (FeignException e) {
+            // Login rechazado o token rechazado tras renovarlo: credenciales mal configuradas, no el lote
+            if (e.status() == 401 || e.status() == 403) {
+                log.error("🔑 [Proxy->Backend] El backend no acepta la cuenta de servicio (HTTP {}); "
+                        + "la notificación eventoIds={} queda pendiente", e.status(), body.getEventoIds());
+                return Resultado.FALLA_TRANSITORIA;
+            }
+            // status() < 0: no hubo respuesta HTTP (conexión rechazada, timeout)
+            if (e.status() >= 400 && e.status() < 500) {
+                log.error("🔔 [Proxy->Backend] El backend rechazó la notificación eventoIds={} (HTTP {}): {}",
+                        body.getEventoIds(), e.status(), e.getMessage());
+                return Resultado.RECHAZADA;
+            }
+            log.warn("🔔 [Proxy->Backend] Falla transitoria notificando eventoIds={} (HTTP {}): {}",
+                    body.getEventoIds(), e.status(), e.getMessage());
+            return Resultado.FALLA_TRANSITORIA;
+        } catch (Exception e) {
+            log.warn("🔔 [Proxy->Backend] Error notificando al backend eventoIds={}", body.getEventoIds(), e);
+            return Resultado.FALLA_TRANSITORIA;
+        }
+    }
+
+    private Resultado enviar(NotificacionEventoDTO body, boolean reintentarSiVencido) {
+        String token = backendTokenService.token();
+        try {
+            backendFeignClient.notificarEvento("Bearer " + token, body);
+            return Resultado.ACEPTADA;
+        } catch (FeignException.Unauthorized e) {
+            if (!reintentarSiVencido) {
+                throw e;
+            }
+            // Token vencido o firmado con otra clave (backend reiniciado): se pide uno nuevo
+            log.info("🔑 [Proxy->Backend] El backend rechazó el token (401); se renueva y se reintenta");
+            backendTokenService.invalidar(token);
+            return enviar(body, false);
+        }
+    }
+}
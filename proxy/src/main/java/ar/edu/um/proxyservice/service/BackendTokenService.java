@@ -0,0 +1,81 @@
+package ar.edu.um.proxyservice.service;
+import ar.edu.um.proxyservice.client.BackendFeignClient;
+import ar.edu.um.proxyservice.service.dto.LoginBackendDTO;
+import ar.edu.um.proxyservice.service.dto.TokenBackendDTO;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+/**
+ * Token JWT con el que el proxy llama al backend, obtenido con una cuenta de servicio.
+ *
+ * - Se pide a POST /api/authenticate la primera vez que hace falta.
+ * - Se renueva antes de que venza ({@code backend.token-renovar-cada}, menor que la validez del JWT
+ *   en el backend) o cuando el backend lo rechaza con 401 ({@link #invalidar(String)}).
+ *
+ * Así no hay un token fijo en el .env que deje de servir a las 24 h.
+ */
+@Service
+public class BackendTokenService {
+    private static final Logger log = LoggerFactory.getLogger(BackendTokenService.class);
+
+    private final BackendFeignClient backendFeignClient;
+    private final String usuario;
+    private final String password;
+    private final long renovarCadaNanos;
+
+    private String token;
+    private long obtenidoEn;
+
+    public BackendTokenService(
+            BackendFeignClient backendFeignClient,
+            @Value("${backend.usuario:}") String usuario,
+            @Value("${backend.password:}") String password,
+            @Value("${backend.token-renovar-cada:12h}") Duration renovarCada
+    ) {
+        this.backendFeignClient = backendFeignClient;
+        this.usuario = usuario;
+        this.password = password;
+        this.renovarCadaNanos = renovarCada.toNanos();
+    }
+
+    /**
+     * @return false si no hay cuenta de servicio configurada (el backend rechazaría toda llamada).
+     */
+    public boolean configurado() {
+        return usuario != null && !usuario.isBlank() && password != null && !password.isBlank();
+    }
+
+    /**
+     * Token vigente; inicia sesión si no hay uno o si ya toca renovarlo.
+     * Los errores del login (FeignException) se propagan tal cual.
+     */
+    public synchronized String token() {
+        if (token == null || System.nanoTime() - obtenidoEn >= renovarCadaNanos) {
+            token = iniciarSesion();
+            obtenidoEn = System.nanoTime();
+        }
+        return token;
+    }
+
+    /**
+     * Descarta el token si sigue siendo el rechazado (otro hilo pudo haberlo renovado ya).
+     */
+    public synchronized void invalidar(String rechazado) {
+        if (token != null && token.equals(rechazado)) {
+            token = null;
+        }
+    }
+
+    private String iniciarSesion() {
+        log.info("🔑 [Proxy->Backend] Iniciando sesión en el backend como '{}'", usuario);
+        TokenBackendDTO respuesta = backendFeignClient.autenticar(
+                LoginBackendDTO.builder().username(usuario).password(password).rememberMe(false).build()
+        );
+        if (respuesta == null || respuesta.getIdToken() == null || respuesta.getIdToken().isBlank()) {
+            throw new IllegalStateException("El backend no devolvió id_token para '" + usuario + "'");
+        }
+        return respuesta.getIdToken();
+    }
+}
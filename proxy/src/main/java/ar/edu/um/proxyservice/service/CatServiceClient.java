@@ -4,6 +4,8 @@ import java.util.Map;
 
 import ar.edu.um.proxyservice.service.dto.BloquearAsientosRequestDTO;
 import ar.edu.um.proxyservice.service.dto.BloquearAsientosResponseDTO;
+import feign.Response;
+import java.util.function.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -124,6 +126,48 @@ public class CatServiceClient {
         }
     }
 
+    // ----------------------------------------------------------------
+    // Modo stream (listados grandes): el body de la cátedra NO se lee acá,
+    // se reenvía tal cual al cliente desde el controller.
+    // ----------------------------------------------------------------
+
+    /** GET /api/endpoints/v1/eventos-resumidos (stream) */
+    public Response abrirEventosResumidos() {
+        return abrirStream("listarEventosResumidos", CatServiceFeignClient::listarEventosResumidosStream);
+    }
+
+    /** GET /api/endpoints/v1/eventos (stream) */
+    public Response abrirEventosCompletos() {
+        return abrirStream("listarEventosCompletos", CatServiceFeignClient::listarEventosCompletosStream);
+    }
+
+    /** GET /api/endpoints/v1/listar-ventas (stream) */
+    public Response abrirListadoVentas() {
+        return abrirStream("listarVentas", CatServiceFeignClient::listarVentasStream);
+    }
+
+    /**
+     * Ejecuta la llamada y devuelve la Response con el body todavía sin leer.
+     * - Si la cátedra responde != 2xx o falla la conexión → null (y la Response se cierra acá).
+     * - Si devuelve una Response, el llamador es responsable de cerrarla.
+     */
+    private Response abrirStream(String op, Function<CatServiceFeignClient, Response> llamada) {
+        try {
+            log.info("🎓 [Cátedra] Llamando a {} vía Feign (stream)", op);
+            Response response = llamada.apply(feignClient);
+            if (response.status() < 200 || response.status() > 299) {
+                log.error("🎓 [Cátedra] Respuesta {} (stream) con status={}", op, response.status());
+                response.close();
+                return null;
+            }
+            log.info("🎓 [Cátedra] Respuesta {} (stream) -> status={}", op, response.status());
+            return response;
+        } catch (Exception e) {
+            log.error("🎓 [Cátedra] Error llamando a {} vía Feign (stream)", op, e);
+            return null;
+        }
+    }
+
     /**
      * GET /api/endpoints/v1/listar-venta/{id}
      */
@@ -0,0 +1,135 @@
+package ar.edu.um.proxyservice.service;
+import ar.edu.um.proxyservice.service.dto.EstadoAsientosRemotoDTO;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Cache en memoria (por evento) del estado COMPLETO de asientos leído desde el Redis de la cátedra.
+ *
+ * Reglas:
+ *  - La entrada de un evento se invalida cuando Kafka (eventos-actualizacion) avisa un cambio de ese evento,
+ *    o cuando el propio proxy bloquea/vende asientos de ese evento.
+ *  - Como red de seguridad, una entrada nunca se sirve con más antigüedad que {@code max-age}
+ *    (por si un cambio en Redis no viene acompañado de un mensaje de Kafka).
+ *  - Si varios viewers piden el mismo evento con la entrada vencida, se hace UNA sola lectura a Redis
+ *    (single-flight): el primero lee fuera de cualquier lock del mapa, el resto espera su resultado.
+ *    Una invalidación durante la lectura hace que ese resultado NO se guarde (podría ser previo al cambio).
+ *
+ * Las lecturas puntuales (?seats=...) NO pasan por acá: validan bloqueos/ventas y deben ver Redis al día.
+ *
+ * IMPORTANTE: el DTO cacheado se comparte entre requests → no debe modificarse después de devolverlo.
+ */
+@Service
+public class EstadoAsientosCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(EstadoAsientosCacheService.class);
+
+    private final EstadoAsientosRedisService estadoAsientosRedisService;
+    private final long maxAgeNanos;
+    private final Map<Long, Entrada> entradas = new ConcurrentHashMap<>();
+    /** Lecturas a Redis en curso por evento (una sola a la vez). */
+    private final Map<Long, CompletableFuture<Entrada>> enVuelo = new ConcurrentHashMap<>();
+
+    public EstadoAsientosCacheService(
+            EstadoAsientosRedisService estadoAsientosRedisService,
+            @Value("${proxy.estado-asientos.cache-max-age:5s}") Duration maxAge
+    ) {
+        this.estadoAsientosRedisService = estadoAsientosRedisService;
+        this.maxAgeNanos = maxAge.toNanos();
+    }
+
+    /**
+     * Devuelve el estado de asientos del evento desde memoria si la entrada sigue vigente;
+     * si no, lo lee de Redis (una sola vez por evento aunque haya lectores concurrentes).
+     */
+    public EstadoAsientosRemotoDTO obtenerEstadoAsientos(Long eventoId) {
+        long ahora = System.nanoTime();
+        Entrada actual = entradas.get(eventoId);
+        if (actual != null && actual.vigente(ahora, maxAgeNanos)) {
+            return actual.estado();
+        }
+
+        CompletableFuture<Entrada> propia = new CompletableFuture<>();
+        CompletableFuture<Entrada> enCurso = enVuelo.putIfAbsent(eventoId, propia);
+        if (enCurso != null) {
+            // Otro lector ya está yendo a Redis por este evento: se espera su resultado
+            return esperar(enCurso).estado();
+        }
+
+        try {
+            Entrada leida = leer(eventoId, propia);
+            propia.complete(leida);
+            return leida.estado();
+        } catch (RuntimeException e) {
+            propia.completeExceptionally(e);
+            throw e;
+        } finally {
+            enVuelo.remove(eventoId, propia);
+        }
+    }
+
+    /**
+     * Lectura del "líder" de un evento. La I/O se hace fuera del mapa: compute() solo se usa
+     * para guardar el resultado, y únicamente si nadie invalidó el evento mientras tanto.
+     */
+    private Entrada leer(Long eventoId, CompletableFuture<Entrada> propia) {
+        // Otro líder pudo haber terminado entre el get() inicial y el putIfAbsent()
+        Entrada reciente = entradas.get(eventoId);
+        if (reciente != null && reciente.vigente(System.nanoTime(), maxAgeNanos)) {
+            return reciente;
+        }
+
+        long t = System.nanoTime();
+        EstadoAsientosRemotoDTO dto = estadoAsientosRedisService.obtenerEstadoAsientos(eventoId);
+        Entrada leida = new Entrada(dto, t);
+        log.debug("[Cache-Asientos] MISS eventoId={} → leído de Redis ({} asientos)", eventoId, dto.getAsientos().size());
+
+        // invalidar() saca la lectura de enVuelo: si ya no es la nuestra, el resultado puede ser previo al cambio
+        entradas.compute(eventoId, (id, previa) -> enVuelo.get(id) == propia ? leida : previa);
+        return leida;
+    }
+
+    private static Entrada esperar(CompletableFuture<Entrada> enCurso) {
+        try {
+            return enCurso.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    /** Descarta la entrada del evento (la próxima lectura va a Redis). */
+    public void invalidar(Long eventoId) {
+        if (eventoId == null) {
+            return;
+        }
+        // Primero la lectura en curso: así su resultado no se guarda (ver leer())
+        enVuelo.remove(eventoId);
+        if (entradas.remove(eventoId) != null) {
+            log.info("[Cache-Asientos] Invalidado eventoId={}", eventoId);
+        }
+    }
+
+    /** Descarta todas las entradas (mensaje de Kafka sin evento identificable). */
+    public void invalidarTodo() {
+        int cantidad = entradas.size();
+        enVuelo.clear();
+        entradas.clear();
+        log.info("[Cache-Asientos] Invalidada toda la cache ({} eventos)", cantidad);
+    }
+
+    private record Entrada(EstadoAsientosRemotoDTO estado, long cargadoNanos) {
+        boolean vigente(long ahoraNanos, long maxAgeNanos) {
+            return ahoraNanos - cargadoNanos < maxAgeNanos;
+        }
+    }
+}
@@ -10,8 +10,12 @@ import java.util.Collections;
 import org.springframework.data.redis.connection.DataType;
 import ar.edu.um.proxyservice.service.dto.AsientoRequestDTO;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import tools.jackson.databind.JsonNode;
 
 /**
  * Servicio encargado de leer desde el Redis REMOTO de la cátedra el estado actual de los asientos de un evento.
@@ -137,6 +141,124 @@ public class EstadoAsientosRedisService {
         }
     }
 
+    /**
+     * Igual que {@link #obtenerEstadoAsientos(Long)} pero SOLO para los asientos pedidos
+     * (seatIds del estilo "r2c6").
+     *
+     * Pensado para validar bloqueos/ventas (1 a 4 asientos):
+     *  - HASH   → HMGET de los fields pedidos (no se trae ni se parsea el resto del hash).
+     *  - STRING → se parsea el árbol JSON y solo se convierten a DTO los asientos pedidos.
+     *
+     * Los asientos pedidos que no están en Redis simplemente no aparecen (el backend los toma como LIBRE).
+     * Igual que el método completo: NUNCA devuelve null.
+     */
+    public EstadoAsientosRemotoDTO obtenerEstadoAsientos(Long eventoId, Collection<String> seatIds) {
+        String key = buildKey(eventoId);
+
+        Set<String> pedidos = new LinkedHashSet<>();
+        for (String seatId : seatIds) {
+            if (parseSeatId(seatId) != null) {
+                pedidos.add(seatId);
+            } else {
+                log.warn("⚠️ [Redis] seatId pedido con formato inesperado '{}' (eventoId={}). Se ignora.", seatId, eventoId);
+            }
+        }
+        if (pedidos.isEmpty()) {
+            return dtoVacio(eventoId);
+        }
+
+        DataType type = stringRedisTemplate.type(key);
+
+        if (type == null || type == DataType.NONE) {
+            log.info("[Redis] No hay estado de asientos en Redis para eventoId={} (key {}) type:({}).", eventoId, key, type);
+            return dtoVacio(eventoId);
+        }
+
+        try {
+            if (type == DataType.STRING) {
+                return leerDesdeStringFiltrado(eventoId, key, pedidos);
+            }
+
+            if (type == DataType.HASH) {
+                return leerDesdeHashFiltrado(eventoId, key, pedidos);
+            }
+
+            log.warn("⚠️  [Redis] Key={} tiene tipo inesperado {}. Se ignora y se devuelve DTO vacío.", key, type);
+            return dtoVacio(eventoId);
+
+        } catch (Exception e) {
+            log.error("❌ [Redis] Error leyendo asientos puntuales desde Redis para eventoId={} y key={}", eventoId, key, e);
+            return dtoVacio(eventoId);
+        }
+    }
+
+    /**
+     * HMGET de los seatIds pedidos sobre el HASH evento_X.
+     */
+    private EstadoAsientosRemotoDTO leerDesdeHashFiltrado(Long eventoId, String key, Set<String> seatIds) {
+        List<Object> fields = new ArrayList<>(seatIds);
+        List<Object> valores = stringRedisTemplate.opsForHash().multiGet(key, fields);
+
+        List<AsientoRequestDTO> asientos = new ArrayList<>(seatIds.size());
+        for (int i = 0; i < fields.size(); i++) {
+            Object valor = valores != null && i < valores.size() ? valores.get(i) : null;
+            if (valor == null) {
+                continue; // no está en Redis → LIBRE
+            }
+            AsientoRequestDTO dto = parsearEntradaHash(key, fields.get(i), valor);
+            if (dto != null) {
+                asientos.add(dto);
+            }
+        }
+
+        EstadoAsientosRemotoDTO dto = new EstadoAsientosRemotoDTO();
+        dto.setEventoId(eventoId);
+        dto.setAsientos(asientos);
+
+        log.info("[Redis] Redis HMGET eventoId={} pedidos={} → {} asientos", eventoId, seatIds.size(), asientos.size());
+        return dto;
+    }
+
+    /**
+     * STRING evento_X: se lee el JSON como árbol y solo se mapean los asientos pedidos.
+     */
+    private EstadoAsientosRemotoDTO leerDesdeStringFiltrado(Long eventoId, String key, Set<String> seatIds) {
+        String json = stringRedisTemplate.opsForValue().get(key);
+
+        if (json == null) {
+            log.info("[Redis] STRING no encontrado para eventoId={} (key {}). Devolviendo DTO vacío.", eventoId, key);
+            return dtoVacio(eventoId);
+        }
+
+        try {
+            JsonNode raiz = objectMapper.readTree(json);
+            JsonNode nodos = raiz.path("asientos");
+
+            List<AsientoRequestDTO> asientos = new ArrayList<>(seatIds.size());
+            for (JsonNode nodo : nodos) {
+                JsonNode fila = nodo.get("fila");
+                JsonNode columna = nodo.get("columna");
+                if (fila == null || columna == null || !fila.canConvertToInt() || !columna.canConvertToInt()) {
+                    continue;
+                }
+                if (seatIds.contains(seatId(fila.asInt(), columna.asInt()))) {
+                    asientos.add(objectMapper.treeToValue(nodo, AsientoRequestDTO.class));
+                }
+            }
+
+            EstadoAsientosRemotoDTO dto = new EstadoAsientosRemotoDTO();
+            dto.setEventoId(eventoId);
+            dto.setAsientos(asientos);
+
+            log.info("[Redis] Redis STRING filtrado eventoId={} pedidos={} → {} asientos", eventoId, seatIds.size(), asientos.size());
+            return dto;
+
+        } catch (Exception e) {
+            log.error("❌ [Redis] Error parseando STRING Redis key={} para eventoId={}. json={}", key, eventoId, json, e);
+            return dtoVacio(eventoId);
+        }
+    }
+
     /**
      * Lee el estado de asientos desde Redis cuando la key es un STRING con JSON
      * del estilo:
@@ -187,45 +309,9 @@ public class EstadoAsientosRedisService {
         List<AsientoRequestDTO> asientos = new ArrayList<>();
 
         for (Map.Entry<Object, Object> entry : entries.entrySet()) {
-            if (!(entry.getValue() instanceof String jsonSeat)) {
-                log.warn("⚠️ [Redis] Valor HASH no es String para key={}, field={}. Se ignora.", key, entry.getKey());
-                continue;
-            }
-
-            try {
-                // Mapeamos el JSON del hash a un DTO interno minimalista (seatId + status).
-                SeatHashEntry seat = objectMapper.readValue(jsonSeat, SeatHashEntry.class);
-
-                FilaColumna fc = parseSeatId(seat.getSeatId());
-                if (fc == null) {
-                    log.warn("⚠️ [Redis] seatId con formato inesperado '{}' en key={}, field={}", seat.getSeatId(), key, entry.getKey());
-                    continue;
-                }
-
-                AsientoRequestDTO dto = new AsientoRequestDTO();
-                dto.setFila(fc.fila());
-                dto.setColumna(fc.columna());
-                dto.setExpira(seat.getExpira());
-
-                // Normalizamos el estado al formato usado por el backend ("Bloqueado"/"Vendido").
-                if ("BLOQUEADO".equalsIgnoreCase(seat.getStatus())) {
-                    dto.setEstado("Bloqueado");
-                } else if ("VENDIDO".equalsIgnoreCase(seat.getStatus())) {
-                    dto.setEstado("Vendido");
-                } else {
-                    dto.setEstado(seat.getStatus());
-                }
-
+            AsientoRequestDTO dto = parsearEntradaHash(key, entry.getKey(), entry.getValue());
+            if (dto != null) {
                 asientos.add(dto);
-
-            } catch (Exception e) {
-                log.warn(
-                        "⚠️ [Redis] Error parseando entrada HASH Redis key={} field={} json={}",
-                        key,
-                        entry.getKey(),
-                        jsonSeat,
-                        e
-                );
             }
         }
 
@@ -237,6 +323,54 @@ public class EstadoAsientosRedisService {
         return dto;
     }
 
+    /**
+     * Parsea el valor JSON de un field del HASH (seatId "r2c6" → estado del asiento).
+     * Devuelve null (y loguea) si el valor no es válido.
+     */
+    private AsientoRequestDTO parsearEntradaHash(String key, Object field, Object valor) {
+        if (!(valor instanceof String jsonSeat)) {
+            log.warn("⚠️ [Redis] Valor HASH no es String para key={}, field={}. Se ignora.", key, field);
+            return null;
+        }
+
+        try {
+            // Mapeamos el JSON del hash a un DTO interno minimalista (seatId + status).
+            SeatHashEntry seat = objectMapper.readValue(jsonSeat, SeatHashEntry.class);
+
+            FilaColumna fc = parseSeatId(seat.getSeatId());
+            if (fc == null) {
+                log.warn("⚠️ [Redis] seatId con formato inesperado '{}' en key={}, field={}", seat.getSeatId(), key, field);
+                return null;
+            }
+
+            AsientoRequestDTO dto = new AsientoRequestDTO();
+            dto.setFila(fc.fila());
+            dto.setColumna(fc.columna());
+            dto.setExpira(seat.getExpira());
+
+            // Normalizamos el estado al formato usado por el backend ("Bloqueado"/"Vendido").
+            if ("BLOQUEADO".equalsIgnoreCase(seat.getStatus())) {
+                dto.setEstado("Bloqueado");
+            } else if ("VENDIDO".equalsIgnoreCase(seat.getStatus())) {
+                dto.setEstado("Vendido");
+            } else {
+                dto.setEstado(seat.getStatus());
+            }
+
+            return dto;
+
+        } catch (Exception e) {
+            log.warn(
+                    "⚠️ [Redis] Error parseando entrada HASH Redis key={} field={} json={}",
+                    key,
+                    field,
+                    jsonSeat,
+                    e
+            );
+            return null;
+        }
+    }
+
     // ----------------------------------------------------------------
     // Helpers de creación de DTO y utilitarios
     // ----------------------------------------------------------------
@@ -252,6 +386,13 @@ public class EstadoAsientosRedisService {
         return "evento_" + eventoId;
     }
 
+    /**
+     * Arma el seatId "r{fila}c{columna}" usado como field en el HASH de Redis.
+     */
+    public static String seatId(int fila, int columna) {
+        return "r" + fila + "c" + columna;
+    }
+
     /**
      * Parsea un seatId del estilo "r2c6" en un objeto con fila=2 y columna=6.
      */
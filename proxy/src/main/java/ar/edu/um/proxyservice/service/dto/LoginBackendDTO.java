@@ -0,0 +1,16 @@
+package ar.edu.um.proxyservice.service.dto;
+import java.io.Serializable;
+import lombok.*;
+/**
+ * Credenciales de la cuenta de servicio con la que el proxy inicia sesión en el backend
+ * (POST /api/authenticate).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoginBackendDTO implements Serializable {
+    private String username;
+    private String password;
+    private boolean rememberMe;
+}
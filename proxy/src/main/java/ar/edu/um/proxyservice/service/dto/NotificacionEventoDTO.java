@@ -0,0 +1,20 @@
+package ar.edu.um.proxyservice.service.dto;
+import java.io.Serializable;
+import java.util.List;
+import lombok.*;
+/**
+ * Notificación que el proxy envía al backend cuando llega un mensaje de Kafka (eventos-actualizacion).
+ *
+ * - eventoIds: ids de la cátedra (externalId) afectados.
+ * - tipo: tipo de cambio informado por la cátedra (o DESCONOCIDO).
+ * - global: true si no se pudo identificar el evento → el backend hace un sync completo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificacionEventoDTO implements Serializable {
+    private List<Long> eventoIds;
+    private String tipo;
+    private boolean global;
+}
@@ -0,0 +1,14 @@
+package ar.edu.um.proxyservice.service.dto;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.io.Serializable;
+import lombok.*;
+/**
+ * Respuesta de POST /api/authenticate del backend: { "id_token": "..." }.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenBackendDTO implements Serializable {
+    @JsonProperty("id_token")
+    private String idToken;
+}
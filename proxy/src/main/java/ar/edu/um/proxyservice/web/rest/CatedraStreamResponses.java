@@ -0,0 +1,68 @@
+package ar.edu.um.proxyservice.web.rest;
+import feign.Response;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Helper para reenviar al cliente el body de la cátedra SIN materializarlo en memoria.
+ *
+ * - El InputStream de Feign se copia directo al OutputStream del servlet (buffer fijo).
+ * - No se setea Content-Length → la respuesta sale con Transfer-Encoding: chunked.
+ * - La Response de Feign se cierra siempre al terminar (o si el cliente corta).
+ */
+final class CatedraStreamResponses {
+
+    private static final Logger log = LoggerFactory.getLogger(CatedraStreamResponses.class);
+
+    private CatedraStreamResponses() {}
+
+    /**
+     * @param upstream Response abierta de la cátedra, o null si la llamada falló.
+     * @param op       nombre de la operación (para logs).
+     * @param error    mensaje de error para el 502 cuando upstream es null.
+     */
+    static ResponseEntity<StreamingResponseBody> reenviar(Response upstream, String op, String error) {
+        if (upstream == null) {
+            byte[] json = ("{\"error\":\"" + error + "\"}").getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> out.write(json));
+        }
+
+        StreamingResponseBody body = out -> {
+            try (Response r = upstream) {
+                if (r.body() == null) {
+                    return;
+                }
+                try (InputStream in = r.body().asInputStream()) {
+                    long bytes = in.transferTo(out);
+                    log.info("🌐 [Proxy] {} reenviado en stream -> bytes={}", op, bytes);
+                }
+            }
+        };
+
+        return ResponseEntity.status(upstream.status())
+                .contentType(tipoDeContenido(upstream))
+                .body(body);
+    }
+
+    private static MediaType tipoDeContenido(Response upstream) {
+        // Los headers de Feign se indexan sin distinguir mayúsculas/minúsculas
+        Collection<String> valores = upstream.headers().get("Content-Type");
+        if (valores != null && !valores.isEmpty()) {
+            try {
+                return MediaType.parseMediaType(valores.iterator().next());
+            } catch (Exception ignored) {
+                // Content-Type inválido: se asume JSON
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+}
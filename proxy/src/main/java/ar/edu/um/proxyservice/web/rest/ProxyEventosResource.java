@@ -1,9 +1,11 @@
 package ar.edu.um.proxyservice.web.rest;
 import ar.edu.um.proxyservice.service.CatServiceClient;
+import ar.edu.um.proxyservice.service.EstadoAsientosCacheService;
 import ar.edu.um.proxyservice.service.EstadoAsientosRedisService;
 import ar.edu.um.proxyservice.service.dto.BloquearAsientosRequestDTO;
 import ar.edu.um.proxyservice.service.dto.BloquearAsientosResponseDTO;
 import ar.edu.um.proxyservice.service.dto.EstadoAsientosRemotoDTO;
+import java.util.List;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,6 +13,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/proxy")
@@ -20,38 +23,39 @@ public class ProxyEventosResource {
 
     private final CatServiceClient catServiceClient;
     private final EstadoAsientosRedisService estadoAsientosRedisService;
+    private final EstadoAsientosCacheService estadoAsientosCacheService;
 
-    public ProxyEventosResource(CatServiceClient catServiceClient, EstadoAsientosRedisService estadoAsientosRedisService) {
+    public ProxyEventosResource(
+            CatServiceClient catServiceClient,
+            EstadoAsientosRedisService estadoAsientosRedisService,
+            EstadoAsientosCacheService estadoAsientosCacheService
+    ) {
         this.catServiceClient = catServiceClient;
         this.estadoAsientosRedisService = estadoAsientosRedisService;
+        this.estadoAsientosCacheService = estadoAsientosCacheService;
     }
 
+    /**
+     * Listados grandes: el body de la cátedra se reenvía en stream (no se guarda en memoria).
+     */
     @GetMapping(value = "/eventos-resumidos", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<String> listarEventosResumidos() {
+    public ResponseEntity<StreamingResponseBody> listarEventosResumidos() {
         log.info("🌐 [Proxy] GET /api/proxy/eventos-resumidos");
-        String body = catServiceClient.listarEventosResumidos();
-        if (body == null) {
-            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body("{\"error\":\"No se pudo obtener eventos-resumidos desde la cátedra\"}");
-        }
-        return ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(body);
+        return CatedraStreamResponses.reenviar(
+                catServiceClient.abrirEventosResumidos(),
+                "eventos-resumidos",
+                "No se pudo obtener eventos-resumidos desde la cátedra"
+        );
     }
 
     @GetMapping(value = "/eventos", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<String> listarEventosCompletos() {
+    public ResponseEntity<StreamingResponseBody> listarEventosCompletos() {
         log.info("🌐 [Proxy] GET /api/proxy/eventos");
-        String body = catServiceClient.listarEventosCompletos();
-        if (body == null) {
-            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body("{\"error\":\"No se pudo obtener eventos desde la cátedra\"}");
-        }
-        return ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(body);
+        return CatedraStreamResponses.reenviar(
+                catServiceClient.abrirEventosCompletos(),
+                "eventos",
+                "No se pudo obtener eventos desde la cátedra"
+        );
     }
 
     @GetMapping(value = "/eventos/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -82,11 +86,24 @@ public class ProxyEventosResource {
                 .body(body);
     }
 
+    /**
+     * GET /api/proxy/eventos/{id}/estado-asientos[?seats=r1c2,r3c4]
+     *
+     * - Sin "seats": devuelve todos los asientos no libres del evento (desde la cache en memoria,
+     *   invalidada por Kafka).
+     * - Con "seats": devuelve SOLO esos asientos (HMGET en Redis), para validar bloqueos/ventas
+     *   sin traer la grilla entera.
+     */
     @GetMapping(value = "/eventos/{id}/estado-asientos", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<?> obtenerEstadoAsientos(@PathVariable Long id) {
-        log.info("🌐 [Proxy] GET /api/proxy/eventos/{}/estado-asientos", id);
+    public ResponseEntity<?> obtenerEstadoAsientos(
+            @PathVariable Long id,
+            @RequestParam(name = "seats", required = false) List<String> seats
+    ) {
+        log.info("🌐 [Proxy] GET /api/proxy/eventos/{}/estado-asientos seats={}", id, seats);
         try {
-            EstadoAsientosRemotoDTO dto = estadoAsientosRedisService.obtenerEstadoAsientos(id);
+            EstadoAsientosRemotoDTO dto = (seats == null || seats.isEmpty())
+                    ? estadoAsientosCacheService.obtenerEstadoAsientos(id)
+                    : estadoAsientosRedisService.obtenerEstadoAsientos(id, seats);
             return ResponseEntity.ok(dto);
         } catch (Exception e) {
             log.error("🌐 [Proxy] Error consultando Redis para evento {}", id, e);
@@ -101,7 +118,7 @@ public class ProxyEventosResource {
         // En tu proyecto /asientos es alias del estado en Redis remoto
         log.info("🌐 [Proxy] GET /api/proxy/eventos/{}/asientos", id);
         try {
-            EstadoAsientosRemotoDTO dto = estadoAsientosRedisService.obtenerEstadoAsientos(id);
+            EstadoAsientosRemotoDTO dto = estadoAsientosCacheService.obtenerEstadoAsientos(id);
             return ResponseEntity.ok(dto);
         } catch (Exception e) {
             log.error("🌐 [Proxy] Error consultando Redis (asientos) para evento {}", id, e);
@@ -135,6 +152,8 @@ public class ProxyEventosResource {
 
         try {
             BloquearAsientosResponseDTO resp = catServiceClient.bloquearAsientos(request);
+            // El bloqueo cambia Redis: no esperamos a Kafka para descartar el mapa cacheado.
+            estadoAsientosCacheService.invalidar(request.getEventoId());
             return ResponseEntity.ok(resp);
         } catch (Exception e) {
             log.error("💥 [Proxy] Error al bloquear asientos en la cátedra eventoId={}", request.getEventoId(), e);
@@ -153,6 +172,7 @@ public class ProxyEventosResource {
         try {
             // reenviamos tal cual
             String respuesta = catServiceClient.realizarVenta(ventaJson);
+            estadoAsientosCacheService.invalidar(id);
 
             // si hay body → lo devolvemos como JSON
             if (respuesta != null && !respuesta.isBlank()) {
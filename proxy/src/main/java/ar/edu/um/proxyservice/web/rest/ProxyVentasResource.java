@@ -5,6 +5,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/proxy")
@@ -18,13 +19,17 @@ public class ProxyVentasResource {
         this.catServiceClient = catServiceClient;
     }
 
+    /**
+     * El listado de ventas puede ser grande: se reenvía en stream desde la cátedra.
+     */
     @GetMapping(value = "/listar-ventas", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<String> listarVentas() {
+    public ResponseEntity<StreamingResponseBody> listarVentas() {
         log.info("💸 [Proxy] GET /api/proxy/listar-ventas");
-        String body = catServiceClient.listarVentas();
-        return ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(body);
+        return CatedraStreamResponses.reenviar(
+                catServiceClient.abrirListadoVentas(),
+                "listar-ventas",
+                "No se pudo obtener el listado de ventas desde la cátedra"
+        );
     }
 
     @GetMapping(value = "/listar-venta/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
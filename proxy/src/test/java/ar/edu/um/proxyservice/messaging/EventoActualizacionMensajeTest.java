@@ -0,0 +1,61 @@
+package ar.edu.um.proxyservice.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+class EventoActualizacionMensajeTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    @Test
+    void shouldJoinIdsWithoutRepeatsInArrivalOrder() {
+        EventoActualizacionMensaje lote = EventoActualizacionMensaje.agrupar(List.of(
+                parsear("{\"eventoId\":5,\"tipo\":\"precio\"}"),
+                parsear("[6, {\"id\":5}]"),
+                parsear("7")
+        ));
+
+        assertThat(lote.esGlobal()).isFalse();
+        assertThat(lote.eventoIds()).containsExactly(5L, 6L, 7L);
+    }
+
+    @Test
+    void shouldKeepCommonTipoOrMarkVarios() {
+        EventoActualizacionMensaje iguales = EventoActualizacionMensaje.agrupar(List.of(
+                parsear("{\"eventoId\":1,\"tipo\":\"precio\"}"),
+                parsear("{\"eventoId\":2,\"tipoCambio\":\"PRECIO\"}")
+        ));
+        EventoActualizacionMensaje distintos = EventoActualizacionMensaje.agrupar(List.of(
+                parsear("{\"eventoId\":1,\"tipo\":\"precio\"}"),
+                parsear("{\"eventoId\":2,\"accion\":\"baja\"}")
+        ));
+
+        assertThat(iguales.tipo()).isEqualTo("PRECIO");
+        assertThat(distintos.tipo()).isEqualTo(EventoActualizacionMensaje.TIPO_VARIOS);
+    }
+
+    @Test
+    void shouldBeGlobalWhenAnyMessageIsGlobal() {
+        EventoActualizacionMensaje lote = EventoActualizacionMensaje.agrupar(List.of(
+                parsear("{\"eventoId\":1}"),
+                parsear("no es json"),
+                parsear("{\"eventoId\":2}")
+        ));
+
+        assertThat(lote.esGlobal()).isTrue();
+        assertThat(lote.eventoIds()).isEmpty();
+    }
+
+    @Test
+    void shouldBeGlobalWhenBatchIsEmpty() {
+        assertThat(EventoActualizacionMensaje.agrupar(List.of()).esGlobal()).isTrue();
+    }
+
+    private EventoActualizacionMensaje parsear(String payload) {
+        return EventoActualizacionMensaje.parsear(objectMapper, payload);
+    }
+}
@@ -0,0 +1,66 @@
+package ar.edu.um.proxyservice.messaging;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ar.edu.um.proxyservice.service.BackendNotificador;
+import ar.edu.um.proxyservice.service.EstadoAsientosCacheService;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+import tools.jackson.databind.json.JsonMapper;
+
+class EventoKafkaListenerTest {
+
+    private EstadoAsientosCacheService cache;
+    private BackendNotificador notificador;
+    private Acknowledgment ack;
+    private EventoKafkaListener listener;
+
+    @BeforeEach
+    void setUp() {
+        cache = mock(EstadoAsientosCacheService.class);
+        notificador = mock(BackendNotificador.class);
+        ack = mock(Acknowledgment.class);
+        listener = new EventoKafkaListener(cache, notificador, JsonMapper.builder().build());
+    }
+
+    @Test
+    void shouldAckWhenBackendAccepts() {
+        when(notificador.notificar(any())).thenReturn(BackendNotificador.Resultado.ACEPTADA);
+
+        listener.onEventosActualizados(List.of("{\"eventoId\":3}", "{\"eventoId\":4}"), ack);
+
+        verify(cache).invalidar(3L);
+        verify(cache).invalidar(4L);
+        verify(ack).acknowledge();
+        verify(ack, never()).nack(anyInt(), any(Duration.class));
+    }
+
+    @Test
+    void shouldAckWithoutRetryWhenBackendRejects() {
+        when(notificador.notificar(any())).thenReturn(BackendNotificador.Resultado.RECHAZADA);
+
+        listener.onEventosActualizados(List.of("{\"eventoId\":3}"), ack);
+
+        verify(ack).acknowledge();
+        verify(ack, never()).nack(anyInt(), any(Duration.class));
+    }
+
+    @Test
+    void shouldNackOnTransientFailure() {
+        when(notificador.notificar(any())).thenReturn(BackendNotificador.Resultado.FALLA_TRANSITORIA);
+
+        listener.onEventosActualizados(List.of("sin formato"), ack);
+
+        verify(cache).invalidarTodo();
+        verify(ack).nack(0, Duration.ofSeconds(5));
+        verify(ack, never()).acknowledge();
+    }
+}
@@ -0,0 +1,110 @@
+package ar.edu.um.proxyservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ar.edu.um.proxyservice.client.BackendFeignClient;
+import ar.edu.um.proxyservice.messaging.EventoActualizacionMensaje;
+import ar.edu.um.proxyservice.service.dto.TokenBackendDTO;
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BackendNotificadorTest {
+
+    private static final EventoActualizacionMensaje MENSAJE = new EventoActualizacionMensaje(Set.of(5L), "PRECIO");
+
+    private BackendFeignClient client;
+    private BackendNotificador notificador;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(BackendFeignClient.class);
+        when(client.autenticar(any())).thenReturn(new TokenBackendDTO("t1"), new TokenBackendDTO("t2"));
+        notificador = new BackendNotificador(client, new BackendTokenService(client, "proxy", "secreto", Duration.ofHours(12)));
+    }
+
+    @Test
+    void shouldLoginOnceAndReuseToken() {
+        assertThat(notificador.notificar(MENSAJE)).isEqualTo(BackendNotificador.Resultado.ACEPTADA);
+        assertThat(notificador.notificar(MENSAJE)).isEqualTo(BackendNotificador.Resultado.ACEPTADA);
+
+        verify(client, times(1)).autenticar(any());
+        verify(client, times(2)).notificarEvento(eq("Bearer t1"), any());
+    }
+
+    @Test
+    void shouldRenewTokenAndRetryOnceOn401() {
+        when(client.notificarEvento(eq("Bearer t1"), any())).thenThrow(error(401));
+
+        assertThat(notificador.notificar(MENSAJE)).isEqualTo(BackendNotificador.Resultado.ACEPTADA);
+
+        verify(client, times(2)).autenticar(any());
+        verify(client).notificarEvento(eq("Bearer t2"), any());
+    }
+
+    @Test
+    void shouldRejectOnClientError() {
+        when(client.notificarEvento(anyString(), any())).thenThrow(error(400));
+
+        assertThat(notificador.notificar(MENSAJE)).isEqualTo(BackendNotificador.Resultado.RECHAZADA);
+    }
+
+    @Test
+    void shouldRetryLaterWhenTokenStillRefusedAfterRenewal() {
+        when(client.notificarEvento(anyString(), any())).thenThrow(error(401));
+
+        assertThat(notificador.notificar(MENSAJE)).isEqualTo(BackendNotificador.Resultado.FALLA_TRANSITORIA);
+        verify(client, times(2)).notificarEvento(anyString(), any());
+    }
+
+    @Test
+    void shouldRetryLaterWhenLoginIsRefused() {
+        when(client.autenticar(any())).thenThrow(error(401));
+
+        assertThat(notificador.notificar(MENSAJE)).isEqualTo(BackendNotificador.Resultado.FALLA_TRANSITORIA);
+        verify(client, never()).notificarEvento(anyString(), any());
+    }
+
+    @Test
+    void shouldRetryLaterOnServerError() {
+        when(client.notificarEvento(anyString(), any())).thenThrow(error(503));
+
+        assertThat(notificador.notificar(MENSAJE)).isEqualTo(BackendNotificador.Resultado.FALLA_TRANSITORIA);
+    }
+
+    @Test
+    void shouldRetryLaterWithoutCallingBackendWhenAccountIsMissing() {
+        BackendNotificador sinCuenta = new BackendNotificador(client, new BackendTokenService(client, "", "", Duration.ofHours(12)));
+
+        assertThat(sinCuenta.notificar(MENSAJE)).isEqualTo(BackendNotificador.Resultado.FALLA_TRANSITORIA);
+        verify(client, never()).autenticar(any());
+        verify(client, never()).notificarEvento(anyString(), any());
+    }
+
+    private static FeignException error(int status) {
+        Request request = Request.create(
+                Request.HttpMethod.POST,
+                "http://localhost:8080/api/proxy/notificacion-evento",
+                Map.of(),
+                null,
+                StandardCharsets.UTF_8,
+                null
+        );
+        Response response = Response.builder().status(status).reason("HTTP " + status).request(request).headers(Map.of()).build();
+        return FeignException.errorStatus("BackendFeignClient#notificarEvento", response);
+    }
+}
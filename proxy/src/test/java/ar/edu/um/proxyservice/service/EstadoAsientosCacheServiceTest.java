@@ -0,0 +1,111 @@
+package ar.edu.um.proxyservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ar.edu.um.proxyservice.service.dto.EstadoAsientosRemotoDTO;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class EstadoAsientosCacheServiceTest {
+
+    private EstadoAsientosRedisService redis;
+    private EstadoAsientosCacheService cache;
+    private ExecutorService lectores;
+
+    @BeforeEach
+    void setUp() {
+        redis = mock(EstadoAsientosRedisService.class);
+        cache = new EstadoAsientosCacheService(redis, Duration.ofMinutes(1));
+        lectores = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        lectores.shutdownNow();
+    }
+
+    @Test
+    void shouldReadRedisOnceForConcurrentReadersOfSameEvento() throws Exception {
+        CountDownLatch enRedis = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(redis.obtenerEstadoAsientos(1L)).thenAnswer(inv -> {
+            enRedis.countDown();
+            liberar.await(5, TimeUnit.SECONDS);
+            return estado(1L);
+        });
+
+        Future<EstadoAsientosRemotoDTO> lider = lectores.submit(() -> cache.obtenerEstadoAsientos(1L));
+        assertThat(enRedis.await(5, TimeUnit.SECONDS)).isTrue();
+        List<Future<EstadoAsientosRemotoDTO>> seguidores = List.of(
+            lectores.submit(() -> cache.obtenerEstadoAsientos(1L)),
+            lectores.submit(() -> cache.obtenerEstadoAsientos(1L))
+        );
+        liberar.countDown();
+
+        EstadoAsientosRemotoDTO leido = lider.get(5, TimeUnit.SECONDS);
+        for (Future<EstadoAsientosRemotoDTO> f : seguidores) {
+            assertThat(f.get(5, TimeUnit.SECONDS)).isSameAs(leido);
+        }
+        verify(redis, times(1)).obtenerEstadoAsientos(1L);
+    }
+
+    @Test
+    void shouldNotBlockOtherEventosWhileOneReadIsSlow() throws Exception {
+        CountDownLatch enRedis = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(redis.obtenerEstadoAsientos(1L)).thenAnswer(inv -> {
+            enRedis.countDown();
+            liberar.await(5, TimeUnit.SECONDS);
+            return estado(1L);
+        });
+        when(redis.obtenerEstadoAsientos(2L)).thenReturn(estado(2L));
+
+        Future<EstadoAsientosRemotoDTO> lento = lectores.submit(() -> cache.obtenerEstadoAsientos(1L));
+        assertThat(enRedis.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Con la lectura del evento 1 colgada, el evento 2 se lee e invalida sin esperar
+        assertThat(lectores.submit(() -> cache.obtenerEstadoAsientos(2L)).get(1, TimeUnit.SECONDS).getEventoId()).isEqualTo(2L);
+        lectores.submit(() -> cache.invalidar(2L)).get(1, TimeUnit.SECONDS);
+
+        liberar.countDown();
+        assertThat(lento.get(5, TimeUnit.SECONDS).getEventoId()).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldNotCacheReadInvalidatedWhileInFlight() throws Exception {
+        CountDownLatch enRedis = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(redis.obtenerEstadoAsientos(1L))
+            .thenAnswer(inv -> {
+                enRedis.countDown();
+                liberar.await(5, TimeUnit.SECONDS);
+                return estado(1L);
+            })
+            .thenReturn(estado(1L));
+
+        Future<EstadoAsientosRemotoDTO> lectura = lectores.submit(() -> cache.obtenerEstadoAsientos(1L));
+        assertThat(enRedis.await(5, TimeUnit.SECONDS)).isTrue();
+        cache.invalidar(1L); // llega el aviso de Kafka mientras se leía
+        liberar.countDown();
+        lectura.get(5, TimeUnit.SECONDS);
+
+        cache.obtenerEstadoAsientos(1L);
+        verify(redis, times(2)).obtenerEstadoAsientos(1L);
+    }
+
+    private static EstadoAsientosRemotoDTO estado(Long eventoId) {
+        return new EstadoAsientosRemotoDTO(eventoId, List.of());
+    }
+}